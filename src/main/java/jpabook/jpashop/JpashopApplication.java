@@ -1,11 +1,18 @@
 package jpabook.jpashop;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // 재고 원장 flush 같은 주기 작업
 public class JpashopApplication {
 
     public static void main(String[] args) {
@@ -19,4 +26,19 @@ public class JpashopApplication {
         return new Hibernate5Module();
     }
 
+    /**
+     * 같은 API를 Accept 헤더로 CBOR / Smile 로도 응답 (Accept 없거나 json이면 지금처럼 JSON)
+     * 스프링 기본 변환기는 ObjectMapper를 따로 만들어서 위 Hibernate5Module이나 spring.jackson.* 설정이 안 먹음
+     * ➡️ 부트가 만든 builder로 JSON과 똑같이 설정된 ObjectMapper에 factory만 바꿔 끼움
+     */
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
 }
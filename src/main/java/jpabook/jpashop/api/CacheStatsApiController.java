@@ -0,0 +1,56 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheStatsApiController { /** 2차 캐시 hit/miss 통계 (hibernate.generate_statistics) **/
+    private final EntityManagerFactory emf;
+
+    @GetMapping("/api/admin/cache/stats")
+    public Result<List<RegionStats>> cacheStats() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        List<RegionStats> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> new RegionStats(region, statistics.getDomainDataRegionStatistics(region)))
+                .collect(Collectors.toList());
+        return new Result<>(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(), regions);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private long hitCount;
+        private long missCount;
+        private T regions;
+    }
+
+    @Data
+    static class RegionStats {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private long elementCountInMemory;
+
+        RegionStats(String region, CacheRegionStatistics stats) {
+            this.region = region;
+            this.hitCount = stats.getHitCount();
+            this.missCount = stats.getMissCount();
+            this.putCount = stats.getPutCount();
+            this.elementCountInMemory = stats.getElementCountInMemory();
+        }
+    }
+}
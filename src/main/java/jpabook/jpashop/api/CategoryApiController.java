@@ -0,0 +1,65 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.category.CategoryItemDto;
+import jpabook.jpashop.repository.category.CategoryQueryDto;
+import jpabook.jpashop.service.CategoryNode;
+import jpabook.jpashop.service.CategoryService;
+import jpabook.jpashop.service.CategoryTreeSnapshot;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+    private final CategoryService categoryService;
+    private final CategoryTreeSnapshot categoryTreeSnapshot;
+
+    /** 메뉴용 전체 트리 - 메모리 스냅샷 (카테고리가 바뀔 때만 다시 조회) */
+    @GetMapping("/api/v1/categories")
+    public List<CategoryNode> tree() {
+        return categoryTreeSnapshot.getRoots();
+    }
+
+    @PostMapping("/api/v1/categories")
+    public Long create(@RequestBody CreateCategoryRequest request) {
+        return categoryService.create(request.getName(), request.getParentId());
+    }
+
+    @PutMapping("/api/v1/categories/{id}/parent/{parentId}")
+    public void move(@PathVariable("id") Long id, @PathVariable("parentId") Long parentId) {
+        categoryService.move(id, parentId);
+    }
+
+    @PostMapping("/api/v1/categories/{id}/items/{itemId}")
+    public void addItem(@PathVariable("id") Long id, @PathVariable("itemId") Long itemId) {
+        categoryService.addItem(id, itemId);
+    }
+
+    /** 모든 하위 카테고리 - 클로저 테이블 조회 한 번 */
+    @GetMapping("/api/v1/categories/{id}/descendants")
+    public List<CategoryQueryDto> descendants(@PathVariable("id") Long id,
+                                              @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                              @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return categoryService.findDescendants(id, offset, limit);
+    }
+
+    /** 서브트리 전체 상품 - item id 커서 페이징 */
+    @GetMapping("/api/v1/categories/{id}/items")
+    public CursorResult<CategoryItemDto> items(@PathVariable("id") Long id,
+                                               @RequestParam(value = "cursor", required = false) Long cursor,
+                                               @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int size = Math.min(Math.max(limit, 1), 1000);
+        List<CategoryItemDto> items = categoryService.findSubtreeItems(id, cursor, size);
+        String nextCursor = items.size() < size ? null : String.valueOf(items.get(items.size() - 1).getItemId());
+        return new CursorResult<>(items, nextCursor);
+    }
+
+    @Data
+    static class CreateCategoryRequest {
+        private String name;
+        private Long parentId;
+    }
+}
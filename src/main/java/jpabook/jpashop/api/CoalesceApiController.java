@@ -0,0 +1,20 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.coalesce.CoalesceStats;
+import jpabook.jpashop.coalesce.CoalescingAspect;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class CoalesceApiController { /** @Coalesce 조회 통계 - 실제로 실행된 횟수와 합쳐진 횟수 **/
+    private final CoalescingAspect coalescingAspect;
+
+    @GetMapping("/api/admin/coalesce")
+    public List<CoalesceStats> stats() {
+        return coalescingAspect.getStats();
+    }
+}
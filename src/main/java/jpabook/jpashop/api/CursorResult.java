@@ -0,0 +1,14 @@
+package jpabook.jpashop.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/** 커서 페이징 응답 - nextCursor가 null이면 마지막 페이지 */
+@Data
+@AllArgsConstructor
+public class CursorResult<T> {
+    private List<T> data;
+    private String nextCursor;
+}
@@ -0,0 +1,60 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.search.ItemSearchHit;
+import jpabook.jpashop.search.ItemSearchService;
+import jpabook.jpashop.service.CatalogItem;
+import jpabook.jpashop.service.CatalogSnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+    private final CatalogSnapshot catalogSnapshot;
+    private final ItemSearchService itemSearchService;
+
+    /**
+     * 상품 목록 - 스냅샷 + 강한 ETag
+     * If-None-Match가 스냅샷 버전과 같으면 304 (버전이 그대로면 쿼리, 직렬화 없음)
+     * 304 판단과 응답 내용이 같은 스냅샷이라 ETag와 내용이 어긋나지 않음
+     * no-cache라 클라이언트/프록시는 저장은 하되 매번 ETag로 재검증함
+     */
+    @GetMapping("/api/v1/items")
+    public ResponseEntity<Result<List<CatalogItem>>> items(WebRequest request) {
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.getSnapshot();
+        if (request.checkNotModified(snapshot.getETag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(new Result<>(snapshot.getItems().size(), snapshot.getItems()));
+    }
+
+    /**
+     * 상품 검색 - 상품명, 저자/isbn(Book), 감독/배우(Album), 아티스트(Movie) 토큰 + 접두어
+     * 메모리 색인에서 id와 DTO를 같이 돌려줘서 DB를 안 거침
+     */
+    @GetMapping("/api/v1/items/search")
+    public Result<List<ItemSearchHit>> search(@RequestParam("q") String query,
+                                              @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        List<ItemSearchHit> hits = itemSearchService.search(query, limit);
+        return new Result<>(hits.size(), hits);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private int count;
+        private T data;
+    }
+}
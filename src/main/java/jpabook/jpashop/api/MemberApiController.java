@@ -2,6 +2,8 @@ package jpabook.jpashop.api;
 
 import jakarta.validation.Valid;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.member.query.MemberPage;
+import jpabook.jpashop.service.MemberCountMode;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -49,6 +51,19 @@ public class MemberApiController { // 🚫참고: 실무에서는 엔티티(Memb
 
         return new Result(collect.size(), collect);
     }
+
+    /**
+     * 조회 V3: DTO 직접 조회 + id 커서 페이징
+     * V2는 전체 회원 엔티티를 다 올리고 메모리에서 DTO로 바꿈 ➡️ 필요한 컬럼만 한 페이지씩
+     * 전체 건수는 count=EXACT(count 쿼리) / APPROX(캐시된 근사값) / NONE(기본, 안 셈)
+     */
+    @GetMapping("/api/v3/members")
+    public MemberPage memberV3(@RequestParam(value = "cursor", required = false) Long cursor,
+                               @RequestParam(value = "limit", defaultValue = "100") int limit,
+                               @RequestParam(value = "count", defaultValue = "NONE") MemberCountMode count) {
+        return memberService.findMemberPage(cursor, limit, count);
+    }
+
     @Data
     @AllArgsConstructor
     static class Result<T> { // 이렇게 안하고 list를 바로 collection이랑 바로 내면 바로 json 배열 타입으로 나가 버리기 때문에 유연성이 확 떨어짐
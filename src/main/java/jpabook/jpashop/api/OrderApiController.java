@@ -1,22 +1,49 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.exception.InvalidCursorException;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.MemberOrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderField;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderProjectionRepository;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderSearchPage;
+import jpabook.jpashop.repository.order.query.ShardOrderPage;
+import jpabook.jpashop.repository.order.query.ShardOrderQueryDto;
+import jpabook.jpashop.repository.order.query.ShardedOrderQueryRepository;
+import jpabook.jpashop.service.GroupCommitOrderWriter;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.shard.ShardDirectory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 import static java.util.stream.Collectors.toList;
 
@@ -25,12 +52,32 @@ import static java.util.stream.Collectors.toList;
 public class OrderApiController { /** 컬렉션 조회 최적화 **/
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderProjectionRepository orderProjectionRepository;
+    private final ShardedOrderQueryRepository shardedOrderQueryRepository;
+    private final ShardDirectory shardDirectory;
+    private final GroupCommitOrderWriter groupCommitOrderWriter;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 주문 등록 V1: 여러 상품(장바구니)을 한 번에 주문
+     * 상품은 in 쿼리 한 번으로 조회하고, 주문/주문상품/배송은 한 트랜잭션에서 JDBC batch로 저장됨
+     */
+    @PostMapping("/api/v1/orders")
+    public CreateOrderResponse saveOrderV1(@RequestBody @Valid CreateOrderRequest request) { // 회원/주문상품이 없거나 수량이 0 이하면 400
+        List<OrderLine> orderLines = request.getOrderLines().stream()
+                .map(line -> new OrderLine(line.getItemId(), line.getCount()))
+                .collect(toList());
+        Long id = groupCommitOrderWriter.order(request.getMemberId(), orderLines); // 그룹 커밋이 꺼져 있으면 OrderService로 바로 주문
+        return new CreateOrderResponse(id);
+    }
 
     /**
      * 주문 조회 V1: 엔티티 직접 노출
      **/
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
+        rejectIfSharded();
         List<Order> all = orderRepository.findAllByString(new OrderSearch()); // 검색 조건 없이 다 가져 오는 것
         for (Order order : all) { // iter 단축키
             // Lazy 로딩을 호출해서 정상적으로 프록시가 초기화된 데이터가 로딩된 것들만 api로 반환됨
@@ -51,6 +98,7 @@ public class OrderApiController { /** 컬렉션 조회 최적화 **/
      **/
     @GetMapping("/api/v2/orders")
     public List<OrderDto> ordersV2() {
+        rejectIfSharded();
         List<Order> orders = orderRepository.findAllByString(new OrderSearch());
         List<OrderDto> result = orders.stream()
                 .map(OrderDto::new)
@@ -65,6 +113,7 @@ public class OrderApiController { /** 컬렉션 조회 최적화 **/
      */
     @GetMapping("/api/v3/orders")
     public List<OrderDto> ordersV3() { // v3 문제는 order가 1개, orderItems가 2개라면 똑같은 order가 2번 조회 되어버림
+        rejectIfSharded();
         return orderRepository.findAllWithItem().stream()
                 .map(OrderDto::new)
                 .collect(toList());
@@ -77,30 +126,121 @@ public class OrderApiController { /** 컬렉션 조회 최적화 **/
      * 🚫단점은 DB에서 application으로 중복 데이터를 많이 전송하게 됨
      *
      * 김영한 강사님은 이 방식을 굉장히 선호하심!!!😃😃
+     * 샤딩이 켜져 있으면 샤드마다 offset + limit개를 읽어서 최신순으로 합침 (뒤 페이지는 V3.2 커서 권장)
      */
     @GetMapping("/api/v3.1/orders")
     public List<OrderDto> ordersV3_page(
             @RequestParam(value = "offset", defaultValue = "0") int offset,
             @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (shardDirectory.isEnabled()) {
+            return shardedOrderQueryRepository.findPage(Math.max(offset, 0), Math.min(Math.max(limit, 1), 1000)).stream()
+                    .map(OrderDto::new)
+                    .collect(toList());
+        }
         return orderRepository.findAllWithMemberDelivery(offset, limit).stream() // toOne 관계 걸린 경우 다 가져오라
                 .map(OrderDto::new)
                 .collect(toList());
     }
 
+    /**
+     * 주문 조회 V3.2: V3.1에서 offset 대신 커서(keyset) 페이징
+     * offset은 뒤 페이지로 갈수록 앞의 행을 다 읽고 버려서 느려짐 ➡️ (order_date, order_id) 커서로 바로 찾아감
+     * orderItems는 V3.1과 똑같이 @BatchSize로 in 쿼리 한 번
+     * 샤딩이 켜져 있으면 샤드별 커서로 샤드마다 limit개씩 읽어서 합침 (scatter-gather)
+     */
+    @GetMapping("/api/v3.2/orders")
+    public CursorResult<OrderDto> ordersV3_cursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int size = Math.min(Math.max(limit, 1), 1000);
+        if (shardDirectory.isEnabled()) {
+            ShardOrderPage page = shardedOrderQueryRepository.findPage(cursor, size);
+            return new CursorResult<>(page.getOrders().stream().map(OrderDto::new).collect(toList()), page.getNextCursor());
+        }
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(OrderCursor.decode(cursor), size);
+        String nextCursor = orders.size() < size ? null : OrderCursor.of(orders.get(orders.size() - 1)).encode();
+        return new CursorResult<>(orders.stream().map(OrderDto::new).collect(toList()), nextCursor);
+    }
+
+    /**
+     * 주문 검색 : 회원명, 주문/배송 상태, 주문일, 총액, 상품명 조건 + 정렬 + 커서 페이징
+     * 조건 조합마다 만들어둔 JPQL을 재사용하고 DTO로 바로 조회함
+     */
+    @GetMapping("/api/v1/orders/search")
+    public OrderSearchPage searchOrders(OrderSearch orderSearch,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (shardDirectory.isEnabled()) { // 검색 JPQL은 global DB만 봄
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "샤딩이 켜져 있으면 주문 검색을 할 수 없습니다.");
+        }
+        return orderService.searchOrders(orderSearch, cursor, limit);
+    }
+
+    /**
+     * 회원별 주문 내역 : (member_id, order_date, order_id) 인덱스 + 커서 페이징, 최신 주문부터
+     * Member.orders 컬렉션을 통째로 로딩하지 않고 한 페이지씩, 주문 상품은 페이지당 in 쿼리 한 번
+     */
+    @GetMapping("/api/members/{memberId}/orders")
+    public CursorResult<MemberOrderQueryDto> memberOrders(@PathVariable("memberId") Long memberId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        int size = Math.min(Math.max(limit, 1), 100);
+        List<MemberOrderQueryDto> orders = orderQueryRepository.findMemberOrders(memberId, OrderCursor.decode(cursor), size);
+        String nextCursor = null;
+        if (orders.size() == size) {
+            MemberOrderQueryDto last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        return new CursorResult<>(orders, nextCursor);
+    }
+
     /**
      * 주문 조회 V4 : JPA에서 DTO 직접 조회
      */
     @GetMapping("/api/v4/orders")
     public List<OrderQueryDto> ordersV4() {
+        rejectIfSharded();
         return orderQueryRepository.findOrderQueryDtos();
     }
     /**
      * 주문 조회 V5 : JPA에서 DTO 직접 조회 - 컬렉션 조회 최적화
+     * 한 번에 전체를 다 올리지 않게 limit(기본 1000, 최대 10000)개씩만 - 범위를 벗어난 limit은 400
+     * 뒤에 주문이 더 있으면 Link 헤더(rel="next")로 다음 offset을 알려줌 ➡️ 잘린 걸 모르고 지나가지 않게
      */
     @GetMapping("/api/v5/orders")
-    public List<OrderQueryDto> ordersV5() {
-        return orderQueryRepository.findAllByDto_optimization();
+    public ResponseEntity<List<OrderQueryDto>> ordersV5(
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        rejectIfSharded();
+        if (offset < 0 || limit < 1 || limit > 10000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset >= 0, 1 <= limit <= 10000 이어야 합니다.");
+        }
+        List<OrderQueryDto> orders = orderQueryRepository.findAllByDto_optimization(offset, limit + 1); // 하나 더 읽어서 다음 페이지 확인
+        if (orders.size() <= limit) {
+            return ResponseEntity.ok(orders);
+        }
+        String next = "</api/v5/orders?offset=" + (offset + limit) + "&limit=" + limit + ">; rel=\"next\"";
+        return ResponseEntity.ok().header(HttpHeaders.LINK, next).body(orders.subList(0, limit));
     }
+    /**
+     * 주문 조회 V5 스트리밍 : V5를 NDJSON(한 줄에 주문 하나)으로 바로바로 써줌
+     * 전체 List를 힙에 만들지 않고, 첫 window가 준비되면 바로 응답이 나가기 시작함
+     */
+    @GetMapping(value = "/api/v5/orders/stream", produces = "application/x-ndjson")
+    public StreamingResponseBody ordersV5_stream(
+            @RequestParam(value = "window", defaultValue = "500") int window) {
+        rejectIfSharded();
+        int windowSize = Math.min(Math.max(window, 1), 1000);
+        return out -> orderQueryRepository.streamAllByDto(windowSize, dto -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(dto));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     /**
      * 주문 조회 V6 : JPA에서 DTO 직접 조회 - 플랫 데이터 최적화
      * 가장 큰 장점 : 쿼리가 한 번만 나감!!!⭐ 근데 페이징은 못함...
@@ -108,9 +248,74 @@ public class OrderApiController { /** 컬렉션 조회 최적화 **/
      */
     @GetMapping("/api/v6/orders")
     public List<OrderFlatDto> ordersV6() {
+        rejectIfSharded();
         return orderQueryRepository.findAllByDto_flat();
     }
 
+    /**
+     * 주문 조회 V7 : 필요한 필드만 (sparse fieldset) - fields=orderId,orderStatus,totalPrice
+     * V3처럼 member/delivery/orderItems/item을 다 조인하지 않고, 고른 필드에 필요한 컬럼과 조인만 SQL로 나감
+     * 고를 수 있는 필드 : orderId, memberId, name, orderDate, orderStatus, totalPrice, itemCount, deliveryStatus, address, orderItems
+     * NDJSON으로 한 줄씩 바로 써주고, 다음 페이지는 마지막 줄의 orderId를 afterId로 넘김
+     */
+    @GetMapping(value = "/api/v7/orders", produces = "application/x-ndjson")
+    public StreamingResponseBody ordersV7(
+            @RequestParam(value = "fields", defaultValue = "orderId,orderStatus,totalPrice") String fields,
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", defaultValue = "1000") int limit,
+            @RequestParam(value = "window", defaultValue = "500") int window) {
+        rejectIfSharded();
+        Set<OrderField> fieldSet;
+        try {
+            fieldSet = OrderField.parse(fields); // 모르는 필드는 응답이 시작되기 전에 400
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        int size = Math.min(Math.max(limit, 1), 100000);
+        int windowSize = Math.min(Math.max(window, 1), 1000);
+        return out -> orderProjectionRepository.stream(fieldSet, afterId, size, windowSize, row -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** V1~V7 조회는 global DB의 orders만 봄 - 샤딩이 켜져 있으면 주문이 샤드에 있어서 비거나 일부만 나옴 ➡️ 409 */
+    private void rejectIfSharded() {
+        if (shardDirectory.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "샤딩이 켜져 있으면 V3.1, V3.2 주문 조회만 쓸 수 있습니다.");
+        }
+    }
+
+    /** 잘못된 커서(직접 만들었거나 잘린 토큰)는 500이 아니라 400 */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> invalidCursor(InvalidCursorException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty
+        private List<@NotNull @Valid OrderLineRequest> orderLines;
+    }
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long id;
+    }
+
     @Getter // 없으면 프로퍼티 오류남
     static class OrderDto {
         private Long orderId;
@@ -131,6 +336,17 @@ public class OrderApiController { /** 컬렉션 조회 최적화 **/
                     .map(orderItem -> new OrderItemDto(orderItem))
                     .collect(toList()).reversed();
         }
+
+        public OrderDto(ShardOrderQueryDto order) { // 샤드에서 DTO로 조회한 주문
+            orderId = order.getOrderId();
+            name = order.getName();
+            orderDate = order.getOrderDate();
+            orderStatus = order.getOrderStatus();
+            address = order.getAddress();
+            orderItems = order.getOrderItems().stream()
+                    .map(OrderItemDto::new)
+                    .collect(toList());
+        }
     }
 
     @Getter
@@ -145,6 +361,11 @@ public class OrderApiController { /** 컬렉션 조회 최적화 **/
             count = orderItem.getCount();
         }
 
+        public OrderItemDto(OrderItemQueryDto orderItem) {
+            itemName = orderItem.getItemName();
+            orderPrice = orderItem.getOrderPrice();
+            count = orderItem.getCount();
+        }
     }
 
 
@@ -0,0 +1,49 @@
+package jpabook.jpashop.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jpabook.jpashop.service.OrderImportJob;
+import jpabook.jpashop.service.OrderImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequiredArgsConstructor
+public class OrderImportApiController { /** 주문 대량 등록 (다른 채널 백필) **/
+    private final OrderImportService orderImportService;
+
+    /**
+     * 바디를 @RequestBody로 받지 않고 InputStream에서 바로 한 줄씩 읽음 ➡️ 요청 크기와 상관없이 메모리 일정
+     * 등록은 import 스레드에서 (CompletableFuture ➡️ async 요청이라 톰캣 스레드를 잡고 있지 않음), 끝나면 작업 결과를 응답
+     * curl -X POST -H "Content-Type: application/x-ndjson" --data-binary @orders.ndjson localhost:8080/api/v1/orders/import
+     */
+    @PostMapping(value = "/api/v1/orders/import", consumes = {"application/x-ndjson", "text/csv"})
+    public CompletableFuture<OrderImportJob> importOrders(HttpServletRequest request) throws IOException {
+        String format = request.getContentType().startsWith("text/csv") ? OrderImportService.CSV : OrderImportService.NDJSON;
+        return orderImportService.importOrdersAsync(request.getInputStream(), format);
+    }
+
+    /** import 스레드가 다 차 있으면 503 */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("진행 중인 주문 등록이 많습니다. 잠시 후 다시 시도해주세요.");
+    }
+
+    /** 진행 상황 조회 (등록 중에도 다른 요청으로 확인 가능) */
+    @GetMapping("/api/v1/orders/import")
+    public List<OrderImportJob> importJobs() {
+        return orderImportService.findJobs();
+    }
+
+    @GetMapping("/api/v1/orders/import/{jobId}")
+    public ResponseEntity<OrderImportJob> importJob(@PathVariable("jobId") Long jobId) {
+        OrderImportJob job = orderImportService.findJob(jobId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+}
@@ -1,15 +1,19 @@
 package jpabook.jpashop.api;
 
+import jpabook.jpashop.coalesce.Coalesce;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.OrderSimpleQueryDto;
+import jpabook.jpashop.shard.ShardDirectory;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,6 +24,7 @@ import java.util.stream.Collectors;
 public class OrderSimpleApiController { /** 지연 로딩과 간단 조회 성능 최적화 **/
 
     private final OrderRepository orderRepository;
+    private final ShardDirectory shardDirectory;
 
     // 1️⃣이렇게 하면 안됨 어떤 문제가 발생하는지 보여 주기 위함 ➡️ 무한루프 빠짐! Member에 가니까 orders가 있고, Order에 가니까 member가 있어서ㅋㅋㅋ
     // ➡️ 두번째 문제는 500 에러 발생! 지연로딩(LAZY)의 Member를 DB에서 안가져오고 프록시 객체를 가짜로 넣어놓고
@@ -29,6 +34,7 @@ public class OrderSimpleApiController { /** 지연 로딩과 간단 조회 성
     // 결과적으로 간단한 주문 조회를 위해 엔티티를 직접 노출하는건 굉장히 안좋음
     @GetMapping("/api/v1/simple-orders")
     public List<Order> orderV1(){
+        rejectIfSharded();
         List<Order> all = orderRepository.findAllByString(new OrderSearch()); // 1️⃣
         for(Order order : all) { // ➡️ LAZY 로딩 초기화 하면 원하는대로 만들어짐 그러나... API를 만들 때 이렇게 복잡하게 만들지 않음!!! 그리고 쓸데없이 데이터를 다 노출해서 운영할 때 좋지 않음
             order.getMember().getName(); // Lazy 강제 초기화
@@ -43,6 +49,7 @@ public class OrderSimpleApiController { /** 지연 로딩과 간단 조회 성
     // v3 진짜 객체를 채워서 다 가져옴 (JPA에만 있는 join fetch 문법)
     @GetMapping("/api/v2/simple-orders")
     public List<SimpleOrderDto> orderV2() {
+        rejectIfSharded();
         // ORDER 2개 있다면,
         // N + 1 -> 1 + 회원 N + 배송 N
         return orderRepository.findAllByString(new OrderSearch()).stream()
@@ -56,8 +63,11 @@ public class OrderSimpleApiController { /** 지연 로딩과 간단 조회 성
     }
 
     // v2와 v3의 결과는 완전히 같지만, v2는 쿼리문 5개 날리고, v3가 쿼리문 하나로 날려줘서 성능 문제를 해결함
+    // findAllWithMemberDelivery()는 엔티티를 반환해서 요청끼리 공유하면 안됨 ➡️ DTO로 바꾼 결과를 합침
+    @Coalesce(reuseMillis = 500)
     @GetMapping("/api/v3/simple-orders")
     public List<SimpleOrderDto> orderV3() {
+        rejectIfSharded();
         return orderRepository.findAllWithMemberDelivery().stream()
                 .map(SimpleOrderDto::new)
                 .collect(Collectors.toList());
@@ -68,9 +78,17 @@ public class OrderSimpleApiController { /** 지연 로딩과 간단 조회 성
     // v3와 비교를 했을 때 v4는 원하는 값만 select문으로 가져옴! 그런데 v4가 화면에는 최적화 되었는데 거의 재사용성이 없음(로직을 재활용 할 수 없음)!
     @GetMapping("/api/v4/simple-orders")
     public List<OrderSimpleQueryDto> ordersV4() {
+        rejectIfSharded();
         return orderRepository.findOrderDtos(); // repository는 가급적이면 순수한 entity를 조회할 때 사용해야한다. v3까지는 잘 했는데 Dto를 조회하는건 화면에 박히는 느낌임!
     }
 
+    /** 간단 주문 조회는 전부 global DB의 orders만 봄 - 샤딩이 켜져 있으면 주문이 샤드에 있어서 409 */
+    private void rejectIfSharded() {
+        if (shardDirectory.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "샤딩이 켜져 있으면 간단 주문 조회를 할 수 없습니다. (/api/v3.2/orders 사용)");
+        }
+    }
+
     /** 쿼리 방식 선택 권장 순서
      * 1. 우선 엔티티를 DTO로 변환하는 방법을 선택한다. <- V2
      * 2. 필요하면 페치 조인으로 성능을 최적화한다. 대부분의 성능 이슈가 해결된다. <- V3
@@ -0,0 +1,18 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.outbox.OutboxDispatcher;
+import jpabook.jpashop.outbox.OutboxStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class OutboxApiController { /** outbox 마지막 이벤트와 구독자별로 얼마나 밀려 있는지 **/
+    private final OutboxDispatcher outboxDispatcher;
+
+    @GetMapping("/api/admin/outbox")
+    public OutboxStatus status() {
+        return outboxDispatcher.getStatus();
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.sales.DailySales;
+import jpabook.jpashop.domain.sales.ItemSales;
+import jpabook.jpashop.domain.sales.OrderStatusCount;
+import jpabook.jpashop.service.SalesRebuildResult;
+import jpabook.jpashop.service.SalesService;
+import jpabook.jpashop.service.TopSeller;
+import jpabook.jpashop.service.TopSellerTracker;
+import jpabook.jpashop.shard.ShardDirectory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class SalesApiController { /** 매출 대시보드 (집계 테이블은 jpashop.sales.flush-interval 마다 갱신) **/
+    private final SalesService salesService;
+    private final TopSellerTracker topSellerTracker;
+    private final ShardDirectory shardDirectory;
+
+    @GetMapping("/api/v1/sales/items")
+    public List<ItemSales> topItems(@RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return salesService.findTopItems(limit);
+    }
+
+    /** 실시간 베스트셀러 - 집계 테이블이 아니라 메모리 sketch에서 (flush 기다리지 않음) */
+    @GetMapping("/api/v1/sales/top")
+    public List<TopSeller> topSellers(@RequestParam(value = "window", defaultValue = "HOUR") TopSellerTracker.Window window,
+                                      @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return topSellerTracker.top(window, limit);
+    }
+
+    @GetMapping("/api/v1/sales/daily")
+    public List<DailySales> daily(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                  @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return salesService.findDaily(from, to);
+    }
+
+    @GetMapping("/api/v1/sales/status")
+    public List<OrderStatusCount> statusCounts() {
+        return salesService.findStatusCounts();
+    }
+
+    @PostMapping("/api/admin/sales/rebuild")
+    public SalesRebuildResult rebuild() {
+        if (shardDirectory.isEnabled()) { // 원본 주문이 샤드에 있어서 global DB로는 다시 계산할 수 없음
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "샤딩이 켜져 있으면 매출 재계산을 할 수 없습니다.");
+        }
+        return salesService.rebuild();
+    }
+}
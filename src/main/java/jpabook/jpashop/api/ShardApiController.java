@@ -0,0 +1,59 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.shard.ShardDirectory;
+import jpabook.jpashop.shard.ShardRebalancer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class ShardApiController { /** 주문 샤드 상태 + 데이터 옮기기 (관리자용) **/
+    private final ShardDirectory shardDirectory;
+    private final ShardRebalancer shardRebalancer;
+
+    /** 샤드별 bucket 수 */
+    @GetMapping("/api/admin/shards")
+    public ShardStatus status() {
+        if (!shardDirectory.isEnabled()) {
+            return new ShardStatus(false, 0, 0, Map.of());
+        }
+        return new ShardStatus(true, shardDirectory.shardCount(), shardDirectory.getBuckets(), shardDirectory.bucketCounts());
+    }
+
+    /** 샤딩 전에 global DB에 쌓인 주문을 회원의 샤드로 복사 */
+    @PostMapping("/api/admin/shards/backfill")
+    public MoveResult backfill() {
+        return new MoveResult(shardRebalancer.backfill());
+    }
+
+    /** bucket 하나를 다른 샤드로 옮김 (애플리케이션이 한 대만 떠 있을 때만 - ShardRebalancer 참고) */
+    @PostMapping("/api/admin/shards/buckets/{bucket}/move")
+    public MoveResult moveBucket(@PathVariable("bucket") int bucket, @RequestParam("to") int to) {
+        return new MoveResult(shardRebalancer.moveBucket(bucket, to));
+    }
+
+    /** 샤드에 남은 다른 샤드 소유 주문 삭제 */
+    @PostMapping("/api/admin/shards/{shard}/purge")
+    public MoveResult purge(@PathVariable("shard") int shard) {
+        return new MoveResult(shardRebalancer.purge(shard));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class ShardStatus {
+        private boolean enabled;
+        private int shards;
+        private int buckets;
+        private Map<Integer, Integer> bucketsPerShard;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class MoveResult {
+        private long orders;
+    }
+}
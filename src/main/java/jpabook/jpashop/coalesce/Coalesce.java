@@ -0,0 +1,19 @@
+package jpabook.jpashop.coalesce;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 같은 인자로 동시에 들어온 조회를 한 번만 실행하고 결과를 같이 씀 (single-flight)
+ * 🚫 결과를 여러 요청이 공유하기 때문에 엔티티를 반환하는 메서드에는 붙이면 안됨 (영속성 컨텍스트가 요청마다 다름) ➡️ DTO 조회에만
+ * 🚫 결과를 받아서 수정하는 곳이 있으면 안됨
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesce {
+
+    /** 실행이 끝난 뒤에도 이 시간(ms) 동안은 같은 조회에 결과를 재사용, 0이면 실행 중일 때만 합침 */
+    long reuseMillis() default 0;
+}
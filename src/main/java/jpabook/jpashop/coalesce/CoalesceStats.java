@@ -0,0 +1,47 @@
+package jpabook.jpashop.coalesce;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** @Coalesce 메서드 하나의 통계 - 호출 중 실제로 실행된 것과 다른 실행 결과를 받아간 것 */
+public class CoalesceStats {
+    private final String method;
+    final LongAdder calls = new LongAdder();
+    final LongAdder executions = new LongAdder();
+    final LongAdder joined = new LongAdder();   // 실행 중인 조회에 합류
+    final LongAdder reused = new LongAdder();   // 끝난 결과를 재사용 창 안에서 받아감
+    final LongAdder bypassed = new LongAdder(); // 쓰기 트랜잭션 안이라 합치지 않고 바로 실행
+
+    CoalesceStats(String method) {
+        this.method = method;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getJoined() {
+        return joined.sum();
+    }
+
+    public long getReused() {
+        return reused.sum();
+    }
+
+    public long getBypassed() {
+        return bypassed.sum();
+    }
+
+    /** 호출 중 쿼리를 아낀 비율 */
+    public double getDedupRatio() {
+        long calls = getCalls();
+        return calls == 0 ? 0 : (double) (getJoined() + getReused()) / calls;
+    }
+}
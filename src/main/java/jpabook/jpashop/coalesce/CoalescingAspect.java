@@ -0,0 +1,147 @@
+package jpabook.jpashop.coalesce;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * @Coalesce 처리 - (메서드, 인자) 마다 실행 중인 조회를 하나만 두고, 같은 조회가 또 들어오면 그 결과를 기다렸다가 같이 받음
+ * 대시보드가 새로고침 되면서 같은 /api/v5/orders 가 1초 안에 수십 번 들어와도 쿼리는 한 번만 나감
+ * - 쓰기 트랜잭션 안에서는 방금 자기가 쓴 내용이 안 보일 수 있어서 합치지 않음
+ * - 예외도 같이 기다리던 요청들이 똑같이 받고, 실패한 결과는 재사용하지 않음
+ */
+@Aspect
+@Component
+public class CoalescingAspect {
+
+    @Value("${jpashop.coalesce.enabled:true}")
+    private boolean enabled = true;
+
+    private final ConcurrentMap<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CoalesceStats> stats = new ConcurrentHashMap<>();
+
+    @Around("@annotation(coalesce)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, Coalesce coalesce) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        CoalesceStats stat = stats.computeIfAbsent(signature.toShortString(), CoalesceStats::new);
+        stat.calls.increment();
+        if (inWriteTransaction()) {
+            stat.bypassed.increment();
+            return joinPoint.proceed();
+        }
+
+        Key key = new Key(signature.getMethod(), Arrays.asList(joinPoint.getArgs()));
+        while (true) {
+            InFlight current = inFlight.get(key);
+            if (current != null) {
+                if (!current.isExpired(System.currentTimeMillis())) {
+                    (current.future.isDone() ? stat.reused : stat.joined).increment();
+                    return current.await();
+                }
+                inFlight.remove(key, current); // 재사용 창이 지남
+                continue;
+            }
+
+            InFlight mine = new InFlight();
+            if (inFlight.putIfAbsent(key, mine) != null) { // 그 사이 다른 요청이 먼저 실행을 시작함
+                continue;
+            }
+            stat.executions.increment();
+            boolean keep = false;
+            try {
+                Object result = joinPoint.proceed();
+                keep = coalesce.reuseMillis() > 0;
+                mine.complete(result, coalesce.reuseMillis());
+                return result;
+            } catch (Throwable e) {
+                mine.future.completeExceptionally(e);
+                throw e;
+            } finally {
+                if (!keep) {
+                    inFlight.remove(key, mine);
+                }
+            }
+        }
+    }
+
+    /** 메서드별 통계 (호출 많은 순) */
+    public List<CoalesceStats> getStats() {
+        List<CoalesceStats> result = new ArrayList<>(stats.values());
+        result.sort(Comparator.comparingLong(CoalesceStats::getCalls).reversed());
+        return result;
+    }
+
+    /** 재사용 창이 끝났는데 같은 조회가 다시 안 들어와서 남아있는 결과 정리 */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        inFlight.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static final class InFlight {
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE; // 실행 중에는 만료 없음
+
+        void complete(Object result, long reuseMillis) {
+            expiresAt = System.currentTimeMillis() + reuseMillis; // 결과를 넘기기 전에 만료 시각부터
+            future.complete(result);
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        Object await() throws Throwable {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("같은 조회 결과를 기다리는 중 인터럽트 되었습니다.", e);
+            }
+        }
+    }
+
+    private static final class Key {
+        private final Method method;
+        private final List<Object> args;
+        private final int hash;
+
+        Key(Method method, List<Object> args) {
+            this.method = method;
+            this.args = args;
+            this.hash = 31 * method.hashCode() + args.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && method.equals(other.method) && args.equals(other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,18 +1,28 @@
 package jpabook.jpashop.controller;
 
+import jpabook.jpashop.service.TopSellerTracker;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 @Controller
 @Slf4j
+@RequiredArgsConstructor
 public class HomeController {
+    private static final int TOP_SELLERS = 5;
+
+    private final TopSellerTracker topSellerTracker;
 
 //    Logger log = LoggerFactory.getLogger(getClass()); // @Slf4j와 같은거임
 
     @RequestMapping("/")
-    public String home() {
+    public String home(Model model) {
         log.info("home controller");
+        // 메모리에 있는 sketch에서 바로 꺼내기 때문에 홈 화면마다 불러도 DB 부하 없음
+        model.addAttribute("hourTopSellers", topSellerTracker.top(TopSellerTracker.Window.HOUR, TOP_SELLERS));
+        model.addAttribute("dayTopSellers", topSellerTracker.top(TopSellerTracker.Window.DAY, TOP_SELLERS));
         return "home";
     }
 
@@ -1,7 +1,7 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.CatalogSnapshot;
 import jpabook.jpashop.service.ItemService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -10,13 +10,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @Controller
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService itemService;
+    private final CatalogSnapshot catalogSnapshot;
 
     @GetMapping("/items/new")
     public String createForm(Model model) {
@@ -38,9 +38,12 @@ public class ItemController {
     }
 
     @GetMapping("/items")
-    public String list(Model model) {
-        List<Item> items = itemService.findItems();
-        model.addAttribute("items", items);
+    public String list(Model model, WebRequest request) {
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.getSnapshot(); // 버전이 그대로면 쿼리 없이 재사용
+        if (request.checkNotModified(snapshot.getETag())) { // 보여줄 내용과 같은 스냅샷의 ETag로 판단
+            return null; // 304 - 바뀐게 없으면 렌더링도 안함
+        }
+        model.addAttribute("items", snapshot.getItems());
         return "items/itemList";
     }
 
@@ -3,6 +3,8 @@ package jpabook.jpashop.controller;
 import jakarta.validation.Valid;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.member.query.MemberPage;
+import jpabook.jpashop.service.MemberCountMode;
 import jpabook.jpashop.service.MemberService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -10,8 +12,7 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
-
-import java.util.List;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 @RequiredArgsConstructor
@@ -42,9 +43,11 @@ public class MemberController {
     }
 
     @GetMapping("/members")
-    public String list(Model model) {
-        List<Member> members = memberService.findMembers();
-        model.addAttribute("members", members);
+    public String list(@RequestParam(value = "cursor", required = false) Long cursor, Model model) {
+        MemberPage page = memberService.findMemberPage(cursor, 20, MemberCountMode.APPROX); // 한 페이지씩, 전체 수는 근사값
+        model.addAttribute("members", page.getMembers());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("totalCount", page.getTotalCount());
         return "members/memberList";
     }
 }
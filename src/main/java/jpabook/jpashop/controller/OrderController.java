@@ -1,17 +1,23 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.InvalidCursorException;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.repository.order.query.OrderSearchPage;
+import jpabook.jpashop.service.CatalogItem;
+import jpabook.jpashop.service.CatalogSnapshot;
+import jpabook.jpashop.service.GroupCommitOrderWriter;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderLine;
 import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.shard.ShardDirectory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Controller
@@ -20,12 +26,14 @@ public class OrderController {
 
     private final OrderService orderService;
     private final MemberService memberService;
-    private final ItemService itemService;
+    private final CatalogSnapshot catalogSnapshot;
+    private final GroupCommitOrderWriter groupCommitOrderWriter;
+    private final ShardDirectory shardDirectory;
 
     @GetMapping("/order")
     public String createForm(Model model) {
         List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
+        List<CatalogItem> items = catalogSnapshot.getSnapshot().getItems(); // 상품 목록은 스냅샷 재사용
 
         model.addAttribute("members", members);
         model.addAttribute("items", items);
@@ -34,23 +42,75 @@ public class OrderController {
     }
 
     @PostMapping("/order")
-    public String order(@RequestParam("memberId") Long memberId, // html의 name값 넘어옴
-                        @RequestParam("itemId") Long itemId,
-                        @RequestParam("count") int count) {
-        orderService.order(memberId, itemId, count); // JPA는 트랜잭션 안에서 가장 깔끔하게 동작함 ➡️ service단에서 로직을 짜주는 이유
+    public String order(@RequestParam(value = "memberId", required = false) Long memberId, // html의 name값 넘어옴
+                        @RequestParam(value = "itemId", required = false) List<Long> itemIds, // 상품을 여러 줄 담으면 같은 name으로 여러 개 넘어옴
+                        @RequestParam(value = "count", required = false) List<Integer> counts, Model model) {
+        try {
+            if (memberId == null) {
+                throw new IllegalArgumentException("주문회원을 선택해주세요.");
+            }
+            // JPA는 트랜잭션 안에서 가장 깔끔하게 동작함 ➡️ service단에서 로직을 짜주는 이유
+            // 그룹 커밋이 켜져 있으면 다른 주문들과 묶여서 한 트랜잭션으로 저장됨
+            groupCommitOrderWriter.order(memberId, toOrderLines(itemIds, counts));
+        } catch (NotEnoughStockException e) { // 500 대신 주문 화면에 다시 보여줌
+            model.addAttribute("errorMessage", "재고가 부족한 상품이 있습니다.");
+            return createForm(model);
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("errorMessage", e.getMessage());
+            return createForm(model);
+        }
         // service계층에서 엔티티에 더 의존하고 안에서 찾으면 할 수 있는게 더 많아짐! 엔티티는 영속 상태로 흘러 가기 때문에 깔끔해짐
         return "redirect:/orders";
     }
+
+    /** 상품, 수량을 줄 단위로 묶음 - 둘 다 비어 있는 줄은 건너뛰고, 한쪽만 비어 있으면 예외 */
+    private static List<OrderLine> toOrderLines(List<Long> itemIds, List<Integer> counts) {
+        int lines = Math.max(sizeOf(itemIds), sizeOf(counts)); // 빈 값만 넘어오면 리스트가 짧게 바인딩될 수 있음
+        List<OrderLine> orderLines = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            Long itemId = i < sizeOf(itemIds) ? itemIds.get(i) : null;
+            Integer count = i < sizeOf(counts) ? counts.get(i) : null;
+            if (itemId == null && count == null) {
+                continue;
+            }
+            if (itemId == null || count == null || count <= 0) {
+                throw new IllegalArgumentException((i + 1) + "번째 줄의 상품과 수량을 확인해주세요.");
+            }
+            orderLines.add(new OrderLine(itemId, count));
+        }
+        if (orderLines.isEmpty()) {
+            throw new IllegalArgumentException("주문 상품이 없습니다.");
+        }
+        return orderLines;
+    }
+
+    private static int sizeOf(List<?> values) {
+        return values == null ? 0 : values.size();
+    }
+
     // 이렇게 안하고 바로 repository로 바로 만들어도됨!
     @GetMapping("/orders")   //@ModelAttribute에 세팅해두면 model박스에 자동으로 담긴다
-    public String orderList(@ModelAttribute("orderSearch")OrderSearch orderSearch, Model model) {
-        List<Order> orders = orderService.findOrders(orderSearch);
+    public String orderList(@ModelAttribute("orderSearch")OrderSearch orderSearch,
+                            @RequestParam(value = "cursor", required = false) String cursor, Model model) {
+        if (shardDirectory.isEnabled()) { // 검색은 global DB만 봐서 샤드에 있는 주문이 안 나옴
+            model.addAttribute("errorMessage", "샤딩이 켜져 있으면 주문 검색을 할 수 없습니다. 주문 목록은 /api/v3.2/orders 를 사용해주세요.");
+            model.addAttribute("orders", List.of());
+            return "order/orderList";
+        }
+        OrderSearchPage page = orderService.searchOrders(orderSearch, cursor, 20); // 엔티티 대신 DTO로 조회해서 화면에서 지연 로딩이 안 일어남
         // model.addAttribute("orderSearch", orderSearch); @ModelAttribute는 이 부분이 생략된거라고 보면 됨!
-        model.addAttribute("orders", orders);
+        model.addAttribute("orders", page.getOrders());
+        model.addAttribute("nextCursor", page.getNextCursor());
 
         return "order/orderList";
     }
 
+    /** 주문 목록에 잘못된 커서가 넘어오면 첫 페이지로 */
+    @ExceptionHandler(InvalidCursorException.class)
+    public String invalidCursor() {
+        return "redirect:/orders";
+    }
+
     @PostMapping("/order/{orderId}/cancel")
     public String cancelOrder(@PathVariable("orderId") Long orderId) {
         orderService.cancelOrder(orderId);
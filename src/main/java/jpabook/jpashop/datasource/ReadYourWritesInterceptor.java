@@ -0,0 +1,43 @@
+package jpabook.jpashop.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/** 요청의 memberId(경로 변수 또는 파라미터)가 방금 주문한 회원이면 이 요청의 조회는 primary로 */
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+    private final ReadYourWritesTracker tracker;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long memberId = memberIdOf(request);
+        if (memberId != null && tracker.recentlyWrote(memberId)) {
+            ReplicaRoutingDataSource.pinPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRoutingDataSource.unpinPrimary();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long memberIdOf(HttpServletRequest request) {
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String value = pathVariables != null ? pathVariables.get("memberId") : null;
+        if (value == null) {
+            value = request.getParameter("memberId");
+        }
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package jpabook.jpashop.datasource;
+
+import jpabook.jpashop.event.OrderCanceledEvent;
+import jpabook.jpashop.event.OrderPlacedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 주문/취소한 회원을 window 동안 기억함 - replica는 primary보다 늦게 따라오기 때문에
+ * 그 사이 자기 주문 내역을 조회하면 방금 한 주문이 안 보일 수 있음 ➡️ 그 회원의 조회는 primary로
+ */
+public class ReadYourWritesTracker {
+    private final long windowMillis;
+    private final Map<Long, Long> pinnedUntil = new ConcurrentHashMap<>(); // member id -> primary로 보낼 시각까지
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        wrote(event.getMemberId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCanceled(OrderCanceledEvent event) {
+        wrote(event.getMemberId());
+    }
+
+    void wrote(Long memberId) {
+        if (windowMillis > 0 && memberId != null) {
+            pinnedUntil.put(memberId, System.currentTimeMillis() + windowMillis);
+        }
+    }
+
+    public boolean recentlyWrote(Long memberId) {
+        Long until = pinnedUntil.get(memberId);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        pinnedUntil.values().removeIf(until -> until <= now);
+    }
+}
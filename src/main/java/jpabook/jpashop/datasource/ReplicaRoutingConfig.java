@@ -0,0 +1,94 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 읽기/쓰기 DataSource 분리 (jpashop.datasource.routing.enabled=true 일 때만, 기본은 지금처럼 DataSource 하나)
+ * primary는 spring.datasource.*, replica는 jpashop.datasource.routing.replicas[*]
+ */
+@Configuration
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+@ConditionalOnProperty(value = "jpashop.datasource.routing.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReplicaRoutingConfig implements WebMvcConfigurer {
+    private final RoutingDataSourceProperties properties;
+
+    /** primary 풀 - 부트 기본 DataSource처럼 spring.datasource.hikari.* 를 그대로 받고, 빈이라 종료할 때 스프링이 닫음 */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    /** replica 풀은 routingDataSource가 들고 있다가 close() 때 닫음 */
+    @Bean
+    ReplicaRoutingDataSource routingDataSource(DataSourceProperties dataSourceProperties,
+                                               @Qualifier("primaryDataSource") HikariDataSource primary) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            RoutingDataSourceProperties.Replica replica = properties.getReplicas().get(i);
+            String name = replica.getName() != null ? replica.getName() : "replica" + (i + 1);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            dataSource.setPoolName(name);
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            replicas.put(name, dataSource);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, properties.getSelection());
+    }
+
+    /** JPA가 쓰는 DataSource - 첫 SQL 때 커넥션을 빌려서 그때의 readOnly 여부로 라우팅 */
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * 트랜잭션이 끝나면 커넥션을 바로 돌려줌 - OSIV로 EntityManager가 요청 내내 살아있어도 다음 트랜잭션은 커넥션을 새로 빌려서 다시 라우팅됨
+     * (기본값이면 읽기 전용 트랜잭션에서 빌린 replica 커넥션을 같은 요청의 쓰기 트랜잭션이 그대로 씀)
+     */
+    @Bean
+    HibernatePropertiesCustomizer connectionHandlingCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(properties.getReadYourWritesWindow());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(readYourWritesTracker()));
+    }
+}
@@ -0,0 +1,130 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Transactional(readOnly = true) 트랜잭션은 replica로, 나머지(쓰기, 트랜잭션 밖)는 primary로 보냄
+ * - 트랜잭션이 시작될 때 바로 커넥션을 잡으면 readOnly 여부가 아직 안 정해져 있어서 LazyConnectionDataSourceProxy로 감싸서 씀
+ *   (첫 SQL이 나갈 때 커넥션을 빌림)
+ * - replica는 주기적으로 커넥션을 빌려서 확인하고, 죽은 replica는 건너뜀 (다 죽으면 primary)
+ * - pinPrimary() 된 스레드는 읽기 전용이어도 primary (방금 주문한 회원이 자기 주문을 바로 보는 경우)
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    static final String PRIMARY = "primary";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+    private final ReplicaSelection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, ReplicaSelection selection) {
+        this.selection = selection;
+        this.replicas = replicas.entrySet().stream()
+                .map(e -> new Replica(e.getKey(), e.getValue()))
+                .toList();
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static void pinPrimary() {
+        PRIMARY_PINNED.set(Boolean.TRUE);
+    }
+
+    public static void unpinPrimary() {
+        PRIMARY_PINNED.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_PINNED.get() != null) {
+            return PRIMARY;
+        }
+        Replica replica = select();
+        return replica != null ? replica.name : PRIMARY;
+    }
+
+    private Replica select() {
+        List<Replica> healthy = replicas.stream().filter(r -> r.healthy).toList();
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        if (selection == ReplicaSelection.LEAST_CONNECTIONS) {
+            return healthy.stream().min(Comparator.comparingInt(Replica::activeConnections)).get();
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    /** replica마다 커넥션을 빌려서 살아있는지 확인 (상태가 바뀔 때만 로그) */
+    @Scheduled(fixedDelayString = "${jpashop.datasource.routing.health-check-interval:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.warn("replica {} is now {}", replica.name, healthy ? "UP" : "DOWN");
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    /** replica 이름 -> 살아있는지 */
+    public Map<String, Boolean> getReplicaStatus() {
+        Map<String, Boolean> status = new LinkedHashMap<>();
+        replicas.forEach(r -> status.put(r.name, r.healthy));
+        return status;
+    }
+
+    /** replica 풀을 닫음 (primary는 따로 만든 빈이라 여기서 안 닫음) */
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("failed to close replica {}", replica.name, e);
+                }
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true; // 첫 확인 전에는 살아있다고 봄
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        int activeConnections() {
+            if (dataSource instanceof HikariDataSource hikari) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean(); // 커넥션을 한 번도 안 빌렸으면 null
+                return pool != null ? pool.getActiveConnections() : 0;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package jpabook.jpashop.datasource;
+
+/** 읽기 전용 트랜잭션을 보낼 replica 고르는 방식 (살아있는 replica 중에서) */
+public enum ReplicaSelection {
+    ROUND_ROBIN,      // 돌아가면서
+    LEAST_CONNECTIONS // 지금 빌려간 커넥션이 가장 적은 곳
+}
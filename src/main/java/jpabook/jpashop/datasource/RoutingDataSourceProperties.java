@@ -0,0 +1,30 @@
+package jpabook.jpashop.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/** jpashop.datasource.routing.* (primary는 기존 spring.datasource.* 그대로) */
+@Getter
+@Setter
+@ConfigurationProperties("jpashop.datasource.routing")
+public class RoutingDataSourceProperties {
+    private boolean enabled;
+    private ReplicaSelection selection = ReplicaSelection.ROUND_ROBIN;
+    private Duration readYourWritesWindow = Duration.ZERO; // 0이면 끔
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -4,14 +4,21 @@ import jakarta.persistence.*;
 import jpabook.jpashop.domain.item.Item;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Fetch;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static jakarta.persistence.FetchType.LAZY;
 
 @Entity
+@Cacheable // 2차 캐시 - 카테고리는 거의 안 바뀜
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 public class Category {
     @Id @GeneratedValue
@@ -20,6 +27,7 @@ public class Category {
 
     private String name;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 컬렉션도 캐시 (item id 목록만 들어감)
     @ManyToMany
     @JoinTable(name = "category_item", // 실무에서는 이렇게 못씀
             joinColumns = @JoinColumn(name = "category_id"),
@@ -31,11 +39,62 @@ public class Category {
     @JoinColumn(name = "parent_id")
     private Category parent;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
+    // 클로저 테이블에서 이 카테고리가 자손인 행들 (= 모든 조상)
+    @OneToMany(mappedBy = "descendant", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<CategoryClosure> ancestorLinks = new ArrayList<>();
+
+    //==연관관계 메서드==//
+    /**
+     * 자식 카테고리 연결 + 클로저 테이블 유지
+     * 이미 다른 부모 밑에 있던 서브트리를 옮기면 예전 조상과의 행은 지우고 (이 카테고리 + 조상들) x (child 서브트리) 행을 새로 만듦
+     */
     public void addChildCategory(Category child) {
+        if (same(child, this) || isDescendantOf(child)) {
+            throw new IllegalArgumentException("자기 자신이나 하위 카테고리 밑으로는 옮길 수 없습니다.");
+        }
+        Map<Category, Integer> subtree = new LinkedHashMap<>(); // child 서브트리 -> child로부터의 깊이
+        child.collectSubtree(subtree, 0);
+
+        if (child.getParent() != null) {
+            child.getParent().getChild().remove(child);
+            for (Category descendant : subtree.keySet()) { // 서브트리 밖의 조상(예전 부모 쪽)과의 행만 지움
+                descendant.getAncestorLinks().removeIf(link -> !contains(subtree.keySet(), link.getAncestor()));
+            }
+        }
+
         this.child.add(child);
         child.setParent(this);
+
+        List<CategoryClosure> uppers = new ArrayList<>(this.ancestorLinks);
+        subtree.forEach((descendant, depth) -> {
+            descendant.getAncestorLinks().add(new CategoryClosure(this, descendant, depth + 1));
+            for (CategoryClosure upper : uppers) {
+                descendant.getAncestorLinks().add(new CategoryClosure(upper.getAncestor(), descendant, upper.getDepth() + depth + 1));
+            }
+        });
+    }
+
+    private boolean isDescendantOf(Category category) {
+        return contains(ancestorLinks.stream().map(CategoryClosure::getAncestor).toList(), category);
+    }
+
+    private void collectSubtree(Map<Category, Integer> subtree, int depth) {
+        subtree.put(this, depth);
+        for (Category c : child) {
+            c.collectSubtree(subtree, depth + 1);
+        }
+    }
+
+    // 지연 로딩 프록시와 실제 엔티티가 섞여 있을 수 있어서 id로도 비교
+    private static boolean contains(Collection<Category> categories, Category category) {
+        return categories.stream().anyMatch(c -> same(c, category));
+    }
+
+    private static boolean same(Category a, Category b) {
+        return a == b || (a.getId() != null && a.getId().equals(b.getId()));
     }
 }
@@ -0,0 +1,41 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import static jakarta.persistence.FetchType.LAZY;
+
+/**
+ * 카테고리 클로저 테이블 - 조상/자손 쌍마다 한 행 (depth = 몇 단계 아래인지, 자기 자신 행은 안 둠)
+ * 서브트리 전체를 재귀 없이 ancestor_id 조건 한 번으로 찾을 수 있음
+ * Category.addChildCategory에서만 만들고 지움
+ */
+@Entity
+@Table(name = "category_closure",
+        uniqueConstraints = @UniqueConstraint(name = "uk_category_closure", columnNames = {"ancestor_id", "descendant_id"}),
+        indexes = @Index(name = "idx_category_closure_ancestor", columnList = "ancestor_id, depth"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CategoryClosure {
+    @Id @GeneratedValue
+    @Column(name = "category_closure_id")
+    private Long id;
+
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "ancestor_id")
+    private Category ancestor;
+
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "descendant_id")
+    private Category descendant;
+
+    private int depth;
+
+    CategoryClosure(Category ancestor, Category descendant, int depth) {
+        this.ancestor = ancestor;
+        this.descendant = descendant;
+        this.depth = depth;
+    }
+}
@@ -5,11 +5,16 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name")) // 동시에 같은 이름으로 가입해도 하나만 들어감
+@Cacheable // 2차 캐시
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 public class Member {
     @Id @GeneratedValue // Primary key 지정
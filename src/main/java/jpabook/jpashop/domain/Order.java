@@ -14,7 +14,11 @@ import java.util.List;
 import static jakarta.persistence.FetchType.LAZY;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date", columnList = "order_date, order_id"), // keyset 페이징 (V3.2)
+        @Index(name = "idx_orders_member_order_date", columnList = "member_id, order_date, order_id"), // 회원별 주문 내역
+        @Index(name = "idx_orders_total_price", columnList = "total_price, order_id") // 총액 정렬 검색
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // 누군가 생성자를 생성하더라도 하면 안되는걸 알아챌듯
 public class Order {
@@ -39,6 +43,13 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status; // 주문 상태 [ORDER, CANCEL]
 
+    // 주문 상품에서 계산되는 값을 저장해둠 (역정규화) ➡️ 총액을 보여주거나 SQL로 검색/정렬할 때 order_item을 안 읽어도 됨
+    // addOrderItem에서만 바뀌고, 취소해도 주문 당시 금액은 그대로 둠 (취소 여부는 status로)
+    @Setter(AccessLevel.NONE)
+    private int totalPrice; // 전체 주문 가격
+    @Setter(AccessLevel.NONE)
+    private int itemCount;  // 주문 수량 합
+
     //==연관관계 메소드==//핵심적으로 컨트롤하는 쪽이 갖고있는게 좋음!
     public void setMember(Member member) {
         this.member = member;
@@ -55,6 +66,8 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        this.totalPrice += orderItem.getTotalPrice();
+        this.itemCount += orderItem.getCount();
     }
 
     public void setDelivery(Delivery delivery) {
@@ -78,21 +91,21 @@ public class Order {
     //==비즈니스 로직==//
     /** 주문 취소 */
     public void cancel() {
-        if(delivery.getStatus() == DeliveryStatus.COMP) {
-            throw new IllegalStateException("이미 배송 완료된 상품은 취소가 불가능합니다.");
-        }
-
-        this.setStatus(OrderStatus.CANCEL);
+        cancelWithoutRestock();
         for(OrderItem orderItem : orderItems) { // 루프를 돌면서 재고를 원상복귀
              orderItem.cancel();
         }
     }
 
-    //==조회 로직==//
-    /** 전체 주문 가격 조회 */
-    public int getTotalPrice() {
-        return orderItems.stream()
-                .mapToInt(OrderItem::getTotalPrice)
-                .sum();
+    /** 주문 취소 - 재고 복구는 호출하는 쪽(재고 원장 등)이 책임짐 */
+    public void cancelWithoutRestock() {
+        if(status == OrderStatus.CANCEL) { // 두 번 취소되면 재고 복구, 매출 차감이 두 번 일어남
+            throw new IllegalStateException("이미 취소된 주문입니다.");
+        }
+        if(delivery.getStatus() == DeliveryStatus.COMP) {
+            throw new IllegalStateException("이미 배송 완료된 상품은 취소가 불가능합니다.");
+        }
+
+        this.setStatus(OrderStatus.CANCEL);
     }
 }
@@ -31,12 +31,18 @@ public class OrderItem {
 
     //==생성 메소드==//
     public static OrderItem createOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = createReservedOrderItem(item, orderPrice, count);
+
+        item.removeStock(count);
+        return orderItem;
+    }
+
+    /** 재고는 이미 다른 곳(재고 원장 등)에서 차감된 주문 상품 생성 */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
         OrderItem orderItem = new OrderItem();
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
-
-        item.removeStock(count);
         return orderItem;
     }
 
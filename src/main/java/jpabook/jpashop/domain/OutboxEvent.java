@@ -0,0 +1,44 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문/취소/재고 변경 기록 (transactional outbox) - 주문과 같은 트랜잭션에서 저장되고 OutboxDispatcher가 id 순서로 읽어감
+ * id는 저장할 때 받지만 커밋 순서와는 다름 (앞 번호 트랜잭션이 더 늦게 커밋되거나 롤백될 수 있음)
+ * ➡️ 빠진 번호는 OutboxDispatcher가 기억해뒀다가 다시 읽음
+ * 🚫 시퀀스를 블록(allocationSize > 1)으로 받으면 안됨 - 한가한 서버가 미리 받아둔 앞 번호를 한참 뒤에 커밋하면
+ *    gap-timeout이 지나 포기한 번호라 구독자에게 영영 전달되지 않음 ➡️ 저장할 때마다 DB 시퀀스에서 하나씩
+ */
+@Entity
+@Table(name = "outbox_event")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 1)
+    @Column(name = "outbox_event_id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private OutboxEventType type;
+
+    private Long aggregateId;
+
+    @Lob
+    private String payload; // 이벤트 JSON
+
+    private LocalDateTime createdAt;
+
+    public OutboxEvent(OutboxEventType type, Long aggregateId, String payload) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+}
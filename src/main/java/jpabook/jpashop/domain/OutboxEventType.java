@@ -0,0 +1,6 @@
+package jpabook.jpashop.domain;
+
+/** outbox 이벤트 종류 - aggregateId는 주문 이벤트면 주문 id, 재고 이벤트면 상품 id */
+public enum OutboxEventType {
+    ORDER_PLACED, ORDER_CANCELED, STOCK_CHANGED
+}
@@ -0,0 +1,34 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/** outbox 구독자가 처리한 마지막 이벤트 id (재시작해도 이어서 받음) */
+@Entity
+@Table(name = "outbox_offset")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxOffset {
+    @Id
+    private String subscriber;
+
+    private long lastEventId;
+
+    private LocalDateTime updatedAt;
+
+    public OutboxOffset(String subscriber, long lastEventId) {
+        this.subscriber = subscriber;
+        advance(lastEventId);
+    }
+
+    public void advance(long lastEventId) {
+        this.lastEventId = lastEventId;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
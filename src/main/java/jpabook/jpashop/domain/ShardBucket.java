@@ -0,0 +1,29 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/** 회원 bucket(member_id % buckets) -> 주문 샤드, 기본 배치(bucket % 샤드 수)에서 옮긴 bucket만 저장 (global DB) */
+@Entity
+@Table(name = "shard_bucket")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ShardBucket {
+    @Id
+    private Integer bucket;
+
+    private int shard;
+
+    public ShardBucket(Integer bucket, int shard) {
+        this.bucket = bucket;
+        this.shard = shard;
+    }
+
+    public void moveTo(int shard) {
+        this.shard = shard;
+    }
+}
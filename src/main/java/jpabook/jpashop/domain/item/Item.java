@@ -6,12 +6,16 @@ import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @BatchSize(size = 100) // // V3.1 컬렉션이 아닐 경우 적용할 때
 @Entity
+@Cacheable // 2차 캐시 - 주문할 때마다 같은 상품을 다시 읽지 않게 (SINGLE_TABLE이라 하위 타입도 같은 region)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE) // joined는 가장 정교화된 스타일, singleTable은 한 테이블에 다 넣는것
 @DiscriminatorColumn(name = "dtype")
 @Getter @Setter
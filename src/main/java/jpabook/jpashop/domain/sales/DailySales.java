@@ -0,0 +1,41 @@
+package jpabook.jpashop.domain.sales;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 주문일별 매출 - 취소는 취소한 날이 아니라 원래 주문일에서 빠짐
+ * orderCount는 그날 들어온 전체 주문 수, cancelCount는 그중 취소된 수
+ */
+@Entity
+@Table(name = "daily_sales")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DailySales {
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    private long orderCount;
+    private long cancelCount;
+    private long unitsSold;
+    private long revenue;
+
+    public DailySales(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public void add(long orders, long cancels, long units, long revenue) {
+        this.orderCount += orders;
+        this.cancelCount += cancels;
+        this.unitsSold += units;
+        this.revenue += revenue;
+    }
+}
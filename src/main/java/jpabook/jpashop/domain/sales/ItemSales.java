@@ -0,0 +1,32 @@
+package jpabook.jpashop.domain.sales;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/** 상품별 누적 판매 (취소된 주문은 빠짐) */
+@Entity
+@Table(name = "item_sales")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ItemSales {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private long unitsSold;
+    private long revenue;
+
+    public ItemSales(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public void add(long units, long revenue) {
+        this.unitsSold += units;
+        this.revenue += revenue;
+    }
+}
@@ -0,0 +1,28 @@
+package jpabook.jpashop.domain.sales;
+
+import jakarta.persistence.*;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/** 주문 상태별 주문 수 (ORDER, CANCEL) */
+@Entity
+@Table(name = "order_status_count")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderStatusCount {
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private long orderCount;
+
+    public OrderStatusCount(OrderStatus status) {
+        this.status = status;
+    }
+
+    public void add(long count) {
+        this.orderCount += count;
+    }
+}
@@ -0,0 +1,11 @@
+package jpabook.jpashop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** 카테고리 추가/이동 (CategoryService) */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+    private Long categoryId;
+}
@@ -0,0 +1,11 @@
+package jpabook.jpashop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** 상품 등록/수정 (ItemService) */
+@Getter
+@AllArgsConstructor
+public class ItemChangedEvent {
+    private Long itemId;
+}
@@ -0,0 +1,22 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.domain.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** 주문 취소 (OrderService.cancelOrder) - orderDate는 취소 시각이 아니라 원래 주문 일시 */
+@Getter
+@AllArgsConstructor
+public class OrderCanceledEvent {
+    private Long orderId;
+    private Long memberId;
+    private LocalDateTime orderDate;
+    private List<OrderLineAmount> lines;
+
+    public static OrderCanceledEvent of(Order order) {
+        return new OrderCanceledEvent(order.getId(), order.getMember().getId(), order.getOrderDate(), OrderEvents.linesOf(order));
+    }
+}
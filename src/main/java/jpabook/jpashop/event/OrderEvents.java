@@ -0,0 +1,16 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.domain.Order;
+
+import java.util.List;
+
+final class OrderEvents {
+    private OrderEvents() {
+    }
+
+    static List<OrderLineAmount> linesOf(Order order) { // item은 프록시여도 getId는 초기화 안함
+        return order.getOrderItems().stream()
+                .map(oi -> new OrderLineAmount(oi.getItem().getId(), oi.getCount(), (long) oi.getOrderPrice() * oi.getCount()))
+                .toList();
+    }
+}
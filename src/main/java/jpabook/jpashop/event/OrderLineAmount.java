@@ -0,0 +1,13 @@
+package jpabook.jpashop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** 주문 이벤트에 들어가는 상품별 수량/금액 */
+@Getter
+@AllArgsConstructor
+public class OrderLineAmount {
+    private Long itemId;
+    private int count;
+    private long amount; // 주문 가격 * 수량
+}
@@ -0,0 +1,22 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.domain.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** 주문 저장 (OrderPlacer, OrderImportService) */
+@Getter
+@AllArgsConstructor
+public class OrderPlacedEvent {
+    private Long orderId;
+    private Long memberId;
+    private LocalDateTime orderDate;
+    private List<OrderLineAmount> lines;
+
+    public static OrderPlacedEvent of(Order order) {
+        return new OrderPlacedEvent(order.getId(), order.getMember().getId(), order.getOrderDate(), OrderEvents.linesOf(order));
+    }
+}
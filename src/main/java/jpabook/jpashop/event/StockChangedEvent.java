@@ -0,0 +1,12 @@
+package jpabook.jpashop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** 주문/취소로 재고가 바뀜 (StockService) - delta는 주문이면 음수, 취소면 양수 */
+@Getter
+@AllArgsConstructor
+public class StockChangedEvent {
+    private Long itemId;
+    private int delta;
+}
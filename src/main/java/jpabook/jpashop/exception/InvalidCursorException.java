@@ -0,0 +1,13 @@
+package jpabook.jpashop.exception;
+
+/** 클라이언트가 보낸 페이징 커서를 해석할 수 없을 때 (API는 400으로 응답) */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,206 @@
+package jpabook.jpashop.outbox;
+
+import jakarta.annotation.PostConstruct;
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * outbox 이벤트를 구독자(OutboxSubscriber 빈)에게 전달
+ * - 가장 뒤처진 구독자 위치부터 batch-size개씩 id 순서로 한 번 읽어서 모든 구독자에게 나눠줌
+ * - id는 커밋 순서가 아니라서 (앞 번호 트랜잭션이 늦게 커밋, 롤백) 읽은 id 사이에 빠진 번호는 빈 번호로 기억해두고
+ *   다음 주기마다 다시 읽어서 그 사이 커밋됐으면 전달, gap-timeout 이 지나도 안 생기면 롤백된 번호로 보고 포기
+ * - 구독자마다 저장하는 위치(outbox_offset)는 빈 번호가 없는 곳까지만 ➡️ 재시작하면 그 뒤부터 다시 받음 (중복은 at-least-once)
+ * - 한 구독자가 실패해도 나머지는 계속 진행
+ * - 모든 구독자가 받았고 retention 이 지난 이벤트는 prune 에서 삭제
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxDispatcher {
+    private static final int MAX_GAP = 10_000; // 한 번에 이만큼 넘게 건너뛴 번호는 빈 번호로 기억하지 않음 (시퀀스를 다시 만든 경우 등)
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectProvider<OutboxSubscriber> subscriberProvider;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${jpashop.outbox.enabled:false}")
+    private boolean enabled;
+    @Value("${jpashop.outbox.batch-size:500}")
+    private int batchSize;
+    @Value("${jpashop.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+    @Value("${jpashop.outbox.gap-timeout:1m}")
+    private Duration gapTimeout;
+    @Value("${jpashop.outbox.retention:1h}")
+    private Duration retention;
+
+    private final Map<String, Long> offsets = new ConcurrentHashMap<>(); // 구독자 -> 저장된 위치 (이 id까지는 다 받았거나 포기한 빈 번호)
+    private final Map<String, Cursor> cursors = new HashMap<>();          // 구독자 -> 읽은 위치 + 빈 번호 (dispatch 안에서만 씀)
+
+    @PostConstruct
+    public void loadOffsets() {
+        offsets.putAll(transactionTemplate.execute(status -> outboxRepository.findOffsets()));
+    }
+
+    /** 한 번 돌 때 최대 max-batches-per-run 번까지 읽어서 전달, 전달한 이벤트 수 */
+    @Scheduled(fixedDelayString = "${jpashop.outbox.dispatch-interval:200}")
+    public synchronized int dispatch() {
+        List<OutboxSubscriber> subscribers = subscriberProvider.orderedStream().toList();
+        if (!enabled || subscribers.isEmpty()) {
+            return 0;
+        }
+        int delivered = 0;
+        Set<String> failed = new HashSet<>(); // 이번에 실패한 구독자는 다음 주기에 다시
+        for (int round = 0; round < maxBatchesPerRun; round++) {
+            List<OutboxSubscriber> active = subscribers.stream()
+                    .filter(s -> !failed.contains(s.name()))
+                    .toList();
+            if (active.isEmpty()) {
+                break;
+            }
+            long from = active.stream().mapToLong(s -> cursorOf(s).read).min().getAsLong();
+            Set<Long> gaps = round > 0 ? Set.of() : active.stream() // 빈 번호는 주기마다 한 번만 다시 읽음
+                    .flatMap(s -> cursorOf(s).gaps.keySet().stream())
+                    .collect(Collectors.toCollection(TreeSet::new));
+            List<OutboxEvent> events = transactionTemplate.execute(status -> outboxRepository.findAfter(from, batchSize));
+            List<OutboxEvent> filled = gaps.isEmpty() ? List.of()
+                    : transactionTemplate.execute(status -> outboxRepository.findByIds(gaps));
+
+            LocalDateTime now = LocalDateTime.now();
+            for (OutboxSubscriber subscriber : active) {
+                Cursor cursor = cursorOf(subscriber);
+                List<OutboxEvent> received = new ArrayList<>();
+                filled.stream().filter(e -> cursor.gaps.containsKey(e.getId())).forEach(received::add);
+                events.stream().filter(e -> e.getId() > cursor.read).forEach(received::add);
+                List<OutboxEvent> pending = received.stream()
+                        .filter(e -> subscriber.accepts(e.getType()))
+                        .sorted(Comparator.comparing(OutboxEvent::getId))
+                        .collect(Collectors.toList());
+                try {
+                    if (!pending.isEmpty()) {
+                        subscriber.handle(pending);
+                        delivered += pending.size();
+                    }
+                    cursor.advance(received, now); // 관심 없는 이벤트만 있었어도 위치는 넘김
+                } catch (RuntimeException e) {
+                    log.warn("outbox subscriber {} failed after event {}, retry next run", subscriber.name(), cursor.read, e);
+                    failed.add(subscriber.name());
+                }
+            }
+            saveOffsets(active, failed, now.minus(gapTimeout));
+            if (events.size() < batchSize) {
+                break;
+            }
+        }
+        return delivered;
+    }
+
+    /** 오래된 빈 번호는 포기하고, 빈 번호가 없는 곳까지 위치를 저장 */
+    private void saveOffsets(List<OutboxSubscriber> active, Set<String> failed, LocalDateTime gapExpiredBefore) {
+        Map<String, Long> advanced = new LinkedHashMap<>();
+        for (OutboxSubscriber subscriber : active) {
+            if (failed.contains(subscriber.name())) {
+                continue;
+            }
+            Cursor cursor = cursorOf(subscriber);
+            int expired = cursor.expireGaps(gapExpiredBefore);
+            if (expired > 0) {
+                log.info("outbox subscriber {} gave up {} missing event ids (rolled back or never committed)", subscriber.name(), expired);
+            }
+            long committed = cursor.committed();
+            if (committed != offsetOf(subscriber)) {
+                advanced.put(subscriber.name(), committed);
+            }
+        }
+        if (!advanced.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> advanced.forEach(outboxRepository::saveOffset));
+            offsets.putAll(advanced);
+        }
+    }
+
+    /** 모든 구독자가 받았고 보관 기간이 지난 이벤트 삭제, 지운 건수 */
+    @Scheduled(fixedDelayString = "${jpashop.outbox.prune-interval:60000}")
+    public synchronized int prune() {
+        if (!enabled) {
+            return 0;
+        }
+        List<OutboxSubscriber> subscribers = subscriberProvider.orderedStream().toList();
+        long processed = subscribers.isEmpty() ? Long.MAX_VALUE
+                : subscribers.stream().mapToLong(this::offsetOf).min().getAsLong();
+        LocalDateTime createdBefore = LocalDateTime.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status -> outboxRepository.deleteProcessed(processed, createdBefore));
+        if (deleted > 0) {
+            log.info("outbox pruned {} events (processed <= {})", deleted, processed);
+        }
+        return deleted;
+    }
+
+    public OutboxStatus getStatus() {
+        long lastId = transactionTemplate.execute(status -> outboxRepository.findLastId());
+        List<OutboxStatus.SubscriberOffset> subscribers = subscriberProvider.orderedStream()
+                .map(s -> new OutboxStatus.SubscriberOffset(s.name(), offsetOf(s), Math.max(0, lastId - offsetOf(s))))
+                .collect(Collectors.toList());
+        return new OutboxStatus(lastId, subscribers);
+    }
+
+    private long offsetOf(OutboxSubscriber subscriber) {
+        return offsets.getOrDefault(subscriber.name(), 0L); // 처음 보는 구독자는 남아있는 이벤트 처음부터
+    }
+
+    private Cursor cursorOf(OutboxSubscriber subscriber) {
+        return cursors.computeIfAbsent(subscriber.name(), name -> new Cursor(offsets.get(name)));
+    }
+
+    /** 구독자 하나의 읽은 위치와 그 아래 빈 번호 (id -> 처음 빈 걸 본 시각) */
+    private static final class Cursor {
+        private long read;
+        private boolean started; // 처음 보는 구독자는 첫 이벤트 아래 번호(이미 지워진 이벤트)를 빈 번호로 보지 않음
+        private final NavigableMap<Long, LocalDateTime> gaps = new TreeMap<>();
+
+        Cursor(Long offset) {
+            this.read = offset != null ? offset : 0;
+            this.started = offset != null;
+        }
+
+        /** 받은 이벤트 반영 - 빈 번호였으면 지우고, 읽은 위치를 넘어가면 그 사이 안 보인 번호를 빈 번호로 */
+        void advance(List<OutboxEvent> received, LocalDateTime now) {
+            long[] ids = received.stream().mapToLong(OutboxEvent::getId).sorted().toArray();
+            for (long id : ids) {
+                if (gaps.remove(id) != null || id <= read) {
+                    continue;
+                }
+                if (started && id - read - 1 <= MAX_GAP) {
+                    for (long missing = read + 1; missing < id; missing++) {
+                        gaps.put(missing, now);
+                    }
+                }
+                read = id;
+                started = true;
+            }
+        }
+
+        int expireGaps(LocalDateTime before) {
+            int size = gaps.size();
+            gaps.values().removeIf(seenAt -> seenAt.isBefore(before));
+            return size - gaps.size();
+        }
+
+        /** 여기까지는 빈 번호 없이 다 받음 */
+        long committed() {
+            return gaps.isEmpty() ? read : gaps.firstKey() - 1;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package jpabook.jpashop.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/** outbox 마지막 이벤트 id와 구독자별 처리 위치 */
+@Getter
+@AllArgsConstructor
+public class OutboxStatus {
+    private long lastEventId;
+    private List<SubscriberOffset> subscribers;
+
+    @Getter
+    @AllArgsConstructor
+    public static class SubscriberOffset {
+        private String name;
+        private long offset;
+        private long lag; // 아직 안 받은 이벤트 id 범위
+    }
+}
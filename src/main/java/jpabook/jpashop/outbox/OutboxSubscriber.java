@@ -0,0 +1,23 @@
+package jpabook.jpashop.outbox;
+
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.OutboxEventType;
+
+import java.util.List;
+
+/**
+ * outbox 구독자 (스프링 빈으로 등록하면 OutboxDispatcher가 찾아서 넘겨줌)
+ * - 이벤트는 id 순서로 batch 단위로 옴
+ * - handle이 예외를 던지면 그 batch는 다음 주기에 다시 옴 (at-least-once) ➡️ 같은 이벤트를 두 번 받아도 괜찮게 만들어야 함
+ */
+public interface OutboxSubscriber {
+
+    /** offset을 저장하는 키 - 바꾸면 처음(남아있는 이벤트)부터 다시 받음 */
+    String name();
+
+    default boolean accepts(OutboxEventType type) {
+        return true;
+    }
+
+    void handle(List<OutboxEvent> events);
+}
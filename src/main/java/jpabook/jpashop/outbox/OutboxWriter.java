@@ -0,0 +1,59 @@
+package jpabook.jpashop.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.OutboxEventType;
+import jpabook.jpashop.event.OrderCanceledEvent;
+import jpabook.jpashop.event.OrderPlacedEvent;
+import jpabook.jpashop.event.StockChangedEvent;
+import jpabook.jpashop.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 주문/취소/재고 이벤트를 outbox 테이블에 저장
+ * @TransactionalEventListener(커밋 후)가 아니라 @EventListener라서 이벤트를 발행한 트랜잭션 안에서 저장됨
+ * ➡️ 주문이 롤백되면 outbox 기록도 같이 롤백되고, 커밋됐으면 반드시 남아있음
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${jpashop.outbox.enabled:false}")
+    private boolean enabled;
+
+    @EventListener
+    @Transactional // 발행한 쪽 트랜잭션에 참여 (트랜잭션 밖에서 발행되면 따로 하나 걸림)
+    public void orderPlaced(OrderPlacedEvent event) {
+        write(OutboxEventType.ORDER_PLACED, event.getOrderId(), event);
+    }
+
+    @EventListener
+    @Transactional
+    public void orderCanceled(OrderCanceledEvent event) {
+        write(OutboxEventType.ORDER_CANCELED, event.getOrderId(), event);
+    }
+
+    @EventListener
+    @Transactional
+    public void stockChanged(StockChangedEvent event) {
+        write(OutboxEventType.STOCK_CHANGED, event.getItemId(), event);
+    }
+
+    private void write(OutboxEventType type, Long aggregateId, Object event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            outboxRepository.save(new OutboxEvent(type, aggregateId, objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("outbox 이벤트를 JSON으로 바꿀 수 없습니다. type=" + type, e);
+        }
+    }
+}
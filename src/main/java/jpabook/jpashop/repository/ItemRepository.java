@@ -1,15 +1,24 @@
 package jpabook.jpashop.repository;
 
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
+    private static final String STOCK_QUERY_SPACE = "item_stock"; // 재고 UPDATE 전용 query space (엔티티 테이블 이름과 겹치지 않게)
+
     private final EntityManager em;
 
     public void save(Item item) { // alt+shift+enter 는 import
@@ -22,8 +31,101 @@ public class ItemRepository {
     public Item findOne(Long id) {
         return em.find(Item.class, id);
     }
+
+    /** 엔티티를 조회하지 않고 프록시만 가져옴 (FK 세팅용) */
+    public Item getReference(Long id) {
+        return em.getReference(Item.class, id);
+    }
+
+    /** 가격만 조회 (엔티티 로딩 X), 상품이 없으면 null */
+    public Integer findPrice(Long itemId) {
+        return em.createQuery("select i.price from Item i where i.id = :id", Integer.class)
+                .setParameter("id", itemId)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+    /** 가격, 재고만 조회 [price, stockQuantity] (엔티티 로딩 X), 상품이 없으면 null */
+    public int[] findPriceAndStock(Long itemId) {
+        return em.createQuery("select i.price, i.stockQuantity from Item i where i.id = :id", Object[].class)
+                .setParameter("id", itemId)
+                .getResultStream()
+                .findFirst()
+                .map(row -> new int[]{(Integer) row[0], (Integer) row[1]})
+                .orElse(null);
+    }
+
+    /** in 쿼리 한 번으로 여러 상품 조회 (item id 순서) */
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /** in 쿼리 한 번으로 여러 상품의 가격만 조회 (item id -> price) */
+    public Map<Long, Integer> findPrices(Collection<Long> ids) {
+        return em.createQuery("select i.id, i.price from Item i where i.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Integer) row[1]));
+    }
+
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
     }
+
+    /** item id 커서로 한 페이지씩 (전체 상품을 나눠서 읽을 때) */
+    public List<Item> findPage(Long cursor, int limit) {
+        return em.createQuery("select i from Item i where i.id > :cursor order by i.id", Item.class)
+                .setParameter("cursor", cursor == null ? 0L : cursor)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /** 재고 변화량을 UPDATE 한 번으로 반영 (엔티티를 조회하지 않음) */
+    public int addStock(Long itemId, int quantity) {
+        em.flush(); // 같은 트랜잭션에서 아직 insert 안 된 상품도 UPDATE 대상이 되게
+        int updated = em.createNativeQuery("update item set stock_quantity = stock_quantity + :quantity where item_id = :id")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(STOCK_QUERY_SPACE)
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId)
+                .executeUpdate();
+        evictItem(itemId);
+        return updated;
+    }
+
+    /** 조건부 재고 차감 - 재고가 충분할 때만 UPDATE 되고(stock_quantity >= :quantity), 성공 여부를 돌려줌 */
+    public boolean removeStock(Long itemId, int quantity) {
+        em.flush();
+        int updated = em.createNativeQuery("update item set stock_quantity = stock_quantity - :quantity" +
+                        " where item_id = :id and stock_quantity >= :quantity")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(STOCK_QUERY_SPACE)
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId)
+                .executeUpdate();
+        evictItem(itemId);
+        return updated == 1;
+    }
+
+    /**
+     * JPQL 벌크 UPDATE나 Item으로 동기화한 네이티브 UPDATE는 Item 2차 캐시 region을 통째로 비움
+     * (주문 한 건마다 다른 상품 캐시까지 다 날아가서 ATOMIC/LEDGER 모드에서는 캐시가 거의 안 맞음)
+     * ➡️ 어떤 엔티티 테이블과도 겹치지 않는 query space로 region 정리를 막고, 바뀐 상품 하나만 직접 비움
+     *    커밋 전에 다른 트랜잭션이 옛 재고를 다시 캐시에 넣을 수 있어서 트랜잭션이 끝난 뒤에도 한 번 더 비움
+     */
+    private void evictItem(Long itemId) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Item.class, itemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Item.class, itemId);
+                }
+            });
+        }
+    }
 }
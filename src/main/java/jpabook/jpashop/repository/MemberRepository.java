@@ -4,9 +4,12 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jpabook.jpashop.domain.Member;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository // Component 스캔의 대상이 되어서 스프링 빈이 등록해줌
 @RequiredArgsConstructor
@@ -22,6 +25,15 @@ public class MemberRepository {
         em.persist(member);
     }
 
+    public void saveAndFlush(Member member) { // insert를 바로 날려서 이름 unique 제약조건 위반을 그 자리에서 확인
+        em.persist(member);
+        em.flush();
+    }
+
+    public void flush() { // 변경 감지로 바뀐 내용을 바로 DB에 반영 (제약조건 위반을 그 자리에서 확인)
+        em.flush();
+    }
+
     public Member findOne(Long id)  {
         return em.find(Member.class, id);
     }
@@ -32,6 +44,28 @@ public class MemberRepository {
                 .getResultList();
     }
 
+    public List<Member> findAllByIds(Collection<Long> ids) { // in 쿼리 한 번으로 여러 회원 조회
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /** 이름 중복 확인 - 엔티티를 만들지 않고 unique 인덱스에서 한 건만 찾아봄 */
+    public boolean existsByName(String name) {
+        return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /** 전체 회원 이름 (이름 필터 재구성용) - 다 쓰고 나면 close 해야함 */
+    public Stream<String> streamAllNames(int fetchSize) {
+        return em.createQuery("select m.name from Member m", String.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
     public List<Member> findByName(String name) { // jpqlString 대상이 테이블이 아닌 Member 엔티티
         return em.createQuery("select m from Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
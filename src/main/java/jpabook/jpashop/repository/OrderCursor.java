@@ -0,0 +1,58 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.exception.InvalidCursorException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 주문 keyset(seek) 페이징 커서 - (order_date, order_id) 기준, 총액 정렬일 때는 (total_price, order_id)
+ * offset 페이징은 앞 페이지를 다 읽고 버리기 때문에 뒤로 갈수록 느려지지만,
+ * 커서는 인덱스에서 바로 위치를 찾아가서 몇 번째 페이지든 속도가 같음
+ */
+@Getter
+public class OrderCursor {
+    private final LocalDateTime orderDate;
+    private final Long orderId;
+    private final Integer totalPrice; // 총액 정렬 검색에서만 씀
+
+    public OrderCursor(LocalDateTime orderDate, Long orderId) {
+        this(orderDate, orderId, null);
+    }
+
+    public OrderCursor(LocalDateTime orderDate, Long orderId, Integer totalPrice) {
+        this.orderDate = orderDate;
+        this.orderId = orderId;
+        this.totalPrice = totalPrice;
+    }
+
+    public static OrderCursor of(Order order) {
+        return new OrderCursor(order.getOrderDate(), order.getId());
+    }
+
+    /** 클라이언트에게는 내용을 알 수 없는 토큰으로 내려줌 */
+    public String encode() {
+        String raw = orderDate + "|" + orderId + (totalPrice == null ? "" : "|" + totalPrice);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** 토큰이 없으면 null (첫 페이지), 해석할 수 없는 토큰이면 InvalidCursorException */
+    public static OrderCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2 && parts.length != 3) {
+                throw new IllegalArgumentException("cursor parts=" + parts.length);
+            }
+            Integer totalPrice = parts.length == 3 ? Integer.valueOf(parts[2]) : null;
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]), totalPrice);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("잘못된 커서입니다. cursor=" + token, e);
+        }
+    }
+}
@@ -3,7 +3,10 @@ package jpabook.jpashop.repository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import jpabook.jpashop.coalesce.Coalesce;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.shard.ShardDirectory;
+import jpabook.jpashop.shard.ShardTemplate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
@@ -15,13 +18,76 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderRepository {
     private final EntityManager em;
+    private final ShardDirectory shardDirectory;
+    private final ShardTemplate shardTemplate;
 
+    /**
+     * 샤딩이 켜져 있으면 회원의 샤드에 바로 커밋 (주문, 주문상품, 배송)
+     * 재고 차감 같은 global 변경은 먼저 flush 해서 실패할 거면 샤드에 쓰기 전에 실패하게 함
+     */
     public void save(Order order) {
-        em.persist(order);
+        if (!shardDirectory.isEnabled()) {
+            em.persist(order);
+            return;
+        }
+        em.flush();
+        shardDirectory.write(order.getMember().getId(), shard -> shardTemplate.execute(shard, false, () -> {
+            em.persist(order);
+            return null;
+        }));
     }
 
+    /** 샤딩이 켜져 있으면 샤드에서 조회한 준영속 주문 (배송, 주문상품까지 로딩됨) */
     public Order findOne(Long id) {
-        return em.find(Order.class, id);
+        if (!shardDirectory.isEnabled()) {
+            return em.find(Order.class, id);
+        }
+        for (int shard : shardDirectory.searchOrderOf(id)) {
+            Order order = shardTemplate.execute(shard, true, () -> em.createQuery(
+                            "select distinct o from Order o" +
+                                    " join fetch o.delivery d" +
+                                    " left join fetch o.orderItems oi" +
+                                    " where o.id = :id", Order.class)
+                    .setParameter("id", id)
+                    .getResultStream()
+                    .findFirst()
+                    .orElse(null));
+            if (order != null) {
+                return order;
+            }
+        }
+        return null;
+    }
+
+    /** 샤드의 주문 상태만 취소로 변경 (재고 복구는 호출하는 쪽이 global 트랜잭션에서), 옮기는 중인 bucket이면 저장처럼 거절 */
+    public void cancel(Order order) {
+        order.cancelWithoutRestock(); // 배송 완료된 주문이면 샤드에 가기 전에 예외
+        em.flush();
+        shardDirectory.write(order.getMember().getId(), shard -> shardTemplate.execute(shard, false, () -> {
+            em.find(Order.class, order.getId()).cancelWithoutRestock();
+            return null;
+        }));
+    }
+
+    /** 주문 id 범위 [min, max], 주문이 없으면 null */
+    public Long[] findIdRange() {
+        Object[] row = em.createQuery("select min(o.id), max(o.id) from Order o", Object[].class)
+                .getSingleResult();
+        return row[0] == null ? null : new Long[]{(Long) row[0], (Long) row[1]};
+    }
+
+    /**
+     * 총액/수량 컬럼 채우기 (컬럼 추가 전에 만들어진 주문용) - id 범위 하나를 벌크 UPDATE 한 번으로
+     * 주문에는 항상 상품이 있어서 itemCount = 0 이면 아직 안 채운 행 ➡️ 여러 번 돌려도 안전함
+     */
+    public int backfillTotals(Long fromId, Long toId) {
+        return em.createQuery("update Order o set" +
+                        " o.totalPrice = coalesce((select sum(oi.orderPrice * oi.count) from OrderItem oi where oi.order.id = o.id), 0)," +
+                        " o.itemCount = coalesce((select sum(oi.count) from OrderItem oi where oi.order.id = o.id), 0)" +
+                        " where o.id >= :fromId and o.id < :toId and o.itemCount = 0")
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
     }
 
     public List<Order> findAllByString(OrderSearch orderSearch) {
@@ -99,6 +165,7 @@ public class OrderRepository {
     }
 
     // SimpleOrderQueryDto는 v4에서만 만들었음
+    @Coalesce(reuseMillis = 500)
     public List<OrderSimpleQueryDto> findOrderDtos() {
         return em.createQuery(
                 "select new jpabook.jpashop.repository.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address) " +
@@ -129,16 +196,27 @@ public class OrderRepository {
                 .setMaxResults(limit)
                 .getResultList();
     }
-}
-
-
-
-
-
-
-
-
-
-
 
+    /**
+     * keyset 페이징 - (order_date, order_id) 인덱스를 타고 커서 다음 위치부터 limit 만큼만 읽음
+     * toOne은 페치 조인, orderItems는 기존처럼 @BatchSize/default_batch_fetch_size로 in 쿼리 조회
+     */
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+        if (cursor != null) {
+            jpql += " where o.orderDate < :orderDate" +
+                    " or (o.orderDate = :orderDate and o.id < :orderId)";
+        }
+        jpql += " order by o.orderDate desc, o.id desc";
 
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("orderDate", cursor.getOrderDate())
+                    .setParameter("orderId", cursor.getOrderId());
+        }
+        return query.getResultList();
+    }
+}
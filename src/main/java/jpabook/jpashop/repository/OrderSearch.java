@@ -1,11 +1,25 @@
 package jpabook.jpashop.repository;
 
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Getter @Setter
 public class OrderSearch {
-    private String memberName;      // 회원 이름
+    private String memberName;      // 회원 이름 (OrderSearchRepository는 앞부분 일치 검색)
     private OrderStatus orderStatus;// 주문 상태[ORDER/CANCEL]
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom; // 주문일 시작 (포함)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo;   // 주문일 끝 (포함)
+    private Integer minPrice;        // 주문 총액 하한
+    private Integer maxPrice;        // 주문 총액 상한
+    private String itemName;         // 주문한 상품 이름 (앞부분 일치)
+    private DeliveryStatus deliveryStatus; // 배송 상태[READY/COMP]
+    private OrderSort sort;          // 정렬 (없으면 최근 주문 순)
 }
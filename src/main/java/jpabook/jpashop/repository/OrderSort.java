@@ -0,0 +1,9 @@
+package jpabook.jpashop.repository;
+
+/** 주문 검색 정렬 - 커서 페이징을 위해 항상 order_id를 두 번째 정렬 키로 씀 */
+public enum OrderSort {
+    ORDER_DATE_DESC, // 최근 주문 순 (기본)
+    ORDER_DATE_ASC,
+    TOTAL_PRICE_DESC, // 총액 높은 순 (orders.total_price)
+    TOTAL_PRICE_ASC
+}
@@ -0,0 +1,70 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.OutboxOffset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+    private final EntityManager em;
+
+    public void save(OutboxEvent event) {
+        em.persist(event);
+    }
+
+    /** afterId 다음부터 id 순서로 limit개 (커밋된 것만 보이고, 앞 번호가 나중에 커밋될 수 있음 - OutboxDispatcher 참고) */
+    public List<OutboxEvent> findAfter(long afterId, int limit) {
+        return em.createQuery("select e from OutboxEvent e" +
+                        " where e.id > :afterId" +
+                        " order by e.id", OutboxEvent.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /** 빈 번호로 남아있던 id 중 그 사이 커밋된 이벤트 */
+    public List<OutboxEvent> findByIds(Collection<Long> ids) {
+        return em.createQuery("select e from OutboxEvent e where e.id in :ids order by e.id", OutboxEvent.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /** 가장 최근 이벤트 id, 없으면 0 */
+    public long findLastId() {
+        Long id = em.createQuery("select max(e.id) from OutboxEvent e", Long.class).getSingleResult();
+        return id == null ? 0 : id;
+    }
+
+    /** 구독자 -> 마지막으로 처리한 이벤트 id */
+    public Map<String, Long> findOffsets() {
+        return em.createQuery("select o from OutboxOffset o", OutboxOffset.class)
+                .getResultStream()
+                .collect(Collectors.toMap(OutboxOffset::getSubscriber, OutboxOffset::getLastEventId));
+    }
+
+    public void saveOffset(String subscriber, long lastEventId) {
+        OutboxOffset offset = em.find(OutboxOffset.class, subscriber);
+        if (offset == null) {
+            em.persist(new OutboxOffset(subscriber, lastEventId));
+        } else {
+            offset.advance(lastEventId);
+        }
+    }
+
+    /** 모든 구독자가 처리했고(id <= maxId) 보관 기간이 지난 이벤트 삭제 */
+    public int deleteProcessed(long maxId, LocalDateTime createdBefore) {
+        return em.createQuery("delete from OutboxEvent e where e.id <= :maxId and e.createdAt < :createdBefore")
+                .setParameter("maxId", maxId)
+                .setParameter("createdBefore", createdBefore)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,139 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.sales.DailySales;
+import jpabook.jpashop.domain.sales.ItemSales;
+import jpabook.jpashop.domain.sales.OrderStatusCount;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/** 매출 집계 테이블 (item_sales, daily_sales, order_status_count) */
+@Repository
+@RequiredArgsConstructor
+public class SalesRepository {
+    private final EntityManager em;
+
+    //==변화량 반영==// 여러 서버가 같이 flush 해도 덮어쓰지 않게 상대값으로 더함
+    // update 후 0건이면 insert 하던 방식은 두 서버가 같이 0건을 보고 둘 다 insert 해서 PK 충돌이 났음
+    // ➡️ MERGE 한 문장으로 "있으면 더하고 없으면 넣기", 그래도 처음 넣는 순간이 겹쳐서 충돌하면
+    //    flush 트랜잭션이 통째로 롤백되고 변화량은 되돌려져서(SalesAggregator) 다음 주기에는 있는 행에 더해짐
+    public void addItemSales(Long itemId, long units, long revenue) {
+        em.createNativeQuery("merge into item_sales s" +
+                        " using (select cast(:itemId as bigint) as item_id) v on s.item_id = v.item_id" +
+                        " when matched then update set units_sold = s.units_sold + :units, revenue = s.revenue + :revenue" +
+                        " when not matched then insert (item_id, units_sold, revenue) values (v.item_id, :units, :revenue)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(ItemSales.class) // 다른 엔티티의 2차 캐시는 건드리지 않게
+                .setParameter("itemId", itemId)
+                .setParameter("units", units)
+                .setParameter("revenue", revenue)
+                .executeUpdate();
+    }
+
+    public void addDailySales(LocalDate salesDate, long orders, long cancels, long units, long revenue) {
+        em.createNativeQuery("merge into daily_sales s" +
+                        " using (select cast(:salesDate as date) as sales_date) v on s.sales_date = v.sales_date" +
+                        " when matched then update set order_count = s.order_count + :orders, cancel_count = s.cancel_count + :cancels," +
+                        " units_sold = s.units_sold + :units, revenue = s.revenue + :revenue" +
+                        " when not matched then insert (sales_date, order_count, cancel_count, units_sold, revenue)" +
+                        " values (v.sales_date, :orders, :cancels, :units, :revenue)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(DailySales.class)
+                .setParameter("salesDate", salesDate)
+                .setParameter("orders", orders)
+                .setParameter("cancels", cancels)
+                .setParameter("units", units)
+                .setParameter("revenue", revenue)
+                .executeUpdate();
+    }
+
+    public void addStatusCount(OrderStatus status, long count) {
+        em.createNativeQuery("merge into order_status_count s" +
+                        " using (select cast(:status as varchar(255)) as status) v on s.status = v.status" +
+                        " when matched then update set order_count = s.order_count + :count" +
+                        " when not matched then insert (status, order_count) values (v.status, :count)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(OrderStatusCount.class)
+                .setParameter("status", status.name()) // @Enumerated(STRING)
+                .setParameter("count", count)
+                .executeUpdate();
+    }
+
+    //==대시보드 조회==//
+    public List<ItemSales> findTopItems(int limit) {
+        return em.createQuery("select s from ItemSales s order by s.revenue desc, s.itemId", ItemSales.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<DailySales> findDaily(LocalDate from, LocalDate to) {
+        return em.createQuery("select s from DailySales s where s.salesDate between :from and :to order by s.salesDate", DailySales.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    public List<ItemSales> findAllItemSales() {
+        return em.createQuery("select s from ItemSales s", ItemSales.class).getResultList();
+    }
+
+    public List<DailySales> findAllDailySales() {
+        return em.createQuery("select s from DailySales s", DailySales.class).getResultList();
+    }
+
+    public List<OrderStatusCount> findStatusCounts() {
+        return em.createQuery("select s from OrderStatusCount s order by s.status", OrderStatusCount.class).getResultList();
+    }
+
+    //==처음부터 다시 계산 (원본 orders, order_item 전체 집계)==//
+    /** 상품별 [item id, 수량, 매출] - 취소된 주문 제외 */
+    public List<Object[]> aggregateItemSales() {
+        return em.createQuery("select oi.item.id, sum(oi.count), sum(oi.orderPrice * oi.count)" +
+                        " from OrderItem oi" +
+                        " where oi.order.status = :status" +
+                        " group by oi.item.id", Object[].class)
+                .setParameter("status", OrderStatus.ORDER)
+                .getResultList();
+    }
+
+    /** 주문일별 [주문일, 주문 수, 취소 수, 수량, 매출] - 수량/매출은 orders에 저장된 값(totalPrice, itemCount)으로 */
+    public List<Object[]> aggregateDailySales() {
+        return em.createQuery("select cast(o.orderDate as LocalDate), count(o)," +
+                        " sum(case when o.status = :cancel then 1 else 0 end)," +
+                        " sum(case when o.status = :cancel then 0 else o.itemCount end)," +
+                        " sum(case when o.status = :cancel then 0 else o.totalPrice end)" +
+                        " from Order o" +
+                        " group by cast(o.orderDate as LocalDate)", Object[].class)
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .getResultList();
+    }
+
+    /** 상태별 [상태, 주문 수] */
+    public List<Object[]> aggregateStatusCounts() {
+        return em.createQuery("select o.status, count(o) from Order o group by o.status", Object[].class)
+                .getResultList();
+    }
+
+    public void deleteAll() {
+        em.createQuery("delete from ItemSales").executeUpdate();
+        em.createQuery("delete from DailySales").executeUpdate();
+        em.createQuery("delete from OrderStatusCount").executeUpdate();
+    }
+
+    public void save(ItemSales itemSales) {
+        em.persist(itemSales);
+    }
+
+    public void save(DailySales dailySales) {
+        em.persist(dailySales);
+    }
+
+    public void save(OrderStatusCount statusCount) {
+        em.persist(statusCount);
+    }
+}
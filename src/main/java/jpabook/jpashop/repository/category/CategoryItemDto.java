@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository.category;
+
+import lombok.Data;
+
+/** 카테고리 서브트리에 속한 상품 */
+@Data
+public class CategoryItemDto {
+    private Long itemId;
+    private String name;
+    private int price;
+    private int stockQuantity;
+
+    public CategoryItemDto(Long itemId, String name, int price, int stockQuantity) {
+        this.itemId = itemId;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+    }
+}
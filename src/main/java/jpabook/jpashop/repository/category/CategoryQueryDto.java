@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository.category;
+
+import lombok.Data;
+
+/** 카테고리 한 건 - parentId가 null이면 최상위, depth는 기준 카테고리로부터 몇 단계 아래인지 */
+@Data
+public class CategoryQueryDto {
+    private Long categoryId;
+    private String name;
+    private Long parentId;
+    private int depth;
+
+    public CategoryQueryDto(Long categoryId, String name, Long parentId, int depth) {
+        this.categoryId = categoryId;
+        this.name = name;
+        this.parentId = parentId;
+        this.depth = depth;
+    }
+}
@@ -0,0 +1,66 @@
+package jpabook.jpashop.repository.category;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Category;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /** 전체 카테고리 (트리 스냅샷용) - depth는 의미 없어서 0 */
+    public List<CategoryQueryDto> findAllFlat() {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.category.CategoryQueryDto(c.id, c.name, p.id, 0)" +
+                                " from Category c" +
+                                " left join c.parent p" +
+                                " order by c.id", CategoryQueryDto.class)
+                .getResultList();
+    }
+
+    /** 모든 하위 카테고리 - 클로저 테이블 한 번 조회 (단계별 재귀 쿼리 없음), 가까운 단계부터 */
+    public List<CategoryQueryDto> findDescendants(Long categoryId, int offset, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.category.CategoryQueryDto(d.id, d.name, p.id, cc.depth)" +
+                                " from CategoryClosure cc" +
+                                " join cc.descendant d" +
+                                " left join d.parent p" +
+                                " where cc.ancestor.id = :categoryId" +
+                                " order by cc.depth, d.id", CategoryQueryDto.class)
+                .setParameter("categoryId", categoryId)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 서브트리(자기 자신 + 모든 하위 카테고리)에 속한 상품 - item id 커서 페이징
+     * 여러 카테고리에 걸친 상품도 in 조건이라 한 번만 나옴
+     */
+    public List<CategoryItemDto> findSubtreeItems(Long categoryId, Long cursor, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.category.CategoryItemDto(i.id, i.name, i.price, i.stockQuantity)" +
+                                " from Item i" +
+                                " where i.id > :cursor" +
+                                " and i.id in (select ci.id from Category c join c.items ci" +
+                                "   where c.id = :categoryId" +
+                                "   or c.id in (select cc.descendant.id from CategoryClosure cc where cc.ancestor.id = :categoryId))" +
+                                " order by i.id", CategoryItemDto.class)
+                .setParameter("categoryId", categoryId)
+                .setParameter("cursor", cursor == null ? 0L : cursor)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
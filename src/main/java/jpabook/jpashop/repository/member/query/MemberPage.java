@@ -0,0 +1,15 @@
+package jpabook.jpashop.repository.member.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/** 회원 목록 한 페이지 - nextCursor가 null이면 마지막 페이지, totalCount는 요청한 경우에만 채워짐 */
+@Data
+@AllArgsConstructor
+public class MemberPage {
+    private List<MemberQueryDto> members;
+    private Long nextCursor;
+    private Long totalCount;
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.repository.member.query;
+
+import lombok.Data;
+
+/** 회원 목록용 DTO - 필요한 컬럼만 select (orders 프록시 같은 건 안 만들어짐) */
+@Data
+public class MemberQueryDto {
+    private Long memberId;
+    private String name;
+    private String city;
+    private String street;
+    private String zipcode;
+
+    public MemberQueryDto(Long memberId, String name, String city, String street, String zipcode) {
+        this.memberId = memberId;
+        this.name = name;
+        this.city = city;
+        this.street = street;
+        this.zipcode = zipcode;
+    }
+}
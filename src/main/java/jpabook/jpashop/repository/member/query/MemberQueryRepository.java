@@ -0,0 +1,37 @@
+package jpabook.jpashop.repository.member.query;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class MemberQueryRepository {
+    private final EntityManager em;
+
+    /**
+     * 회원 id 커서 페이징 - PK 범위 조건이라 앞 페이지를 읽고 버리지 않음
+     * 커서 유무에 따라 JPQL을 나눠서 (:cursor is null or ...) 같은 조건으로 인덱스를 못 타는 일이 없게 함
+     */
+    public List<MemberQueryDto> findPage(Long cursor, int limit) {
+        String select = "select new jpabook.jpashop.repository.member.query.MemberQueryDto(m.id, m.name, m.address.city, m.address.street, m.address.zipcode)" +
+                " from Member m";
+        if (cursor == null) {
+            return em.createQuery(select + " order by m.id", MemberQueryDto.class)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        return em.createQuery(select + " where m.id > :cursor order by m.id", MemberQueryDto.class)
+                .setParameter("cursor", cursor)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /** 정확한 전체 회원 수 - 페이지 쿼리와 따로 필요할 때만 실행 */
+    public long count() {
+        return em.createQuery("select count(m) from Member m", Long.class)
+                .getSingleResult();
+    }
+}
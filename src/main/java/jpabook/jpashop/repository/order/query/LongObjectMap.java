@@ -0,0 +1,82 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.function.LongFunction;
+
+/**
+ * long 키 전용 해시맵 (오픈 어드레싱, 선형 탐사)
+ * Map<Long, V>처럼 키를 Long으로 박싱하거나 엔트리마다 Node 객체를 만들지 않아서
+ * 주문 id로 orderItems를 묶을 때 GC 부담이 훨씬 적음
+ */
+final class LongObjectMap<V> {
+    private long[] keys;
+    private Object[] values; // null이면 빈 칸
+    private int size;
+
+    LongObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1; // 2의 제곱수, load factor 0.5
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    V getOrDefault(long key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    V computeIfAbsent(long key, LongFunction<V> mappingFunction) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        V value = mappingFunction.apply(key);
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] == null) {
+                continue;
+            }
+            int i = mix(oldKeys[j]) & mask;
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private static int mix(long key) { // 연속된 id도 골고루 퍼지게 섞어줌
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,25 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** 회원 한 명의 주문 내역 (회원 정보는 이미 아니까 뺌) */
+@Data
+public class MemberOrderQueryDto {
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private DeliveryStatus deliveryStatus;
+    private List<OrderItemQueryDto> orderItems;
+
+    public MemberOrderQueryDto(Long orderId, LocalDateTime orderDate, OrderStatus orderStatus, DeliveryStatus deliveryStatus) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.deliveryStatus = deliveryStatus;
+    }
+}
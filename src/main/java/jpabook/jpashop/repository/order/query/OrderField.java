@@ -0,0 +1,62 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 주문 조회 V7에서 fields= 로 고를 수 있는 필드
+ * 필드마다 select 할 JPQL 식과 필요한 조인만 들고 있어서, 고른 필드에 없는 테이블은 조인 자체를 안함
+ */
+public enum OrderField {
+    ORDER_ID("orderId", "o.id", Join.NONE),
+    MEMBER_ID("memberId", "o.member.id", Join.NONE), // FK 컬럼이라 member 조인 안함
+    NAME("name", "m.name", Join.MEMBER),
+    ORDER_DATE("orderDate", "o.orderDate", Join.NONE),
+    ORDER_STATUS("orderStatus", "o.status", Join.NONE),
+    TOTAL_PRICE("totalPrice", "o.totalPrice", Join.NONE), // 저장된 총액이라 order_item 안 읽음
+    ITEM_COUNT("itemCount", "o.itemCount", Join.NONE),
+    DELIVERY_STATUS("deliveryStatus", "d.status", Join.DELIVERY),
+    ADDRESS("address", "d.address", Join.DELIVERY),
+    ORDER_ITEMS("orderItems", null, Join.NONE); // 컬렉션이라 select에 넣지 않고 window마다 in 쿼리로 붙임
+
+    enum Join { NONE, MEMBER, DELIVERY }
+
+    private final String property;
+    final String expression;
+    final Join join;
+
+    OrderField(String property, String expression, Join join) {
+        this.property = property;
+        this.expression = expression;
+        this.join = join;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /** "orderId,orderStatus,totalPrice" ➡️ 필드 집합 (순서/중복은 무시, 모르는 필드면 예외) */
+    public static Set<OrderField> parse(String fields) {
+        EnumSet<OrderField> result = EnumSet.noneOf(OrderField.class);
+        for (String name : fields.split(",")) {
+            String property = name.trim();
+            if (property.isEmpty()) {
+                continue;
+            }
+            result.add(of(property));
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("조회할 필드가 없습니다. fields=" + fields);
+        }
+        return result;
+    }
+
+    private static OrderField of(String property) {
+        for (OrderField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 필드입니다. field=" + property);
+    }
+}
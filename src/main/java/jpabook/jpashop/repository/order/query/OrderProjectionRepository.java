@@ -0,0 +1,139 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 주문 조회 V7 (sparse fieldset) - 클라이언트가 고른 필드만 select 하고, 그 필드에 필요한 테이블만 조인함
+ * - 필드 집합 + 커서 여부를 비트로 정규화해서 조합마다 JPQL을 한 번만 만들어 캐시 (OrderSearchRepository와 같은 방식)
+ * - 결과는 scroll로 읽어서 한 행씩 consumer로 넘김, orderItems를 고른 경우에만 window마다 in 쿼리 한 번
+ * - orderId는 다음 페이지 커서(afterId)로 써야 해서 항상 포함
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderProjectionRepository {
+    private static final int CURSOR = 1 << 30;
+
+    private final EntityManager em;
+    private final OrderQueryRepository orderQueryRepository;
+
+    private final ConcurrentMap<Integer, Projection> projectionCache = new ConcurrentHashMap<>();
+
+    /** afterId 다음 주문부터 id 순으로 limit개, StreamingResponseBody 스레드에서 불려서 읽기 전용 트랜잭션을 직접 걸어줌 */
+    @Transactional(readOnly = true)
+    public void stream(Set<OrderField> fields, Long afterId, int limit, int windowSize, Consumer<Map<String, Object>> consumer) {
+        int shape = shapeOf(fields, afterId != null);
+        Projection projection = projectionCache.computeIfAbsent(shape, OrderProjectionRepository::compile);
+
+        TypedQuery<Tuple> query = em.createQuery(projection.jpql, Tuple.class)
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, windowSize);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+
+        try (Stream<Tuple> rows = query.getResultStream()) {
+            if (!projection.withOrderItems) { // 주문 테이블 한 번만 읽고 바로바로 내보냄
+                rows.forEach(row -> consumer.accept(toMap(projection, row)));
+                return;
+            }
+            List<Map<String, Object>> window = new ArrayList<>(windowSize);
+            Iterator<Tuple> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                window.add(toMap(projection, iterator.next()));
+                if (window.size() == windowSize) {
+                    emitWindow(window, consumer);
+                    window.clear();
+                }
+            }
+            emitWindow(window, consumer);
+        }
+    }
+
+    private void emitWindow(List<Map<String, Object>> window, Consumer<Map<String, Object>> consumer) {
+        if (window.isEmpty()) {
+            return;
+        }
+        List<Long> orderIds = window.stream().map(row -> (Long) row.get(OrderField.ORDER_ID.getProperty())).toList();
+        LongObjectMap<List<OrderItemQueryDto>> orderItemMap = orderQueryRepository.findOrderItemMap(orderIds);
+        window.forEach(row -> {
+            row.put(OrderField.ORDER_ITEMS.getProperty(), orderItemMap.getOrDefault((Long) row.get(OrderField.ORDER_ID.getProperty()), List.of()));
+            consumer.accept(row);
+        });
+    }
+
+    private static Map<String, Object> toMap(Projection projection, Tuple row) {
+        Map<String, Object> map = new LinkedHashMap<>(projection.columns.size() * 2 + 2);
+        map.put(OrderField.ORDER_ID.getProperty(), row.get(0));
+        for (int i = 0; i < projection.columns.size(); i++) {
+            map.put(projection.columns.get(i).getProperty(), row.get(i + 1));
+        }
+        return map;
+    }
+
+    /** 필드 조합 + 커서 여부에 대해 만들어진 JPQL (없으면 만들어서 캐시) */
+    String jpqlOf(Set<OrderField> fields, boolean cursor) {
+        return projectionCache.computeIfAbsent(shapeOf(fields, cursor), OrderProjectionRepository::compile).jpql;
+    }
+
+    /** 지금까지 만들어진 필드 조합 수 (JPQL 캐시 크기) */
+    int cachedProjectionCount() {
+        return projectionCache.size();
+    }
+
+    private static int shapeOf(Set<OrderField> fields, boolean cursor) {
+        int shape = cursor ? CURSOR : 0;
+        for (OrderField field : fields) {
+            shape |= 1 << field.ordinal();
+        }
+        return shape;
+    }
+
+    private static Projection compile(int shape) {
+        List<OrderField> columns = new ArrayList<>();
+        boolean joinMember = false;
+        boolean joinDelivery = false;
+        for (OrderField field : OrderField.values()) {
+            if ((shape & (1 << field.ordinal())) == 0 || field == OrderField.ORDER_ID || field.expression == null) {
+                continue;
+            }
+            columns.add(field);
+            joinMember |= field.join == OrderField.Join.MEMBER;
+            joinDelivery |= field.join == OrderField.Join.DELIVERY;
+        }
+
+        StringBuilder jpql = new StringBuilder("select o.id");
+        columns.forEach(field -> jpql.append(", ").append(field.expression));
+        jpql.append(" from Order o");
+        if (joinMember) jpql.append(" join o.member m");
+        if (joinDelivery) jpql.append(" join o.delivery d");
+        if ((shape & CURSOR) != 0) jpql.append(" where o.id > :afterId");
+        jpql.append(" order by o.id");
+
+        boolean withOrderItems = (shape & (1 << OrderField.ORDER_ITEMS.ordinal())) != 0;
+        return new Projection(jpql.toString(), List.copyOf(columns), withOrderItems);
+    }
+
+    private static final class Projection { // 필드 조합 하나에 대해 만들어둔 JPQL과 select 컬럼 순서
+        private final String jpql;
+        private final List<OrderField> columns; // o.id 다음에 오는 컬럼들
+        private final boolean withOrderItems;
+
+        Projection(String jpql, List<OrderField> columns, boolean withOrderItems) {
+            this.jpql = jpql;
+            this.columns = columns;
+            this.withOrderItems = withOrderItems;
+        }
+    }
+}
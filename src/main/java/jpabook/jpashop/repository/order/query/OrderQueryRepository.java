@@ -1,17 +1,30 @@
 package jpabook.jpashop.repository.order.query;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.coalesce.Coalesce;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.shard.ShardDirectory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository { // 패키지를 OrderRepository(엔티티를 찾을 때)와 구분하는 이유는 관심사 분리를 하기 위해
+    private static final int IN_CHUNK_SIZE = 500; // in절 하나에 넣는 최대 id 개수
+
     private final EntityManager em;
+    private final ShardDirectory shardDirectory;
+    private final ShardedOrderQueryRepository shardedOrderQueryRepository;
 
     // V4
     // 2️⃣
@@ -26,28 +39,124 @@ public class OrderQueryRepository { // 패키지를 OrderRepository(엔티티를
     }
 
     // V5
-    public List<OrderQueryDto> findAllByDto_optimization() {
-        List<OrderQueryDto> result = findOrders(); // 루트를 다 조회함! ✅나가는 쿼리문 1번
+    @Coalesce(reuseMillis = 500) // 대시보드 새로고침으로 같은 페이지 조회가 몰려도 쿼리는 한 번
+    public List<OrderQueryDto> findAllByDto_optimization(int offset, int limit) {
+        List<OrderQueryDto> result = findOrders(offset, limit); // 루트를 조회함! ✅나가는 쿼리문 1번 (한 번에 limit 건까지만)
 
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result)); // 2번째 쿼리문 리팩토링😃
+        LongObjectMap<List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result)); // 2번째 쿼리문 리팩토링😃 (in절은 chunk로 나눠서)
 
-        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId()))); // 메모리의 Map에 올려두고 찾아서 뽑는거임!
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), List.of()))); // 메모리의 Map에 올려두고 찾아서 뽑는거임!
 
         return result;
     }
 
-    private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery( // ✅나가는 쿼리문 2번
+    // V5 스트리밍
+    /**
+     * 주문을 scroll(stream)로 읽어서 window 단위로 끊고, window마다 orderItems를 in 쿼리 한 번으로 붙인 뒤 바로 consumer로 넘김
+     * 전체 결과를 List로 모으지 않기 때문에 주문이 몇십만 건이어도 메모리는 window 크기만큼만 씀
+     * StreamingResponseBody는 별도 스레드에서 돌아서 여기서 읽기 전용 트랜잭션을 직접 걸어줌
+     */
+    @Transactional(readOnly = true)
+    public void streamAllByDto(int windowSize, Consumer<OrderQueryDto> consumer) {
+        try (Stream<OrderQueryDto> orders = em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, d.address)" +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d" +
+                                " order by o.id", OrderQueryDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, windowSize) // JDBC 드라이버도 한 번에 window 만큼만 가져오게
+                .getResultStream()) {
+            List<OrderQueryDto> window = new ArrayList<>(windowSize);
+            Iterator<OrderQueryDto> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                window.add(iterator.next());
+                if (window.size() == windowSize) {
+                    emitWindow(window, consumer);
+                    window.clear();
+                }
+            }
+            emitWindow(window, consumer);
+        }
+    }
+
+    private void emitWindow(List<OrderQueryDto> window, Consumer<OrderQueryDto> consumer) {
+        if (window.isEmpty()) {
+            return;
+        }
+        LongObjectMap<List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(window));
+        window.forEach(o -> {
+            o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), List.of()));
+            consumer.accept(o);
+        });
+    }
+
+    /**
+     * 회원별 주문 내역 - (member_id, order_date, order_id) 인덱스를 따라 커서 다음부터 limit개만 읽음
+     * 회원 주문이 수천 건이어도 앞 페이지를 읽고 버리지 않고, 주문 상품은 페이지마다 in 쿼리 한 번
+     * 샤딩이 켜져 있으면 회원의 샤드에서 조회
+     */
+    public List<MemberOrderQueryDto> findMemberOrders(Long memberId, OrderCursor cursor, int limit) {
+        if (shardDirectory.isEnabled()) {
+            return shardedOrderQueryRepository.findMemberOrders(memberId, cursor, limit);
+        }
+        String jpql = "select new jpabook.jpashop.repository.order.query.MemberOrderQueryDto(o.id, o.orderDate, o.status, d.status)" +
+                " from Order o" +
+                " join o.delivery d" +
+                " where o.member.id = :memberId"; // FK 컬럼만 보고 member 조인은 안함
+        if (cursor != null) {
+            jpql += " and (o.orderDate < :orderDate or (o.orderDate = :orderDate and o.id < :orderId))";
+        }
+        jpql += " order by o.orderDate desc, o.id desc";
+
+        TypedQuery<MemberOrderQueryDto> query = em.createQuery(jpql, MemberOrderQueryDto.class)
+                .setParameter("memberId", memberId)
+                .setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("orderDate", cursor.getOrderDate())
+                    .setParameter("orderId", cursor.getOrderId());
+        }
+        List<MemberOrderQueryDto> orders = query.getResultList();
+
+        LongObjectMap<List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(orders.stream().map(MemberOrderQueryDto::getOrderId).toList());
+        orders.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), List.of())));
+        return orders;
+    }
+
+    /**
+     * in절에 id를 한꺼번에 다 넣으면 DB 파라미터 개수 제한에 걸리고, 개수가 매번 달라서 실행 계획도 재사용이 안됨
+     * ➡️ IN_CHUNK_SIZE 단위로 나눠서 조회함(hibernate.query.in_clause_parameter_padding 으로 2의 제곱수 개수로 채워짐)
+     */
+    LongObjectMap<List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) { // OrderSearchRepository에서도 같이 씀
+        LongObjectMap<List<OrderItemQueryDto>> orderItemMap = new LongObjectMap<>(orderIds.size());
+        if (orderIds.isEmpty()) {
+            return orderItemMap;
+        }
+
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < orderIds.size(); i += IN_CHUNK_SIZE) {
+            chunks.add(orderIds.subList(i, Math.min(i + IN_CHUNK_SIZE, orderIds.size())));
+        }
+
+        // ✅나가는 쿼리문 2번 - chunk는 호출한 쪽 커넥션(트랜잭션/OSIV)으로 차례대로 조회
+        // chunk마다 다른 스레드에서 커넥션을 새로 잡으면, 이미 커넥션을 쥔 요청들이 몰릴 때 풀이 바닥나서 서로 기다리다 멈춤
+        chunks.forEach(chunk -> groupByOrderId(findOrderItems(em, chunk), orderItemMap));
+        return orderItemMap;
+    }
+
+    private static List<OrderItemQueryDto> findOrderItems(EntityManager em, List<Long> orderIds) {
+        return em.createQuery(
                         "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
-                                "from OrderItem oi " +
-                                "join oi.item i " +
-                                "where oi.order.id in :orderIds", OrderItemQueryDto.class)
+                                " from OrderItem oi" +
+                                " join oi.item i" +
+                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
                 .setParameter("orderIds", orderIds)
                 .getResultList();
+    }
 
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
-                .collect(Collectors.groupingBy(orderItemQueryDto -> orderItemQueryDto.getOrderId()));
-        return orderItemMap;
+    private static void groupByOrderId(List<OrderItemQueryDto> orderItems, LongObjectMap<List<OrderItemQueryDto>> orderItemMap) {
+        for (OrderItemQueryDto orderItem : orderItems) {
+            orderItemMap.computeIfAbsent(orderItem.getOrderId(), id -> new ArrayList<>()).add(orderItem);
+        }
     }
 
     private static List<Long> toOrderIds(List<OrderQueryDto> result) {
@@ -81,11 +190,22 @@ public class OrderQueryRepository { // 패키지를 OrderRepository(엔티티를
     // 1️⃣
     private List<OrderQueryDto> findOrders() {
         return em.createQuery( // new operation을 쓸때는 한줄로 밖에 못 넣는다. 따라서 orderItems는 빠짐
-                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address" +
+                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, d.address)" +
                                 " from Order o" +
                                 " join o.member m" +
                                 " join o.delivery d", OrderQueryDto.class)
                 .getResultList(); // ctrl+alt+m 위 findOrderQueryDtos() 만듦
     }
 
+    private List<OrderQueryDto> findOrders(int offset, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, d.address)" +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d" +
+                                " order by o.id", OrderQueryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
 }
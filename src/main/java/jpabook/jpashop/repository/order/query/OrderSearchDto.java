@@ -0,0 +1,30 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class OrderSearchDto {
+    private Long orderId;
+    private String memberName;
+    private OrderStatus orderStatus;
+    private LocalDateTime orderDate;
+    private DeliveryStatus deliveryStatus;
+    private int totalPrice;
+    private int itemCount;
+    private List<OrderItemQueryDto> orderItems;
+
+    public OrderSearchDto(Long orderId, String memberName, OrderStatus orderStatus, LocalDateTime orderDate, DeliveryStatus deliveryStatus, int totalPrice, int itemCount) {
+        this.orderId = orderId;
+        this.memberName = memberName;
+        this.orderStatus = orderStatus;
+        this.orderDate = orderDate;
+        this.deliveryStatus = deliveryStatus;
+        this.totalPrice = totalPrice;
+        this.itemCount = itemCount;
+    }
+}
@@ -0,0 +1,14 @@
+package jpabook.jpashop.repository.order.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/** 주문 검색 결과 한 페이지 - nextCursor가 null이면 마지막 페이지 */
+@Data
+@AllArgsConstructor
+public class OrderSearchPage {
+    private List<OrderSearchDto> orders;
+    private String nextCursor;
+}
@@ -0,0 +1,152 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.exception.InvalidCursorException;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 검색 (findAllByString, findAllByCriteria 대체)
+ * - 검색 조건 조합(어떤 조건이 들어왔는지 + 정렬 + 커서 여부)을 비트로 정규화해서 조합마다 JPQL을 한 번만 만들어 캐시함
+ *   ➡️ 같은 조합은 항상 같은 JPQL 문자열이라 Hibernate 쿼리 플랜 캐시도 그대로 재사용됨
+ * - 엔티티 대신 DTO로 바로 조회하고, 페이지의 orderItems는 in 쿼리 한 번으로 붙임
+ * - 1000건에서 조용히 잘리지 않고, 커서로 다음 페이지를 이어서 조회
+ * - 회원명/상품명은 앞부분 일치(prefix) 검색 - 예전 findAllByString의 포함(contains) 검색과 다름
+ *   ("길동"으로는 "홍길동"이 안 나오고 "홍"이나 "홍길"로 찾아야 함) 대신 이름 인덱스를 탈 수 있음, % _ 는 글자 그대로 찾음
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderSearchRepository {
+    private static final int MEMBER_NAME = 1;
+    private static final int ORDER_STATUS = 1 << 1;
+    private static final int DATE_FROM = 1 << 2;
+    private static final int DATE_TO = 1 << 3;
+    private static final int MIN_PRICE = 1 << 4;
+    private static final int MAX_PRICE = 1 << 5;
+    private static final int ITEM_NAME = 1 << 6;
+    private static final int DELIVERY_STATUS = 1 << 7;
+    private static final int CURSOR = 1 << 8;
+    private static final int SORT_SHIFT = 9;
+
+    private final EntityManager em;
+    private final OrderQueryRepository orderQueryRepository;
+
+    private final ConcurrentMap<Integer, String> jpqlCache = new ConcurrentHashMap<>();
+
+    public OrderSearchPage search(OrderSearch orderSearch, String cursorToken, int limit) {
+        OrderSort sort = orderSearch.getSort() != null ? orderSearch.getSort() : OrderSort.ORDER_DATE_DESC;
+        OrderCursor cursor = OrderCursor.decode(cursorToken);
+        if (cursor != null && isTotalPriceSort(sort) && cursor.getTotalPrice() == null) { // 정렬을 바꾸고 예전 커서를 넘긴 경우
+            throw new InvalidCursorException("정렬과 맞지 않는 커서입니다. cursor=" + cursorToken);
+        }
+
+        int shape = shapeOf(orderSearch, cursor, sort);
+        String jpql = jpqlCache.computeIfAbsent(shape, OrderSearchRepository::buildJpql);
+
+        TypedQuery<OrderSearchDto> query = em.createQuery(jpql, OrderSearchDto.class)
+                .setMaxResults(limit + 1); // 하나 더 읽어서 다음 페이지가 있는지 확인
+        bind(query, orderSearch, cursor, sort);
+        List<OrderSearchDto> orders = new ArrayList<>(query.getResultList());
+
+        String nextCursor = null;
+        if (orders.size() > limit) {
+            orders.remove(limit);
+            OrderSearchDto last = orders.get(limit - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getOrderId(), isTotalPriceSort(sort) ? last.getTotalPrice() : null).encode();
+        }
+
+        if (!orders.isEmpty()) { // 페이지의 orderItems를 in 쿼리 한 번으로
+            LongObjectMap<List<OrderItemQueryDto>> orderItemMap = orderQueryRepository.findOrderItemMap(
+                    orders.stream().map(OrderSearchDto::getOrderId).collect(Collectors.toList()));
+            orders.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), List.of())));
+        }
+        return new OrderSearchPage(orders, nextCursor);
+    }
+
+    private static int shapeOf(OrderSearch s, OrderCursor cursor, OrderSort sort) {
+        int shape = sort.ordinal() << SORT_SHIFT;
+        if (StringUtils.hasText(s.getMemberName())) shape |= MEMBER_NAME;
+        if (s.getOrderStatus() != null) shape |= ORDER_STATUS;
+        if (s.getOrderDateFrom() != null) shape |= DATE_FROM;
+        if (s.getOrderDateTo() != null) shape |= DATE_TO;
+        if (s.getMinPrice() != null) shape |= MIN_PRICE;
+        if (s.getMaxPrice() != null) shape |= MAX_PRICE;
+        if (StringUtils.hasText(s.getItemName())) shape |= ITEM_NAME;
+        if (s.getDeliveryStatus() != null) shape |= DELIVERY_STATUS;
+        if (cursor != null) shape |= CURSOR;
+        return shape;
+    }
+
+    private static String buildJpql(int shape) {
+        OrderSort sort = OrderSort.values()[shape >>> SORT_SHIFT];
+        boolean desc = sort == OrderSort.ORDER_DATE_DESC || sort == OrderSort.TOTAL_PRICE_DESC;
+        String sortKey = isTotalPriceSort(sort) ? "o.totalPrice" : "o.orderDate"; // 두 번째 정렬 키는 항상 o.id
+        String cursorParam = isTotalPriceSort(sort) ? ":cursorTotal" : ":cursorDate";
+
+        List<String> where = new ArrayList<>();
+        if ((shape & MEMBER_NAME) != 0) where.add("m.name like :memberName escape '\\'"); // 앞부분 일치라서 인덱스를 탈 수 있음
+        if ((shape & ORDER_STATUS) != 0) where.add("o.status = :status");
+        if ((shape & DATE_FROM) != 0) where.add("o.orderDate >= :dateFrom");
+        if ((shape & DATE_TO) != 0) where.add("o.orderDate < :dateTo");
+        if ((shape & MIN_PRICE) != 0) where.add("o.totalPrice >= :minPrice"); // 저장된 총액이라 order_item을 안 읽음
+        if ((shape & MAX_PRICE) != 0) where.add("o.totalPrice <= :maxPrice");
+        if ((shape & ITEM_NAME) != 0) where.add("exists (select 1 from OrderItem oi join oi.item i where oi.order = o and i.name like :itemName escape '\\')");
+        if ((shape & DELIVERY_STATUS) != 0) where.add("d.status = :deliveryStatus");
+        if ((shape & CURSOR) != 0) {
+            String op = desc ? "<" : ">";
+            where.add("(" + sortKey + " " + op + " " + cursorParam + " or (" + sortKey + " = " + cursorParam + " and o.id " + op + " :cursorId))");
+        }
+
+        String direction = desc ? " desc" : " asc";
+        return "select new jpabook.jpashop.repository.order.query.OrderSearchDto(o.id, m.name, o.status, o.orderDate, d.status, o.totalPrice, o.itemCount)" +
+                " from Order o" +
+                " join o.member m" +
+                " join o.delivery d" +
+                (where.isEmpty() ? "" : " where " + String.join(" and ", where)) +
+                " order by " + sortKey + direction + ", o.id" + direction;
+    }
+
+    /** 검색어의 % _ 는 와일드카드가 아니라 글자로 */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** 지금까지 만들어진 검색 조건 조합 수 (JPQL 캐시 크기) */
+    int cachedJpqlCount() {
+        return jpqlCache.size();
+    }
+
+    private static boolean isTotalPriceSort(OrderSort sort) {
+        return sort == OrderSort.TOTAL_PRICE_DESC || sort == OrderSort.TOTAL_PRICE_ASC;
+    }
+
+    private static void bind(TypedQuery<OrderSearchDto> query, OrderSearch s, OrderCursor cursor, OrderSort sort) {
+        if (StringUtils.hasText(s.getMemberName())) query.setParameter("memberName", escapeLike(s.getMemberName()) + "%");
+        if (s.getOrderStatus() != null) query.setParameter("status", s.getOrderStatus());
+        if (s.getOrderDateFrom() != null) query.setParameter("dateFrom", s.getOrderDateFrom().atStartOfDay());
+        if (s.getOrderDateTo() != null) query.setParameter("dateTo", s.getOrderDateTo().plusDays(1).atStartOfDay());
+        if (s.getMinPrice() != null) query.setParameter("minPrice", s.getMinPrice());
+        if (s.getMaxPrice() != null) query.setParameter("maxPrice", s.getMaxPrice());
+        if (StringUtils.hasText(s.getItemName())) query.setParameter("itemName", escapeLike(s.getItemName()) + "%");
+        if (s.getDeliveryStatus() != null) query.setParameter("deliveryStatus", s.getDeliveryStatus());
+        if (cursor != null) {
+            if (isTotalPriceSort(sort)) {
+                query.setParameter("cursorTotal", cursor.getTotalPrice());
+            } else {
+                query.setParameter("cursorDate", cursor.getOrderDate());
+            }
+            query.setParameter("cursorId", cursor.getOrderId());
+        }
+    }
+}
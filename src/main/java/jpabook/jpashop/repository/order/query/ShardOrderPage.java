@@ -0,0 +1,14 @@
+package jpabook.jpashop.repository.order.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/** 샤드를 합친 주문 목록 한 페이지 - nextCursor는 샤드별 커서, null이면 마지막 페이지 */
+@Data
+@AllArgsConstructor
+public class ShardOrderPage {
+    private List<ShardOrderQueryDto> orders;
+    private String nextCursor;
+}
@@ -0,0 +1,32 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** 샤드에서 조회한 주문 - 회원 이름, 상품 이름은 global DB에서 따로 채움 */
+@Data
+public class ShardOrderQueryDto {
+    private Long orderId;
+    @JsonIgnore
+    private Long memberId;
+    private String name;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private Address address;
+    private List<OrderItemQueryDto> orderItems;
+    @JsonIgnore
+    private int shard;
+
+    public ShardOrderQueryDto(Long orderId, Long memberId, LocalDateTime orderDate, OrderStatus orderStatus, Address address) {
+        this.orderId = orderId;
+        this.memberId = memberId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.address = address;
+    }
+}
@@ -0,0 +1,296 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.exception.InvalidCursorException;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.shard.ShardDirectory;
+import jpabook.jpashop.shard.ShardTemplate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * 샤딩이 켜져 있을 때 주문 조회
+ * - 회원별 주문 내역 : 회원의 샤드 하나만 조회
+ * - 전체 주문 목록 : 샤드마다 병렬로 조회해서 (order_date desc, order_id desc)로 합침 (scatter-gather)
+ * 샤드에는 회원, 상품이 없어서 조인하지 않고 id만 읽고, 이름은 global DB에서 in 쿼리로 채움
+ */
+@Repository
+@RequiredArgsConstructor
+public class ShardedOrderQueryRepository {
+    private static final String START = "*"; // 샤드별 커서 - 처음부터
+    private static final String DONE = "~";  // 샤드별 커서 - 다 읽음
+    private static final Comparator<ShardOrderQueryDto> LATEST_FIRST =
+            Comparator.comparing(ShardOrderQueryDto::getOrderDate).thenComparing(ShardOrderQueryDto::getOrderId).reversed();
+
+    private final EntityManager em;
+    private final ShardDirectory shardDirectory;
+    private final ShardTemplate shardTemplate;
+    private final ExecutorService scatterExecutor = Executors.newFixedThreadPool(4, r -> {
+        Thread thread = new Thread(r, "order-shard-scatter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** 회원별 주문 내역 - 회원의 샤드에서 OrderQueryRepository.findMemberOrders와 같은 쿼리 */
+    public List<MemberOrderQueryDto> findMemberOrders(Long memberId, OrderCursor cursor, int limit) {
+        int shard = shardDirectory.shardOf(memberId);
+        List<MemberOrderQueryDto> orders = shardTemplate.execute(shard, true, () -> {
+            String jpql = "select new jpabook.jpashop.repository.order.query.MemberOrderQueryDto(o.id, o.orderDate, o.status, d.status)" +
+                    " from Order o" +
+                    " join o.delivery d" +
+                    " where o.member.id = :memberId";
+            if (cursor != null) {
+                jpql += " and (o.orderDate < :orderDate or (o.orderDate = :orderDate and o.id < :orderId))";
+            }
+            jpql += " order by o.orderDate desc, o.id desc";
+
+            TypedQuery<MemberOrderQueryDto> query = em.createQuery(jpql, MemberOrderQueryDto.class)
+                    .setParameter("memberId", memberId)
+                    .setMaxResults(limit);
+            if (cursor != null) {
+                query.setParameter("orderDate", cursor.getOrderDate())
+                        .setParameter("orderId", cursor.getOrderId());
+            }
+            return query.getResultList();
+        });
+
+        Map<Long, List<OrderItemQueryDto>> orderItems = findOrderItems(Map.of(shard,
+                orders.stream().map(MemberOrderQueryDto::getOrderId).toList()));
+        orders.forEach(o -> o.setOrderItems(orderItems.getOrDefault(o.getOrderId(), List.of())));
+        return orders;
+    }
+
+    /**
+     * 전체 주문 - 샤드별 커서 페이징
+     * 커서는 샤드마다 마지막으로 내려준 위치를 '.'으로 이어붙인 것 (처음부터면 *, 다 읽은 샤드는 ~)
+     * 샤드마다 커서 다음부터 limit개씩 읽고 합친 뒤 앞에서 limit개만 내려줌 ➡️ 몇 번째 페이지든 샤드당 limit개만 읽음
+     */
+    public ShardOrderPage findPage(String cursorToken, int limit) {
+        int shardCount = shardDirectory.shardCount();
+        String[] cursors = decodeCursors(cursorToken, shardCount);
+
+        List<Callable<List<ShardOrderQueryDto>>> tasks = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (DONE.equals(cursors[shard])) {
+                tasks.add(List::of);
+                continue;
+            }
+            int s = shard;
+            OrderCursor cursor = START.equals(cursors[s]) ? null : OrderCursor.decode(cursors[s]);
+            tasks.add(() -> findOrders(s, cursor, limit));
+        }
+        List<List<ShardOrderQueryDto>> perShard = scatter(tasks);
+
+        List<ShardOrderQueryDto> page = merge(perShard, 0, limit);
+        fill(page);
+
+        String[] next = cursors.clone();
+        boolean more = false;
+        for (int shard = 0; shard < shardCount; shard++) {
+            List<ShardOrderQueryDto> rows = perShard.get(shard);
+            ShardOrderQueryDto last = null;
+            int taken = 0;
+            for (ShardOrderQueryDto row : page) {
+                if (row.getShard() == shard) {
+                    last = row;
+                    taken++;
+                }
+            }
+            if (last != null) {
+                next[shard] = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+            }
+            if (taken == rows.size() && rows.size() < limit) { // 이 샤드는 더 읽을 게 없음
+                next[shard] = DONE;
+            } else if (!DONE.equals(next[shard])) {
+                more = true;
+            }
+        }
+        return new ShardOrderPage(page, more ? String.join(".", next) : null);
+    }
+
+    /** 전체 주문 - offset 페이징, 샤드마다 앞에서 offset + limit개를 읽어야 해서 뒤 페이지일수록 느림 (findPage 권장) */
+    public List<ShardOrderQueryDto> findPage(int offset, int limit) {
+        List<Callable<List<ShardOrderQueryDto>>> tasks = new ArrayList<>();
+        for (int shard = 0; shard < shardDirectory.shardCount(); shard++) {
+            int s = shard;
+            tasks.add(() -> findOrders(s, null, offset + limit));
+        }
+        List<ShardOrderQueryDto> page = merge(scatter(tasks), offset, limit);
+        fill(page);
+        return page;
+    }
+
+    private List<ShardOrderQueryDto> findOrders(int shard, OrderCursor cursor, int limit) {
+        return shardTemplate.execute(shard, true, () -> {
+            String jpql = "select new jpabook.jpashop.repository.order.query.ShardOrderQueryDto(o.id, o.member.id, o.orderDate, o.status, d.address)" +
+                    " from Order o" +
+                    " join o.delivery d";
+            if (cursor != null) {
+                jpql += " where o.orderDate < :orderDate or (o.orderDate = :orderDate and o.id < :orderId)";
+            }
+            jpql += " order by o.orderDate desc, o.id desc";
+
+            TypedQuery<ShardOrderQueryDto> query = em.createQuery(jpql, ShardOrderQueryDto.class)
+                    .setMaxResults(limit);
+            if (cursor != null) {
+                query.setParameter("orderDate", cursor.getOrderDate())
+                        .setParameter("orderId", cursor.getOrderId());
+            }
+            List<ShardOrderQueryDto> orders = query.getResultList();
+            orders.forEach(o -> o.setShard(shard));
+            return orders;
+        });
+    }
+
+    /** 샤드별로 정렬된 목록을 합쳐서 offset부터 limit개 */
+    private static List<ShardOrderQueryDto> merge(List<List<ShardOrderQueryDto>> perShard, int offset, int limit) {
+        PriorityQueue<PeekingIterator> heads = new PriorityQueue<>(Comparator.comparing(PeekingIterator::peek, LATEST_FIRST));
+        for (List<ShardOrderQueryDto> rows : perShard) {
+            if (!rows.isEmpty()) {
+                heads.add(new PeekingIterator(rows));
+            }
+        }
+        List<ShardOrderQueryDto> page = new ArrayList<>(limit);
+        int skipped = 0;
+        while (!heads.isEmpty() && page.size() < limit) {
+            PeekingIterator head = heads.poll();
+            ShardOrderQueryDto row = head.next();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(row);
+            }
+            if (head.hasNext()) {
+                heads.add(head);
+            }
+        }
+        return page;
+    }
+
+    /** 회원 이름, 주문 상품 채우기 - 주문 상품은 샤드마다, 이름은 global에서 */
+    private void fill(List<ShardOrderQueryDto> page) {
+        Map<Integer, List<Long>> orderIdsByShard = page.stream().collect(Collectors.groupingBy(
+                ShardOrderQueryDto::getShard, TreeMap::new, Collectors.mapping(ShardOrderQueryDto::getOrderId, Collectors.toList())));
+        Map<Long, List<OrderItemQueryDto>> orderItems = findOrderItems(orderIdsByShard);
+        Map<Long, String> memberNames = findNames("Member", page.stream().map(ShardOrderQueryDto::getMemberId).collect(Collectors.toSet()));
+        for (ShardOrderQueryDto order : page) {
+            order.setName(memberNames.get(order.getMemberId()));
+            order.setOrderItems(orderItems.getOrDefault(order.getOrderId(), List.of()));
+        }
+    }
+
+    /** 샤드별 주문 id -> 주문 상품 (샤드에는 상품이 없어서 item id만 읽고 이름은 global에서) */
+    private Map<Long, List<OrderItemQueryDto>> findOrderItems(Map<Integer, List<Long>> orderIdsByShard) {
+        List<Callable<List<Object[]>>> tasks = new ArrayList<>();
+        orderIdsByShard.forEach((shard, orderIds) -> {
+            if (!orderIds.isEmpty()) {
+                tasks.add(() -> shardTemplate.execute(shard, true, () -> em.createQuery(
+                                "select oi.order.id, oi.item.id, oi.orderPrice, oi.count" +
+                                        " from OrderItem oi" +
+                                        " where oi.order.id in :orderIds", Object[].class)
+                        .setParameter("orderIds", orderIds)
+                        .getResultList()));
+            }
+        });
+        List<Object[]> rows = scatter(tasks).stream().flatMap(List::stream).toList();
+
+        Map<Long, String> itemNames = findNames("Item", rows.stream().map(row -> (Long) row[1]).collect(Collectors.toSet()));
+        Map<Long, List<OrderItemQueryDto>> orderItems = new HashMap<>();
+        for (Object[] row : rows) {
+            Long orderId = (Long) row[0];
+            orderItems.computeIfAbsent(orderId, id -> new ArrayList<>())
+                    .add(new OrderItemQueryDto(orderId, itemNames.get((Long) row[1]), (Integer) row[2], (Integer) row[3]));
+        }
+        return orderItems;
+    }
+
+    /** global DB에서 id -> name (Member, Item) */
+    private Map<Long, String> findNames(String entity, Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return em.createQuery("select e.id, e.name from " + entity + " e where e.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList().stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (String) row[1]));
+    }
+
+    /** 샤드마다 하나씩 병렬로 실행, 결과는 tasks 순서대로 */
+    private <T> List<T> scatter(List<Callable<T>> tasks) {
+        if (tasks.size() == 1) {
+            try {
+                return List.of(tasks.get(0).call());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        List<Future<T>> futures = tasks.stream().map(scatterExecutor::submit).collect(Collectors.toList());
+        try {
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("샤드 조회 중 인터럽트 되었습니다.", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String[] decodeCursors(String token, int shardCount) {
+        if (token == null || token.isBlank()) {
+            String[] cursors = new String[shardCount];
+            Arrays.fill(cursors, START);
+            return cursors;
+        }
+        String[] cursors = token.split("\\.");
+        if (cursors.length != shardCount) { // 샤드 수가 바뀌었으면 처음부터 다시
+            throw new InvalidCursorException("잘못된 커서입니다. cursor=" + token);
+        }
+        return cursors;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scatterExecutor.shutdownNow();
+    }
+
+    /** 합칠 때 샤드별 다음 행을 미리 봄 */
+    private static final class PeekingIterator implements Iterator<ShardOrderQueryDto> {
+        private final List<ShardOrderQueryDto> rows;
+        private int position;
+
+        PeekingIterator(List<ShardOrderQueryDto> rows) {
+            this.rows = rows;
+        }
+
+        ShardOrderQueryDto peek() {
+            return rows.get(position);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < rows.size();
+        }
+
+        @Override
+        public ShardOrderQueryDto next() {
+            return rows.get(position++);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.search;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.Hibernate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 검색 인덱스에 들어가는 상품 - 검색 결과도 이걸 그대로 돌려줘서 DB를 안 거침
+ * 재고는 자주 바뀌어서 넣지 않음 (필요하면 id로 따로 조회)
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PRIVATE) // 스냅샷 파일 읽을 때(Jackson)
+public class ItemDocument {
+    private Long itemId;
+    private String type;  // dtype (B/A/M)
+    private String name;
+    private int price;
+    private Map<String, String> attributes; // 하위 타입 필드 (author, isbn, director, actor, artist, etc)
+
+    private ItemDocument(Long itemId, String type, String name, int price, Map<String, String> attributes) {
+        this.itemId = itemId;
+        this.type = type;
+        this.name = name;
+        this.price = price;
+        this.attributes = attributes;
+    }
+
+    public static ItemDocument of(Item item) {
+        Item target = (Item) Hibernate.unproxy(item);
+        Map<String, String> attributes = new LinkedHashMap<>();
+        String type;
+        if (target instanceof Book book) {
+            type = "B";
+            putIfPresent(attributes, "author", book.getAuthor());
+            putIfPresent(attributes, "isbn", book.getIsbn());
+        } else if (target instanceof Album album) {
+            type = "A";
+            putIfPresent(attributes, "director", album.getDirector());
+            putIfPresent(attributes, "actor", album.getActor());
+        } else if (target instanceof Movie movie) {
+            type = "M";
+            putIfPresent(attributes, "artist", movie.getArtist());
+            putIfPresent(attributes, "etc", movie.getEtc());
+        } else {
+            type = null;
+        }
+        return new ItemDocument(target.getId(), type, target.getName(), target.getPrice(), Map.copyOf(attributes));
+    }
+
+    private static void putIfPresent(Map<String, String> attributes, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            attributes.put(field, value);
+        }
+    }
+}
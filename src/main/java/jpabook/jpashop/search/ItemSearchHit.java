@@ -0,0 +1,12 @@
+package jpabook.jpashop.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ItemSearchHit {
+    private Long itemId;
+    private double score;
+    private ItemDocument item;
+}
@@ -0,0 +1,155 @@
+package jpabook.jpashop.search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 상품 역색인 (토큰 -> 상품별 가중치)
+ * - 토큰은 정렬된 맵(ConcurrentSkipListMap)에 있어서 접두어 검색은 subMap 범위 한 번
+ * - 점수 = 필드 가중치(상품명 > 저자/감독/배우/아티스트/isbn > 기타) x idf, 접두어로만 맞으면 절반
+ * - 검색어 토큰은 전부 맞아야 함(AND)
+ * - 쓰기(put/remove)는 한 번에 하나씩, 읽기는 락 없이 동시에
+ */
+public class ItemSearchIndex {
+    private static final Map<String, Integer> FIELD_WEIGHTS = Map.of(
+            "name", 3,
+            "author", 2, "director", 2, "actor", 2, "artist", 2, "isbn", 2,
+            "etc", 1);
+    private static final double PREFIX_FACTOR = 0.5;
+    private static final int MAX_PREFIX_TERMS = 1000; // 너무 짧은 접두어가 수많은 토큰으로 퍼지지 않게
+
+    private final ConcurrentSkipListMap<String, ConcurrentMap<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Long, ItemDocument> documents = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Integer>> documentTerms = new HashMap<>(); // 수정/삭제 때 예전 토큰을 지우기 위해 (쓰기 락 안에서만 씀)
+
+    public synchronized void put(ItemDocument document) {
+        Long itemId = document.getItemId();
+        Map<String, Integer> terms = termsOf(document);
+        Map<String, Integer> oldTerms = documentTerms.put(itemId, terms);
+        if (oldTerms != null) {
+            oldTerms.keySet().stream()
+                    .filter(term -> !terms.containsKey(term))
+                    .forEach(term -> removePosting(term, itemId));
+        }
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(itemId, weight));
+        documents.put(itemId, document);
+    }
+
+    public synchronized void remove(Long itemId) {
+        Map<String, Integer> oldTerms = documentTerms.remove(itemId);
+        if (oldTerms != null) {
+            oldTerms.keySet().forEach(term -> removePosting(term, itemId));
+        }
+        documents.remove(itemId);
+    }
+
+    public List<ItemSearchHit> search(String query, int limit) {
+        List<String> tokens = Tokenizer.tokenize(query).stream().distinct().toList();
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = null;
+        for (String token : tokens) { // 토큰마다 점수를 구하고 앞 토큰 결과와 교집합
+            Map<Long, Double> tokenScores = score(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((itemId, score) -> score + tokenScores.get(itemId));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(ranking.reversed()); // 상위 limit개만 유지
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.add(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<ItemSearchHit> hits = new ArrayList<>(top.size());
+        top.stream().sorted(ranking).forEach(entry -> {
+            ItemDocument document = documents.get(entry.getKey());
+            if (document != null) { // 검색 도중 삭제된 상품
+                hits.add(new ItemSearchHit(entry.getKey(), entry.getValue(), document));
+            }
+        });
+        return hits;
+    }
+
+    public ItemDocument get(Long itemId) {
+        return documents.get(itemId);
+    }
+
+    public Collection<ItemDocument> documents() {
+        return Collections.unmodifiableCollection(documents.values());
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /** 정확히 맞는 토큰 점수 + 접두어로 맞는 토큰 중 가장 높은 점수 */
+    private Map<Long, Double> score(String token) {
+        Map<Long, Double> exact = new HashMap<>();
+        ConcurrentMap<Long, Integer> posting = postings.get(token);
+        if (posting != null) {
+            double idf = idf(posting.size());
+            posting.forEach((itemId, weight) -> exact.put(itemId, weight * idf));
+        }
+
+        Map<Long, Double> prefix = new HashMap<>();
+        ConcurrentNavigableMap<String, ConcurrentMap<Long, Integer>> expansions =
+                postings.subMap(token, false, token + Character.MAX_VALUE, false);
+        int expanded = 0;
+        for (ConcurrentMap<Long, Integer> expansion : expansions.values()) {
+            if (++expanded > MAX_PREFIX_TERMS) {
+                break;
+            }
+            double idf = idf(expansion.size());
+            expansion.forEach((itemId, weight) -> prefix.merge(itemId, weight * idf * PREFIX_FACTOR, Math::max));
+        }
+
+        prefix.forEach((itemId, score) -> exact.merge(itemId, score, Double::sum));
+        return exact;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (double) Math.max(documents.size(), 1) / documentFrequency);
+    }
+
+    private void removePosting(String term, Long itemId) {
+        postings.computeIfPresent(term, (t, posting) -> {
+            posting.remove(itemId);
+            return posting.isEmpty() ? null : posting;
+        });
+    }
+
+    /** 필드별 토큰 -> 가중치 합 */
+    private static Map<String, Integer> termsOf(ItemDocument document) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, "name", document.getName());
+        document.getAttributes().forEach((field, value) -> addTerms(terms, field, value));
+        String isbn = document.getAttributes().get("isbn");
+        String digits = isbn == null ? "" : isbn.replaceAll("[^0-9Xx]", "").toLowerCase(Locale.ROOT);
+        if (!digits.isEmpty()) { // 978-89-... 처럼 하이픈이 있어도 숫자만 이어서 찾을 수 있게
+            terms.merge(digits, FIELD_WEIGHTS.get("isbn"), Integer::sum);
+        }
+        return terms;
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String field, String value) {
+        int weight = FIELD_WEIGHTS.getOrDefault(field, 1);
+        for (String token : Tokenizer.tokenize(value)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package jpabook.jpashop.search;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 상품 검색 - 검색은 메모리 역색인(ItemSearchIndex)만 보고 DB는 안 거침
+ * - 기동: 스냅샷 파일이 있으면 먼저 읽어서 바로 검색 가능하게 하고, 뒤에서 DB로 다시 만들어서 교체
+ * - 상품 등록/수정(ItemChangedEvent)은 커밋된 뒤에 그 상품만 다시 색인
+ * - 스냅샷은 바뀐게 있을 때만 주기적으로, 그리고 종료할 때 저장 (jpashop.search.snapshot-path가 있을 때만)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchService {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${jpashop.search.snapshot-path:}")
+    private String snapshotPath;
+
+    private volatile ItemSearchIndex index = new ItemSearchIndex();
+    private volatile ItemSearchIndex rebuilding;                     // 재구성 중인 새 색인 (그 사이 바뀐 상품도 같이 넣어줌)
+    private final Set<Long> changedWhileRebuilding = ConcurrentHashMap.newKeySet(); // 재구성이 예전 값으로 덮어쓰지 않게
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public List<ItemSearchHit> search(String query, int limit) {
+        return index.search(query, Math.min(Math.max(limit, 1), 100));
+    }
+
+    /** 색인에 있는 상품 (DB 안 거침), 없으면 null */
+    public ItemDocument findDocument(Long itemId) {
+        return index.get(itemId);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loadSnapshot();
+        Thread rebuilder = new Thread(this::rebuild, "item-search-rebuild");
+        rebuilder.setDaemon(true);
+        rebuilder.start();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        Item item = itemRepository.findOne(event.getItemId()); // 커밋 직후라 방금 바뀐 엔티티가 그대로 나옴
+        ItemSearchIndex next = rebuilding;
+        if (next != null) {
+            changedWhileRebuilding.add(event.getItemId());
+        }
+        if (item == null) {
+            index.remove(event.getItemId());
+            if (next != null) {
+                next.remove(event.getItemId());
+            }
+        } else {
+            ItemDocument document = ItemDocument.of(item);
+            index.put(document);
+            if (next != null) {
+                next.put(document);
+            }
+        }
+        dirty.set(true);
+    }
+
+    /** DB 전체 상품으로 새 색인을 만들어서 교체 - item id 커서로 페이지마다 짧은 읽기 트랜잭션 */
+    public synchronized void rebuild() {
+        ItemSearchIndex next = new ItemSearchIndex();
+        changedWhileRebuilding.clear();
+        rebuilding = next;
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            Long cursor = null;
+            while (true) {
+                Long after = cursor;
+                List<ItemDocument> page = readOnly.execute(status -> itemRepository.findPage(after, REBUILD_PAGE_SIZE)
+                        .stream().map(ItemDocument::of).toList());
+                for (ItemDocument document : page) {
+                    if (!changedWhileRebuilding.contains(document.getItemId())) {
+                        next.put(document);
+                    }
+                }
+                if (page.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+                cursor = page.get(page.size() - 1).getItemId();
+            }
+            index = next;
+            dirty.set(true);
+            log.info("item search index rebuilt. items={}", next.size());
+        } catch (RuntimeException e) {
+            log.warn("item search index rebuild failed, keep current index. items={}", index.size(), e);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.search.snapshot-interval:60000}")
+    public void saveSnapshotIfDirty() {
+        if (!snapshotPath.isBlank() && dirty.compareAndSet(true, false)) {
+            saveSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void saveSnapshotOnShutdown() {
+        saveSnapshotIfDirty();
+    }
+
+    /** 임시 파일에 쓰고 이름만 바꿔서, 쓰다가 죽어도 예전 스냅샷은 멀쩡하게 */
+    private void saveSnapshot() {
+        Path path = Path.of(snapshotPath);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(temp.toFile(), List.copyOf(index.documents()));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("item search snapshot save failed. path={}", path, e);
+        }
+    }
+
+    private void loadSnapshot() {
+        if (snapshotPath.isBlank() || !Files.exists(Path.of(snapshotPath))) {
+            return;
+        }
+        try {
+            List<ItemDocument> documents = objectMapper.readValue(Path.of(snapshotPath).toFile(), new TypeReference<>() {});
+            ItemSearchIndex loaded = new ItemSearchIndex();
+            documents.forEach(loaded::put);
+            index = loaded;
+            log.info("item search snapshot loaded. items={}", loaded.size());
+        } catch (IOException e) {
+            log.warn("item search snapshot load failed, wait for rebuild. path={}", snapshotPath, e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package jpabook.jpashop.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 글자/숫자가 아닌 문자로 자르고 소문자로 바꿈 (한글도 글자라 공백 기준 어절 단위가 됨)
+ * 형태소 분석은 안 해서 "소설책"은 접두어 검색("소설")으로 찾음
+ */
+final class Tokenizer {
+    private Tokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Item;
+import lombok.Getter;
+
+/** 상품 목록 스냅샷에 들어가는 불변 DTO - 여러 요청이 공유하기 때문에 엔티티를 그대로 담지 않음 */
+@Getter
+public class CatalogItem {
+    private final Long id;
+    private final String name;
+    private final int price;
+    private final int stockQuantity;
+
+    public CatalogItem(Item item, int stockQuantity) {
+        this.id = item.getId();
+        this.name = item.getName();
+        this.price = item.getPrice();
+        this.stockQuantity = stockQuantity;
+    }
+}
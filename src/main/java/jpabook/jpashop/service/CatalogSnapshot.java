@@ -0,0 +1,102 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.event.StockChangedEvent;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상품 목록 스냅샷
+ * - 상품 수정이 커밋되면 버전만 올리고, 다음 조회 때 한 번 다시 만듦 (그 전까지는 쿼리 없이 재사용)
+ * - 재고 변경은 주문마다 일어나서 바로 버전을 올리면 304가 거의 안 나옴
+ *   ➡️ 표시만 해두고 stock-refresh-interval 에 한 번만 버전을 올림 (목록의 재고는 그만큼 늦게 보일 수 있음)
+ * - 스냅샷의 ETag는 조회 전에 읽은 버전이라 내용이 ETag보다 새로울 수는 있어도 오래될 수는 없음
+ *   (그 사이 바뀐 건 버전이 이미 올라가 있어서 다음 재검증 때 200으로 다시 받음)
+ * - ETag는 기동 시각 + 버전이라 재시작 후에 예전 ETag가 우연히 맞는 일이 없음
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogSnapshot {
+    private final ItemRepository itemRepository;
+    private final StockLedger stockLedger;
+
+    @Value("${jpashop.catalog.stock-refresh-interval:5s}")
+    private Duration stockRefreshInterval;
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong(1);
+    private final AtomicBoolean stockChanged = new AtomicBoolean();
+    private volatile long stockVersionAt = System.nanoTime(); // 재고 때문에 마지막으로 버전을 올린 시각
+    private volatile Snapshot snapshot;
+
+    /** 지금 버전의 스냅샷 - 버전이 그대로면 쿼리 없이 재사용 (304 판단도 이 스냅샷의 ETag로) */
+    @Transactional(readOnly = true)
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        long currentVersion = currentVersion(); // 조회 전에 읽어야 조회 중에 바뀐 건 다음 요청에서 다시 만듦
+        if (current != null && current.version == currentVersion) {
+            return current;
+        }
+        List<CatalogItem> items = itemRepository.findAll().stream()
+                .map(item -> new CatalogItem(item, stockOf(item.getId(), item.getStockQuantity())))
+                .toList();
+        Snapshot rebuilt = new Snapshot(currentVersion, eTag(currentVersion), items);
+        if (current == null || current.version < currentVersion) { // 늦게 끝난 예전 버전이 새 스냅샷을 덮지 않게
+            snapshot = rebuilt;
+        }
+        return rebuilt;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        stockChanged.set(true);
+    }
+
+    /** 재고가 바뀌었고 stock-refresh-interval 이 지났으면 그때 한 번 버전을 올림 */
+    private long currentVersion() {
+        if (stockChanged.get() && System.nanoTime() - stockVersionAt >= stockRefreshInterval.toNanos()
+                && stockChanged.compareAndSet(true, false)) {
+            stockVersionAt = System.nanoTime();
+            return version.incrementAndGet();
+        }
+        return version.get();
+    }
+
+    /** LEDGER 모드면 아직 DB에 반영 안된 예약까지 포함된 원장 재고를 보여줌 */
+    private int stockOf(Long itemId, int dbStock) {
+        int available = stockLedger.getAvailable(itemId);
+        return available >= 0 ? available : dbStock;
+    }
+
+    private String eTag(long version) {
+        return "\"catalog-" + epoch + "-" + version + "\"";
+    }
+
+    @Getter
+    public static class Snapshot {
+        private final long version;
+        private final String eTag;
+        private final List<CatalogItem> items;
+
+        Snapshot(long version, String eTag, List<CatalogItem> items) {
+            this.version = version;
+            this.eTag = eTag;
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/** 카테고리 트리 스냅샷의 노드 - 만들고 나면 바뀌지 않음 */
+@Getter
+public class CategoryNode {
+    private final Long categoryId;
+    private final String name;
+    private final List<CategoryNode> children;
+
+    CategoryNode(Long categoryId, String name, List<CategoryNode> children) {
+        this.categoryId = categoryId;
+        this.name = name;
+        this.children = children;
+    }
+}
@@ -0,0 +1,69 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.CategoryChangedEvent;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.category.CategoryItemDto;
+import jpabook.jpashop.repository.category.CategoryQueryDto;
+import jpabook.jpashop.repository.category.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** 카테고리 생성 - parentId가 있으면 그 밑에 붙임 (클로저 테이블도 같이 채워짐) */
+    @Transactional
+    public Long create(String name, Long parentId) {
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            findCategory(parentId).addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+        return category.getId();
+    }
+
+    /** 서브트리째로 다른 부모 밑으로 이동 */
+    @Transactional
+    public void move(Long categoryId, Long parentId) {
+        findCategory(parentId).addChildCategory(findCategory(categoryId));
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+    }
+
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        Item item = itemRepository.findOne(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("상품이 존재하지 않습니다. id=" + itemId);
+        }
+        findCategory(categoryId).getItems().add(item);
+    }
+
+    public List<CategoryQueryDto> findDescendants(Long categoryId, int offset, int limit) {
+        return categoryRepository.findDescendants(categoryId, Math.max(offset, 0), Math.min(Math.max(limit, 1), 1000));
+    }
+
+    public List<CategoryItemDto> findSubtreeItems(Long categoryId, Long cursor, int limit) {
+        return categoryRepository.findSubtreeItems(categoryId, cursor, limit);
+    }
+
+    private Category findCategory(Long categoryId) {
+        Category category = categoryRepository.findOne(categoryId);
+        if (category == null) {
+            throw new IllegalArgumentException("카테고리가 존재하지 않습니다. id=" + categoryId);
+        }
+        return category;
+    }
+}
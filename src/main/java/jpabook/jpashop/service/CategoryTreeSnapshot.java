@@ -0,0 +1,78 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.event.CategoryChangedEvent;
+import jpabook.jpashop.repository.category.CategoryQueryDto;
+import jpabook.jpashop.repository.category.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 메뉴용 카테고리 트리 스냅샷
+ * - 전체 카테고리를 쿼리 한 번으로 읽어서 메모리에서 트리로 조립
+ * - 카테고리가 바뀌어 커밋되면 버전만 올리고 다음 조회 때 다시 만듦 (CatalogSnapshot과 같은 방식)
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeSnapshot {
+    private final CategoryRepository categoryRepository;
+
+    private final AtomicLong version = new AtomicLong(1);
+    private volatile Tree tree;
+
+    @Transactional(readOnly = true)
+    public List<CategoryNode> getRoots() {
+        Tree current = tree;
+        long currentVersion = version.get();
+        if (current != null && current.version == currentVersion) {
+            return current.roots;
+        }
+        List<CategoryNode> roots = build(categoryRepository.findAllFlat());
+        tree = new Tree(currentVersion, roots);
+        return roots;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    private static List<CategoryNode> build(List<CategoryQueryDto> categories) {
+        Map<Long, List<CategoryQueryDto>> byParent = new HashMap<>();
+        List<CategoryQueryDto> roots = new ArrayList<>();
+        for (CategoryQueryDto category : categories) { // id 순서라 형제끼리도 id 순서가 유지됨
+            if (category.getParentId() == null) {
+                roots.add(category);
+            } else {
+                byParent.computeIfAbsent(category.getParentId(), id -> new ArrayList<>()).add(category);
+            }
+        }
+        return toNodes(roots, byParent);
+    }
+
+    private static List<CategoryNode> toNodes(List<CategoryQueryDto> categories, Map<Long, List<CategoryQueryDto>> byParent) {
+        List<CategoryNode> nodes = new ArrayList<>(categories.size());
+        for (CategoryQueryDto category : categories) {
+            List<CategoryQueryDto> children = byParent.getOrDefault(category.getCategoryId(), List.of());
+            nodes.add(new CategoryNode(category.getCategoryId(), category.getName(), toNodes(children, byParent)));
+        }
+        return List.copyOf(nodes);
+    }
+
+    private static class Tree {
+        private final long version;
+        private final List<CategoryNode> roots;
+
+        Tree(long version, List<CategoryNode> roots) {
+            this.version = version;
+            this.roots = roots;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.shard.ShardDirectory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 그룹 커밋 주문 저장 (jpashop.order.group-commit.enabled=true 일 때)
+ * 동시에 들어온 주문들을 큐에 모았다가 writer 스레드가 한 트랜잭션, 한 JDBC batch로 저장함
+ * - 커밋 횟수가 줄어들어서 피크 때 커밋 지연에 묶이지 않음
+ * - 각 주문은 따로 성공/실패하고, 호출한 쪽은 자기 주문 id나 예외를 그대로 받음
+ * 꺼져 있으면 기존처럼 OrderService.order로 주문 하나당 트랜잭션 하나
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GroupCommitOrderWriter {
+    private final OrderService orderService;
+    private final OrderPlacer orderPlacer;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shardDirectory;
+
+    @Value("${jpashop.order.group-commit.enabled:false}")
+    private boolean enabled;
+    @Value("${jpashop.order.group-commit.max-batch-size:100}")
+    private int maxBatchSize;
+    @Value("${jpashop.order.group-commit.max-wait:5}")
+    private long maxWaitMillis;
+    @Value("${jpashop.order.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<PendingOrder> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (enabled && shardDirectory.isEnabled()) { // 샤딩하면 주문마다 저장할 샤드가 달라서 한 트랜잭션으로 묶을 수 없음
+            log.warn("group commit is disabled while order sharding is enabled");
+            enabled = false;
+        }
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::run, "order-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    /** 주문 - 주문이 커밋(또는 실패)될 때까지 기다렸다가 주문 id를 돌려줌 */
+    public Long order(Long memberId, List<OrderLine> orderLines) {
+        if (!enabled) {
+            return orderService.order(memberId, orderLines);
+        }
+
+        PendingOrder pendingOrder = new PendingOrder(memberId, orderLines);
+        if (!running || !queue.offer(pendingOrder)) { // 큐가 꽉 차면 바로 거절해서 대기열이 무한히 늘어나지 않게 함
+            throw new IllegalStateException("주문이 몰리고 있습니다. 잠시 후 다시 시도해주세요.");
+        }
+        try {
+            return pendingOrder.result.get(); // 큐에 들어간 주문은 writer가 반드시 완료 처리함
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("주문 대기 중 인터럽트 되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void run() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batch.size() < maxBatchSize) { // 최대 max-wait 동안 max-batch-size 까지 모음
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(p -> p.result.completeExceptionally(new IllegalStateException("주문 저장이 중단되었습니다.")));
+                break;
+            } catch (RuntimeException e) {
+                log.error("group commit writer failed", e);
+                batch.forEach(p -> p.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+
+        // 종료될 때 남은 주문은 실패 처리
+        List<PendingOrder> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        batch.addAll(rest);
+        batch.forEach(p -> p.result.completeExceptionally(new IllegalStateException("주문 저장이 중단되었습니다.")));
+    }
+
+    /**
+     * 한 트랜잭션으로 저장 - 어떤 주문이 실패하면 그 주문만 실패 처리하고 트랜잭션은 롤백한 뒤 나머지로 다시 시도함
+     * 실패한 주문이 남긴 변경(앞 상품의 재고 차감, rollback-only 표시)이 같이 묶인 주문에 섞이지 않음
+     * (savepoint는 영속성 컨텍스트를 되돌리지 않기 때문에 쓰지 않음) 실패가 드물다는 가정이라 실패한 만큼 다시 씀
+     */
+    private void write(List<PendingOrder> batch) {
+        List<PendingOrder> remaining = new ArrayList<>(batch);
+        while (!remaining.isEmpty()) {
+            Map<PendingOrder, Order> placed = new LinkedHashMap<>();
+            List<PendingOrder> failed = new ArrayList<>(1);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (PendingOrder pendingOrder : remaining) {
+                        try {
+                            placed.put(pendingOrder, orderPlacer.place(pendingOrder.memberId, pendingOrder.orderLines));
+                        } catch (RuntimeException e) { // 이 주문만 실패, 나머지는 롤백 후 다시
+                            pendingOrder.result.completeExceptionally(e);
+                            failed.add(pendingOrder);
+                            status.setRollbackOnly();
+                            return;
+                        }
+                    }
+                });
+            } catch (RuntimeException e) { // 커밋 자체가 실패하면 같이 묶인 주문은 모두 실패
+                remaining.forEach(p -> p.result.completeExceptionally(e));
+                return;
+            }
+            if (failed.isEmpty()) {
+                placed.forEach((pendingOrder, order) -> pendingOrder.result.complete(order.getId()));
+                return;
+            }
+            remaining.removeAll(failed);
+        }
+    }
+
+    private static class PendingOrder {
+        private final Long memberId;
+        private final List<OrderLine> orderLines;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        PendingOrder(Long memberId, List<OrderLine> orderLines) {
+            this.memberId = memberId;
+            this.orderLines = orderLines;
+        }
+    }
+}
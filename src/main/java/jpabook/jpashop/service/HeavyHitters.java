@@ -0,0 +1,155 @@
+package jpabook.jpashop.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 슬라이딩 시간 창 heavy hitter (많이 팔린 상품 상위 K개 근사)
+ * - 시간 창을 bucketCount개의 bucket으로 나누고, bucket마다 count-min sketch + 후보 상품 집합(최대 candidates개)을 둠
+ * - 추가는 해시 depth번 + 후보 갱신이라 상품 수와 상관없이 일정한 비용, bucket은 시간이 지나면 링에서 덮어써져서 자연히 빠짐
+ * - 조회는 창 안 bucket 후보들을 모아서 sketch 합으로 다시 추정하고 정렬 (추정값은 실제보다 크거나 같음)
+ * - 취소는 원래 주문 시각의 bucket이 아직 창 안에 있을 때만 빼줌
+ */
+public class HeavyHitters {
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int width;
+    private final int depth;
+    private final int candidates;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    public HeavyHitters(long bucketMillis, int bucketCount, int width, int depth, int candidates) {
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+        this.width = width;
+        this.depth = depth;
+        this.candidates = candidates;
+        this.ring = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    /** 상품 판매 수량 추가 (취소는 음수), eventMillis는 주문 시각 */
+    public void add(long itemId, long quantity, long eventMillis, long nowMillis) {
+        long slot = eventMillis / bucketMillis;
+        long current = nowMillis / bucketMillis;
+        if (slot <= current - bucketCount || slot > current) { // 이미 창 밖으로 나간 시각
+            return;
+        }
+        Bucket bucket = bucket(slot, quantity > 0);
+        if (bucket == null) {
+            return;
+        }
+        long estimate = bucket.add(itemId, quantity);
+        if (quantity > 0) {
+            bucket.offer(itemId, estimate);
+        }
+    }
+
+    /** 창 안에서 많이 팔린 순서로 limit개 - [item id, 추정 수량] */
+    public List<long[]> top(int limit, long nowMillis) {
+        long current = nowMillis / bucketMillis;
+        List<Bucket> window = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.slot > current - bucketCount && bucket.slot <= current) {
+                window.add(bucket);
+            }
+        }
+        Set<Long> itemIds = new HashSet<>();
+        window.forEach(bucket -> itemIds.addAll(bucket.candidates.keySet()));
+
+        List<long[]> ranked = new ArrayList<>(itemIds.size());
+        for (Long itemId : itemIds) {
+            long estimate = estimate(window, itemId);
+            if (estimate > 0) {
+                ranked.add(new long[]{itemId, estimate});
+            }
+        }
+        ranked.sort(Comparator.<long[]>comparingLong(r -> r[1]).reversed().thenComparingLong(r -> r[0]));
+        return ranked.subList(0, Math.min(limit, ranked.size()));
+    }
+
+    /** 행마다 bucket들의 카운터를 더한 뒤 행들 중 최솟값 */
+    private long estimate(List<Bucket> window, long itemId) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = column(itemId, row);
+            long sum = 0;
+            for (Bucket bucket : window) {
+                sum += bucket.counters.get(row * width + column);
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    private Bucket bucket(long slot, boolean create) {
+        int index = (int) Math.floorMod(slot, (long) bucketCount);
+        while (true) {
+            Bucket bucket = ring.get(index);
+            if (bucket != null && bucket.slot == slot) {
+                return bucket;
+            }
+            if (bucket != null && bucket.slot > slot) { // 이미 더 최근 bucket으로 바뀜
+                return null;
+            }
+            if (!create) {
+                return null;
+            }
+            Bucket fresh = new Bucket(slot);
+            if (ring.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int column(long itemId, int row) {
+        long h = itemId * 0x9E3779B97F4A7C15L + row * 0xC2B2AE3D27D4EB4FL; // 행마다 다른 해시
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) width);
+    }
+
+    private final class Bucket {
+        private final long slot;
+        private final AtomicLongArray counters = new AtomicLongArray(width * depth);
+        private final Map<Long, Long> candidates = new ConcurrentHashMap<>(); // item id -> 이 bucket에서의 추정값
+        private volatile long candidateFloor; // 후보가 꽉 찼을 때 가장 작은 추정값 (이보다 작으면 락 없이 바로 버림)
+
+        Bucket(long slot) {
+            this.slot = slot;
+        }
+
+        long add(long itemId, long quantity) {
+            long min = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                min = Math.min(min, counters.addAndGet(row * width + column(itemId, row), quantity));
+            }
+            return min;
+        }
+
+        void offer(long itemId, long estimate) {
+            if (candidates.containsKey(itemId)) {
+                candidates.put(itemId, estimate);
+                return;
+            }
+            if (estimate <= candidateFloor) {
+                return;
+            }
+            synchronized (this) {
+                if (candidates.size() < HeavyHitters.this.candidates) {
+                    candidates.put(itemId, estimate);
+                    return;
+                }
+                Map.Entry<Long, Long> smallest = Collections.min(candidates.entrySet(), Map.Entry.comparingByValue());
+                if (smallest.getValue() < estimate) {
+                    candidates.remove(smallest.getKey());
+                    candidates.put(itemId, estimate);
+                }
+                candidateFloor = Collections.min(candidates.values());
+            }
+        }
+    }
+}
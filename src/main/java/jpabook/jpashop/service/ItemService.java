@@ -2,8 +2,10 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.ItemChangedEvent;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,10 +16,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemService {
     private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void saveItem(Item item) {
+        if(item.getId() != null) { // merge는 재고까지 덮어쓰기 때문에 재고 원장도 비워줘야함
+            stockService.stockOverwritten(item.getId());
+        }
         itemRepository.save(item);
+        eventPublisher.publishEvent(new ItemChangedEvent(item.getId())); // 신규 상품은 persist 후에 id가 생김
     }
 
     /** 변경 감지 **/
@@ -27,6 +35,8 @@ public class ItemService {
         findItem.setPrice(param.getPrice()); // 데이터 수정
         findItem.setName(param.getName());
         findItem.setStockQuantity(param.getStockQuantity());
+        stockService.stockOverwritten(itemId);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
     }
 
     public List<Item> findItems() {
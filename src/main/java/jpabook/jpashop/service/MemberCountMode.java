@@ -0,0 +1,6 @@
+package jpabook.jpashop.service;
+
+/** 회원 목록 전체 건수 - NONE(안 셈) / EXACT(count 쿼리) / APPROX(주기적으로 갱신하는 캐시 값) */
+public enum MemberCountMode {
+    NONE, EXACT, APPROX
+}
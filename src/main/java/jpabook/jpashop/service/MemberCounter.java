@@ -0,0 +1,51 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 대략적인 회원 수
+ * - refresh-interval 마다 한 스레드만 count 쿼리를 다시 실행하고, 나머지는 그동안 캐시 값을 그대로 씀
+ * - 사이에 가입한 회원은 increment로 더해줌 (롤백된 가입은 다음 갱신 때 맞춰짐)
+ * - 아직 한 번도 못 구한 상태(기동 직후)에 갱신 중인 스레드를 만난 요청은 0 대신 직접 count 쿼리를 실행함
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberCounter {
+    private final MemberQueryRepository memberQueryRepository;
+
+    @Value("${jpashop.member.count.refresh-interval:60s}")
+    private Duration refreshInterval;
+
+    private final AtomicLong count = new AtomicLong(-1);
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long refreshedAt;
+
+    public long approximateCount() {
+        long cached = count.get();
+        boolean stale = System.nanoTime() - refreshedAt > refreshInterval.toNanos();
+        if ((cached < 0 || stale) && refreshing.compareAndSet(false, true)) {
+            try {
+                cached = memberQueryRepository.count();
+                count.set(cached);
+                refreshedAt = System.nanoTime();
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        if (cached < 0) { // 처음 갱신이 아직 안 끝남 - 기다리지 않고 직접 셈
+            return memberQueryRepository.count();
+        }
+        return cached;
+    }
+
+    public void increment() {
+        count.getAndUpdate(c -> c < 0 ? c : c + 1);
+    }
+}
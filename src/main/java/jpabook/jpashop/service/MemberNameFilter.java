@@ -0,0 +1,127 @@
+package jpabook.jpashop.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * 가입된 회원 이름 블룸 필터
+ * - mightContain이 false면 그 이름은 확실히 없음 ➡️ 가입할 때 중복 확인 쿼리를 생략함
+ * - true는 "있을 수도 있음"이라 DB(unique 인덱스)에서 다시 확인함 (기본 오탐률 1%)
+ * - 비트는 AtomicLongArray라 락 없이 여러 가입 스레드가 동시에 put 해도 됨
+ * - 재구성 중에는 항상 true를 돌려줘서 DB로 확인함, 그 사이 놓친 경우도 unique 제약조건이 막아줌
+ */
+@Component
+public class MemberNameFilter {
+
+    @Value("${jpashop.member.name-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jpashop.member.name-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${jpashop.member.name-filter.fpp:0.01}")
+    private double fpp;
+
+    private volatile Bits bits;       // null이면 아직 재구성 전
+    private volatile Bits rebuilding; // 재구성 중인 새 필터 (그 사이 가입한 이름도 같이 넣어줌)
+
+    public boolean mightContain(String name) {
+        Bits current = bits;
+        if (!enabled || current == null || rebuilding != null) {
+            return true;
+        }
+        return current.mightContain(name);
+    }
+
+    public void put(String name) {
+        Bits current = bits;
+        if (current != null) {
+            current.put(name);
+        }
+        Bits next = rebuilding;
+        if (next != null) {
+            next.put(name);
+        }
+    }
+
+    /** names(전체 회원 이름)로 새 필터를 만들어서 통째로 교체 */
+    public synchronized void rebuild(Stream<String> names) {
+        Bits next = Bits.create(Math.max(expectedInsertions, 1), fpp);
+        rebuilding = next;
+        try {
+            names.forEach(next::put);
+            bits = next;
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitSize;
+        private final int hashCount;
+
+        private Bits(long bitSize, int hashCount) {
+            this.words = new AtomicLongArray((int) ((bitSize + 63) >>> 6));
+            this.bitSize = (long) words.length() << 6;
+            this.hashCount = hashCount;
+        }
+
+        /** m = -n ln p / (ln 2)^2, k = m/n ln 2 */
+        static Bits create(long expectedInsertions, double fpp) {
+            long bitSize = (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            bitSize = Math.min(Math.max(bitSize, 64), (long) Integer.MAX_VALUE << 6);
+            int hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+            return new Bits(bitSize, hashCount);
+        }
+
+        void put(String name) {
+            long hash = hash(name);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) { // 해시 두 개를 조합해서 k개 위치를 만듦 (double hashing)
+                long index = Math.floorMod(h1 + (long) i * h2, bitSize);
+                long mask = 1L << index;
+                int word = (int) (index >>> 6);
+                long current;
+                while (((current = words.get(word)) & mask) == 0) {
+                    if (words.compareAndSet(word, current, current | mask)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        boolean mightContain(String name) {
+            long hash = hash(name);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = Math.floorMod(h1 + (long) i * h2, bitSize);
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** FNV-1a 64 + murmur3 fmix64 */
+        private static long hash(String name) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93fe1a5ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
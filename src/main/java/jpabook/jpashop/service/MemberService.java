@@ -2,11 +2,19 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.member.query.MemberPage;
+import jpabook.jpashop.repository.member.query.MemberQueryDto;
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true) // readOnly=true 조회 성능 최적화(읽기 전용이니까 리소스 많이 쓰지말고)!
@@ -14,6 +22,9 @@ import java.util.List;
 public class MemberService {
 //    @Autowired // 변경이 불가능한 단점이 있음!
     private final MemberRepository memberRepository; // final 적어주면 컴파일 시점 체크가 가능함
+    private final MemberQueryRepository memberQueryRepository;
+    private final MemberCounter memberCounter;
+    private final MemberNameFilter memberNameFilter;
 
     // 스프링이 뜰 때 생성자에서 injection을 해줌, 장점은 테스트케이스 작성할 때 주입해야할거를 안놓치고
     // 생성시점에 어떤 값이 필요해(의존하고 있어)라고 명확하게 알 수 있음
@@ -29,23 +40,53 @@ public class MemberService {
     // 회원가입
     @Transactional // 데이터 변경하는건 꼭 트랜젝션이 있어야함!⭐ public 메소드들은 다 걸림
     public Long join(Member member) {
-        validateDuplicateMember(member); // 중복 회원 검증
-        memberRepository.save(member);
+        validateDuplicateName(member.getName()); // 중복 회원 검증
+        try {
+            memberRepository.saveAndFlush(member);
+        } catch (DataIntegrityViolationException e) { // 동시에 같은 이름으로 가입해서 검증을 같이 통과한 경우 (uk_member_name)
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+        memberNameFilter.put(member.getName());
+        memberCounter.increment();
         return member.getId();
     }
 
-    private void validateDuplicateMember(Member member) {
+    private void validateDuplicateName(String name) {
         //EXCEPTION
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if(!findMembers.isEmpty()) {
+        if (!memberNameFilter.mightContain(name)) { // 필터에 없으면 확실히 새 이름 ➡️ 쿼리 생략
+            return;
+        }
+        if (memberRepository.existsByName(name)) { // 엔티티 목록 대신 unique 인덱스에서 한 건만 확인
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    /** 기동이 끝나면 전체 회원 이름으로 이름 필터를 채움 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildNameFilter() {
+        try (Stream<String> names = memberRepository.streamAllNames(1000)) {
+            memberNameFilter.rebuild(names);
+        }
+    }
+
     // 회원 전체 조회
     public List<Member> findMembers() {
         return memberRepository.findAll();
     }
+
+    /** 회원 목록 페이지 - DTO로 필요한 컬럼만 조회, 전체 건수는 countMode에 따라 따로 구함 */
+    public MemberPage findMemberPage(Long cursor, int limit, MemberCountMode countMode) {
+        int size = Math.min(Math.max(limit, 1), 1000);
+        List<MemberQueryDto> members = memberQueryRepository.findPage(cursor, size);
+        Long nextCursor = members.size() < size ? null : members.get(members.size() - 1).getMemberId();
+        Long totalCount = switch (countMode) {
+            case EXACT -> memberQueryRepository.count();
+            case APPROX -> memberCounter.approximateCount();
+            case NONE -> null;
+        };
+        return new MemberPage(members, nextCursor, totalCount);
+    }
+
     public Member findOne(Long memberId) {
         return memberRepository.findOne(memberId);
     }
@@ -53,7 +94,17 @@ public class MemberService {
     @Transactional
     public void update(Long id, String name) { // 변경 감지
         Member member = memberRepository.findOne(id);
+        if (Objects.equals(member.getName(), name)) { // 이름이 그대로면 중복 확인할 것도 없음
+            return;
+        }
+        validateDuplicateName(name); // 가입할 때와 같은 중복 검증
         member.setName(name);
+        try {
+            memberRepository.flush(); // 커밋 때가 아니라 여기서 update를 날려서 unique 제약조건 위반을 바로 확인
+        } catch (DataIntegrityViolationException e) { // 동시에 같은 이름으로 바꿔서 검증을 같이 통과한 경우 (uk_member_name)
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+        memberNameFilter.put(name); // 예전 이름은 필터에 남지만 DB에서 한 번 더 확인하는 것뿐이라 괜찮음
     }// 영속 상태의 멤버를 setName으로 바꿔주고 이 메소드가 종료되면 @Transactional에 의해서 트랜잭션 관련된 AOP가 딱 끝나는 시점에
      // 트랜잭션 커밋이 된다 그때 JPA가 플러쉬하고 영속성 컨텍스트 다 커밋 해버림
 }
@@ -0,0 +1,52 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** 주문 대량 등록 진행 상황 (다른 요청에서 조회 가능) */
+@Getter
+public class OrderImportJob {
+    private static final int MAX_ERRORS = 100; // 에러 메세지는 앞에서부터 이만큼만 보관
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private final Long id;
+    private final String format;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+    private volatile Status status = Status.RUNNING;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong ordersImported = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+
+    public OrderImportJob(Long id, String format) {
+        this.id = id;
+        this.format = format;
+    }
+
+    void rowFailed(long lineNumber, String message) {
+        rowsFailed.incrementAndGet();
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("line " + lineNumber + ": " + message);
+        }
+    }
+
+    void finish(Status status) {
+        this.status = status;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    /** 초당 처리한 행 수 */
+    public long getRowsPerSecond() {
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return rowsRead.get() * 1000 / millis;
+    }
+}
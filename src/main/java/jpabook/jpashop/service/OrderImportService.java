@@ -0,0 +1,297 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.OrderPlacedEvent;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderRepository;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 다른 채널의 주문을 대량으로 등록 (백필)
+ * - 요청 바디를 한 줄씩 읽기 때문에 전체 payload를 메모리에 올리지 않음
+ * - chunk-size 만큼 모아서 회원/상품은 in 쿼리로 한 번에 조회하고, JDBC batch로 저장한 뒤 flush/clear
+ *   ➡️ 몇백만 건을 넣어도 힙 사용량이 일정함
+ * - 이미 다른 채널에서 처리된 주문이라 재고는 건드리지 않음
+ * - 등록은 import 전용 스레드(threads 개)에서 돌고, 다 차 있으면 바로 거절함
+ * - 끝난 작업은 job-retention 이 지나거나 max-finished-jobs 개를 넘으면 오래된 것부터 지움
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderImportService {
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private final MemberRepository memberRepository;
+    private final ItemRepository itemRepository;
+    private final OrderRepository orderRepository;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${jpashop.order.import.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${jpashop.order.import.threads:2}")
+    private int threads;
+    @Value("${jpashop.order.import.job-retention:1h}")
+    private Duration jobRetention;
+    @Value("${jpashop.order.import.max-finished-jobs:100}")
+    private int maxFinishedJobs;
+
+    private final AtomicLong jobSequence = new AtomicLong();
+    private final Map<Long, OrderImportJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService importExecutor;
+
+    @PostConstruct
+    public void start() {
+        // 큐 없이 스레드 수만큼만 받음 - 기다리는 동안에도 요청 바디(커넥션)를 잡고 있게 되기 때문
+        importExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "order-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+    }
+
+    /**
+     * importOrders를 import 전용 스레드에서 - 요청 스레드는 바로 돌려주고(async 요청), 바디는 응답이 끝날 때까지 읽을 수 있음
+     * import 스레드가 다 차 있으면 RejectedExecutionException
+     */
+    public CompletableFuture<OrderImportJob> importOrdersAsync(InputStream body, String format) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return importOrders(body, format);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, importExecutor);
+    }
+
+    /**
+     * 한 줄에 주문 하나
+     * ndjson : {"memberId":1,"orderDate":"2024-01-01T10:00:00","orderLines":[{"itemId":2,"count":3}]}
+     * csv    : memberId,itemId,count[,orderDate] (첫 줄이 헤더면 건너뜀)
+     */
+    public OrderImportJob importOrders(InputStream body, String format) throws IOException {
+        OrderImportJob job = new OrderImportJob(jobSequence.incrementAndGet(), format);
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.getRowsRead().incrementAndGet();
+                try {
+                    ImportRow row = NDJSON.equals(format) ? parseJson(line) : parseCsv(line);
+                    if (row == null) { // csv 헤더
+                        job.getRowsRead().decrementAndGet();
+                        continue;
+                    }
+                    row.setLineNumber(lineNumber);
+                    chunk.add(row);
+                } catch (RuntimeException | IOException e) {
+                    job.rowFailed(lineNumber, "parse error - " + e.getMessage());
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, job);
+                    chunk.clear();
+                }
+            }
+            writeChunk(chunk, job);
+            job.finish(OrderImportJob.Status.COMPLETED);
+        } catch (IOException | RuntimeException e) {
+            log.error("order import failed. job={}", job.getId(), e);
+            job.finish(OrderImportJob.Status.FAILED);
+            throw e;
+        }
+        return job;
+    }
+
+    public OrderImportJob findJob(Long jobId) {
+        return jobs.get(jobId);
+    }
+
+    public List<OrderImportJob> findJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(OrderImportJob::getId).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /** 끝난 작업 정리 - 새 작업이 들어올 때만 늘어나기 때문에 그때 같이 지움 */
+    private void evictFinishedJobs() {
+        LocalDateTime expiredAt = LocalDateTime.now().minus(jobRetention);
+        List<OrderImportJob> finished = jobs.values().stream()
+                .filter(j -> j.getFinishedAt() != null)
+                .sorted(Comparator.comparing(OrderImportJob::getId))
+                .collect(Collectors.toList());
+        int overflow = finished.size() - maxFinishedJobs + 1; // 새로 들어올 작업이 끝났을 때도 max를 넘지 않게
+        for (OrderImportJob job : finished) {
+            if (overflow-- > 0 || job.getFinishedAt().isBefore(expiredAt)) {
+                jobs.remove(job.getId());
+            }
+        }
+    }
+
+    private void writeChunk(List<ImportRow> chunk, OrderImportJob job) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        int imported = transactionTemplate.execute(status -> {
+            Set<Long> memberIds = new HashSet<>();
+            Set<Long> itemIds = new HashSet<>();
+            for (ImportRow row : chunk) {
+                memberIds.add(row.getMemberId());
+                row.getOrderLines().forEach(l -> itemIds.add(l.getItemId()));
+            }
+            // chunk 안의 회원, 상품은 in 쿼리로 한 번씩만 조회
+            Map<Long, Member> members = memberRepository.findAllByIds(memberIds).stream()
+                    .collect(Collectors.toMap(Member::getId, Function.identity()));
+            Map<Long, Item> items = itemRepository.findAllByIds(itemIds).stream()
+                    .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+            int count = 0;
+            for (ImportRow row : chunk) {
+                String error = validate(row, members, items);
+                if (error != null) {
+                    job.rowFailed(row.getLineNumber(), error);
+                    continue;
+                }
+                Order order = createOrder(row, members.get(row.getMemberId()), items);
+                orderRepository.save(order);
+                eventPublisher.publishEvent(OrderPlacedEvent.of(order));
+                count++;
+            }
+            em.flush(); // JDBC batch로 insert
+            em.clear(); // 영속성 컨텍스트를 비워서 chunk가 끝날 때마다 메모리를 돌려줌
+            return count;
+        });
+        job.getOrdersImported().addAndGet(imported);
+    }
+
+    private static Order createOrder(ImportRow row, Member member, Map<Long, Item> items) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        OrderItem[] orderItems = row.getOrderLines().stream()
+                .map(l -> {
+                    Item item = items.get(l.getItemId());
+                    return OrderItem.createReservedOrderItem(item, item.getPrice(), l.getCount());
+                })
+                .toArray(OrderItem[]::new);
+
+        Order order = Order.createOrder(member, delivery, orderItems);
+        if (row.getOrderDate() != null) { // 원래 채널의 주문 일시 유지
+            order.setOrderDate(row.getOrderDate());
+        }
+        return order;
+    }
+
+    private static String validate(ImportRow row, Map<Long, Member> members, Map<Long, Item> items) {
+        if (!members.containsKey(row.getMemberId())) {
+            return "존재하지 않는 회원입니다. memberId=" + row.getMemberId();
+        }
+        if (row.getOrderLines() == null || row.getOrderLines().isEmpty()) {
+            return "주문 상품이 없습니다.";
+        }
+        for (ImportLine orderLine : row.getOrderLines()) {
+            if (!items.containsKey(orderLine.getItemId())) {
+                return "존재하지 않는 상품입니다. itemId=" + orderLine.getItemId();
+            }
+            if (orderLine.getCount() <= 0) {
+                return "주문 수량을 확인해주세요. itemId=" + orderLine.getItemId();
+            }
+        }
+        return null;
+    }
+
+    private ImportRow parseJson(String line) throws IOException {
+        ImportRow row = objectMapper.readValue(line, ImportRow.class);
+        if (row.getMemberId() == null) {
+            throw new IllegalArgumentException("memberId가 없습니다.");
+        }
+        if (row.getOrderLines() == null) {
+            row.setOrderLines(List.of());
+        }
+        return row;
+    }
+
+    private static ImportRow parseCsv(String line) {
+        String[] columns = line.split(",", -1);
+        if (!Character.isDigit(columns[0].trim().charAt(0))) { // 헤더
+            return null;
+        }
+        if (columns.length < 3) {
+            throw new IllegalArgumentException("memberId,itemId,count[,orderDate] 형식이어야 합니다.");
+        }
+        ImportRow row = new ImportRow();
+        row.setMemberId(Long.parseLong(columns[0].trim()));
+        row.setOrderLines(List.of(new ImportLine(Long.parseLong(columns[1].trim()), Integer.parseInt(columns[2].trim()))));
+        if (columns.length > 3 && !columns[3].isBlank()) {
+            row.setOrderDate(LocalDateTime.parse(columns[3].trim()));
+        }
+        return row;
+    }
+
+    @Data
+    static class ImportRow {
+        private long lineNumber;
+        private Long memberId;
+        private LocalDateTime orderDate;
+        private List<ImportLine> orderLines;
+    }
+
+    @Data
+    static class ImportLine {
+        private Long itemId;
+        private int count;
+
+        ImportLine() {
+        }
+
+        ImportLine(Long itemId, int count) {
+            this.itemId = itemId;
+            this.count = count;
+        }
+    }
+}
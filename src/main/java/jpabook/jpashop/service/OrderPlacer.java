@@ -0,0 +1,52 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.event.OrderPlacedEvent;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 주문 생성 + 저장
+ * 트랜잭션을 직접 걸지 않기 때문에 OrderService(주문 하나당 트랜잭션)와
+ * GroupCommitOrderWriter(여러 주문을 한 트랜잭션) 양쪽에서 같이 씀
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderPlacer {
+    private final MemberRepository memberRepository;
+    private final OrderRepository orderRepository;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public Order place(Long memberId, List<OrderLine> orderLines) {
+        // 엔티티 조회
+        Member member = memberRepository.findOne(memberId);
+        if (member == null) {
+            throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + memberId);
+        }
+
+        // 배송 정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        // 주문 상품 생성 (재고 차감 방식은 jpashop.stock.mode 설정을 따름)
+        List<OrderItem> orderItems = stockService.createOrderItems(orderLines);
+
+        // 주문 생성
+        Order order = Order.createOrder(member, delivery, orderItems.toArray(new OrderItem[0]));
+
+        // 주문 저장
+        // order에서 CascadeType.All로 되어있는 모든 엔티티는 Persist를 강제로 해줌!
+        orderRepository.save(order);
+        eventPublisher.publishEvent(OrderPlacedEvent.of(order)); // 매출 집계 등은 커밋된 뒤에 받음
+        return order;
+    }
+}
@@ -1,15 +1,14 @@
 package jpabook.jpashop.service;
 
-import jpabook.jpashop.domain.Delivery;
-import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.OrderItem;
-import jpabook.jpashop.domain.item.Item;
-import jpabook.jpashop.repository.ItemRepository;
-import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.event.OrderCanceledEvent;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderSearchPage;
+import jpabook.jpashop.repository.order.query.OrderSearchRepository;
+import jpabook.jpashop.shard.ShardDirectory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,31 +19,22 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderService {
     private final OrderRepository orderRepository;
-    private final MemberRepository memberRepository;
-    private  final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final OrderPlacer orderPlacer;
+    private final OrderSearchRepository orderSearchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardDirectory shardDirectory;
 
     /** 주문 */
     @Transactional // 데이터 변경하는건 꼭 트랜젝션이 있어야함!⭐ public 메소드들은 다 걸림
     public Long order(Long memberId, Long itemId, int count) {
-        // 엔티티 조회
-        Member member = memberRepository.findOne(memberId);
-        Item item = itemRepository.findOne(itemId);
-
-        // 배송 정보 생성
-        Delivery delivery = new Delivery();
-        delivery.setAddress(member.getAddress());
-
-        // 주문 상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
-
-        // 주문 생성
-        Order order = Order.createOrder(member, delivery, orderItem);
-
-        // 주문 저장
-        // order에서 CascadeType.All로 되어있는 모든 엔티티는 Persist를 강제로 해줌!
-        orderRepository.save(order);
+        return order(memberId, List.of(new OrderLine(itemId, count)));
+    }
 
-        return order.getId();
+    /** 여러 상품 주문 (장바구니) - 주문, 주문 상품, 배송이 한 트랜잭션에서 JDBC batch로 저장됨 */
+    @Transactional
+    public Long order(Long memberId, List<OrderLine> orderLines) {
+        return orderPlacer.place(memberId, orderLines).getId();
     }
 
     /** 취소 */
@@ -52,12 +42,29 @@ public class OrderService {
     public void cancelOrder(Long orderId) {
         // 주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
+        if (order == null) {
+            throw new IllegalArgumentException("존재하지 않는 주문입니다. orderId=" + orderId);
+        }
         // 주문 취소
-        order.cancel();
+        if (shardDirectory.isEnabled()) { // 주문은 샤드, 재고는 global ➡️ 재고 복구를 flush 한 뒤에 샤드 주문 상태 변경
+            stockService.restock(order.getOrderItems());
+            orderRepository.cancel(order);
+        } else {
+            stockService.cancel(order);
+        }
+        eventPublisher.publishEvent(OrderCanceledEvent.of(order));
     }
 
     /** 검색 */
     public List<Order> findOrders(OrderSearch orderSearch) {
         return orderRepository.findAllByString(orderSearch);
     }
+
+    /** 검색 - DTO로 바로 조회, 커서 페이징 (global DB만 보기 때문에 샤딩이 켜져 있으면 예외) */
+    public OrderSearchPage searchOrders(OrderSearch orderSearch, String cursor, int limit) {
+        if (shardDirectory.isEnabled()) {
+            throw new IllegalStateException("샤딩이 켜져 있으면 주문 검색을 할 수 없습니다. (주문이 샤드 DB에 있음)");
+        }
+        return orderSearchRepository.search(orderSearch, cursor, Math.min(Math.max(limit, 1), 1000));
+    }
 }
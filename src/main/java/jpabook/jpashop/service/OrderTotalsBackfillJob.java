@@ -0,0 +1,43 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * orders.total_price / item_count 한 번만 채우는 작업 (jpashop.order.totals-backfill.enabled=true 로 기동할 때)
+ * - id 범위(chunk-size)마다 따로 커밋해서 긴 트랜잭션/락 없이 진행, 중간에 죽어도 다시 돌리면 남은 것만 채움
+ * - 새 주문은 Order.addOrderItem에서 채워지기 때문에 한 번 돌리고 나면 다시 켤 필요 없음
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.order.totals-backfill.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OrderTotalsBackfillJob implements ApplicationRunner {
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${jpashop.order.totals-backfill.chunk-size:10000}")
+    private int chunkSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long[] range = transactionTemplate.execute(status -> orderRepository.findIdRange());
+        if (range == null) {
+            return;
+        }
+        long updated = 0;
+        for (long from = range[0]; from <= range[1]; from += chunkSize) {
+            long fromId = from;
+            Integer count = transactionTemplate.execute(status -> orderRepository.backfillTotals(fromId, fromId + chunkSize));
+            updated += count == null ? 0 : count;
+        }
+        log.info("order totals backfilled. orders={}, ids={}..{}", updated, range[0], range[1]);
+    }
+}
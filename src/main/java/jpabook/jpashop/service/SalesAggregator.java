@@ -0,0 +1,219 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.sales.DailySales;
+import jpabook.jpashop.domain.sales.ItemSales;
+import jpabook.jpashop.domain.sales.OrderStatusCount;
+import jpabook.jpashop.event.OrderCanceledEvent;
+import jpabook.jpashop.event.OrderLineAmount;
+import jpabook.jpashop.event.OrderPlacedEvent;
+import jpabook.jpashop.repository.SalesRepository;
+import jpabook.jpashop.shard.ShardDirectory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 매출 집계 - 주문/취소가 커밋될 때마다 메모리 카운터만 올리고, 주기적으로 변화량을 집계 테이블에 더해줌
+ * - LongAdder라 같은 상품/같은 날짜에 주문이 몰려도 CAS 경합이 한 곳에 몰리지 않음
+ * - 반영에 실패한 변화량은 되돌려놓고 다음 주기에 다시 시도 (StockLedger와 같은 방식)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesAggregator {
+    private final SalesRepository salesRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shardDirectory;
+
+    private final ConcurrentMap<Long, LongAdder[]> itemCounters = new ConcurrentHashMap<>();     // [수량, 매출]
+    private final ConcurrentMap<LocalDate, LongAdder[]> dayCounters = new ConcurrentHashMap<>(); // [주문, 취소, 수량, 매출]
+    private final Map<OrderStatus, LongAdder> statusCounters = new EnumMap<>(OrderStatus.class);
+
+    {
+        for (OrderStatus status : OrderStatus.values()) {
+            statusCounters.put(status, new LongAdder());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        add(event.getOrderDate().toLocalDate(), event.getLines(), 1, 0, 1);
+        statusCounters.get(OrderStatus.ORDER).increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCanceled(OrderCanceledEvent event) {
+        add(event.getOrderDate().toLocalDate(), event.getLines(), 0, 1, -1);
+        statusCounters.get(OrderStatus.ORDER).decrement();
+        statusCounters.get(OrderStatus.CANCEL).increment();
+    }
+
+    private void add(LocalDate orderDate, Iterable<OrderLineAmount> lines, int orders, int cancels, int sign) {
+        long units = 0;
+        long revenue = 0;
+        for (OrderLineAmount line : lines) {
+            LongAdder[] item = itemCounters.computeIfAbsent(line.getItemId(), id -> adders(2));
+            item[0].add(sign * line.getCount());
+            item[1].add(sign * line.getAmount());
+            units += line.getCount();
+            revenue += line.getAmount();
+        }
+        LongAdder[] day = dayCounters.computeIfAbsent(orderDate, d -> adders(4));
+        day[0].add(orders);
+        day[1].add(cancels);
+        day[2].add(sign * units);
+        day[3].add(sign * revenue);
+    }
+
+    /** 쌓인 변화량을 한 트랜잭션에서 집계 테이블에 더함 (재계산 중에는 기다림) */
+    @Scheduled(fixedDelayString = "${jpashop.sales.flush-interval:5000}")
+    public synchronized void flush() {
+        Map<Long, long[]> items = drain(itemCounters);
+        Map<LocalDate, long[]> days = drain(dayCounters);
+        Map<OrderStatus, Long> statuses = new EnumMap<>(OrderStatus.class);
+        statusCounters.forEach((status, adder) -> {
+            long value = adder.sumThenReset();
+            if (value != 0) {
+                statuses.put(status, value);
+            }
+        });
+        if (items.isEmpty() && days.isEmpty() && statuses.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                items.forEach((itemId, v) -> salesRepository.addItemSales(itemId, v[0], v[1]));
+                days.forEach((date, v) -> salesRepository.addDailySales(date, v[0], v[1], v[2], v[3]));
+                statuses.forEach(salesRepository::addStatusCount);
+            });
+        } catch (RuntimeException e) { // 반영 못한 변화량은 되돌려놓고 다음 주기에 다시 시도
+            log.warn("sales flush failed, retry next time. items={}, days={}", items.size(), days.size(), e);
+            items.forEach((itemId, v) -> restore(itemCounters.computeIfAbsent(itemId, id -> adders(2)), v));
+            days.forEach((date, v) -> restore(dayCounters.computeIfAbsent(date, d -> adders(4)), v));
+            statuses.forEach((status, value) -> statusCounters.get(status).add(value));
+        }
+    }
+
+    /**
+     * 처음부터 다시 계산 - 원본(orders, order_item)을 전부 집계해서 집계 테이블을 통째로 바꾸고, 기존 값과 다른 행 수를 알려줌
+     * 메모리에 쌓인 변화량은 버리고 시작함 (이미 커밋된 주문이라 원본 집계에 들어감)
+     * 버린 직후 ~ 집계 쿼리 사이에 커밋된 주문은 두 번 더해질 수 있어서, 한가한 시간에 돌리고 결과로 확인하는 용도
+     * 🚫 샤딩이 켜져 있으면 원본 주문이 global DB에 없어서 집계가 비어버림 ➡️ 예외
+     */
+    public synchronized SalesRebuildResult rebuild() {
+        if (shardDirectory.isEnabled()) {
+            throw new IllegalStateException("샤딩이 켜져 있으면 매출 재계산을 할 수 없습니다. (주문이 샤드 DB에 있음)");
+        }
+        flush();
+        long begin = System.nanoTime();
+        return transactionTemplate.execute(status -> {
+            drain(itemCounters);
+            drain(dayCounters);
+            statusCounters.values().forEach(LongAdder::reset);
+
+            Map<Long, long[]> items = new HashMap<>();
+            for (Object[] row : salesRepository.aggregateItemSales()) {
+                items.put((Long) row[0], new long[]{number(row[1]), number(row[2])});
+            }
+            Map<LocalDate, long[]> days = new HashMap<>();
+            for (Object[] row : salesRepository.aggregateDailySales()) {
+                days.put((LocalDate) row[0], new long[]{number(row[1]), number(row[2]), number(row[3]), number(row[4])});
+            }
+            Map<OrderStatus, long[]> statuses = new EnumMap<>(OrderStatus.class);
+            for (Object[] row : salesRepository.aggregateStatusCounts()) {
+                statuses.put((OrderStatus) row[0], new long[]{number(row[1])});
+            }
+
+            Map<Long, long[]> currentItems = new HashMap<>();
+            salesRepository.findAllItemSales().forEach(s -> currentItems.put(s.getItemId(), new long[]{s.getUnitsSold(), s.getRevenue()}));
+            Map<LocalDate, long[]> currentDays = new HashMap<>();
+            salesRepository.findAllDailySales().forEach(s -> currentDays.put(s.getSalesDate(),
+                    new long[]{s.getOrderCount(), s.getCancelCount(), s.getUnitsSold(), s.getRevenue()}));
+            Map<OrderStatus, long[]> currentStatuses = new EnumMap<>(OrderStatus.class);
+            salesRepository.findStatusCounts().forEach(s -> currentStatuses.put(s.getStatus(), new long[]{s.getOrderCount()}));
+
+            int itemMismatches = mismatches(items, currentItems, 2);
+            int dayMismatches = mismatches(days, currentDays, 4);
+            int statusMismatches = mismatches(statuses, currentStatuses, 1);
+
+            salesRepository.deleteAll();
+            items.forEach((itemId, v) -> {
+                ItemSales itemSales = new ItemSales(itemId);
+                itemSales.add(v[0], v[1]);
+                salesRepository.save(itemSales);
+            });
+            days.forEach((date, v) -> {
+                DailySales dailySales = new DailySales(date);
+                dailySales.add(v[0], v[1], v[2], v[3]);
+                salesRepository.save(dailySales);
+            });
+            statuses.forEach((orderStatus, v) -> {
+                OrderStatusCount statusCount = new OrderStatusCount(orderStatus);
+                statusCount.add(v[0]);
+                salesRepository.save(statusCount);
+            });
+            log.info("sales aggregates rebuilt. items={}, days={}, mismatches(item/day/status)={}/{}/{}", items.size(), days.size(),
+                    itemMismatches, dayMismatches, statusMismatches);
+            return new SalesRebuildResult(itemMismatches, dayMismatches, statusMismatches, (System.nanoTime() - begin) / 1_000_000);
+        });
+    }
+
+    private static <K> int mismatches(Map<K, long[]> expected, Map<K, long[]> actual, int size) {
+        Set<K> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        long[] zeros = new long[size];
+        return (int) keys.stream()
+                .filter(key -> !Arrays.equals(expected.getOrDefault(key, zeros), actual.getOrDefault(key, zeros)))
+                .count();
+    }
+
+    private static long number(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    private static <K> Map<K, long[]> drain(ConcurrentMap<K, LongAdder[]> counters) {
+        Map<K, long[]> deltas = new HashMap<>();
+        counters.forEach((key, adders) -> {
+            long[] values = new long[adders.length];
+            boolean changed = false;
+            for (int i = 0; i < adders.length; i++) {
+                values[i] = adders[i].sumThenReset();
+                changed |= values[i] != 0;
+            }
+            if (changed) {
+                deltas.put(key, values);
+            }
+        });
+        return deltas;
+    }
+
+    private static void restore(LongAdder[] adders, long[] values) {
+        for (int i = 0; i < adders.length; i++) {
+            adders[i].add(values[i]);
+        }
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,14 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** 매출 집계 재계산 결과 - 재계산 전 집계 테이블과 원본(orders, order_item)이 달랐던 행 수 */
+@Getter
+@AllArgsConstructor
+public class SalesRebuildResult {
+    private int itemMismatches;
+    private int dayMismatches;
+    private int statusMismatches;
+    private long elapsedMillis;
+}
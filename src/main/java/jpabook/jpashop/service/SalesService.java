@@ -0,0 +1,40 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.sales.DailySales;
+import jpabook.jpashop.domain.sales.ItemSales;
+import jpabook.jpashop.domain.sales.OrderStatusCount;
+import jpabook.jpashop.repository.SalesRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/** 매출 대시보드 - 집계 테이블만 읽음 (orders, order_item 전체를 훑지 않음) */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class SalesService {
+    private final SalesRepository salesRepository;
+    private final SalesAggregator salesAggregator;
+
+    public List<ItemSales> findTopItems(int limit) {
+        return salesRepository.findTopItems(Math.min(Math.max(limit, 1), 1000));
+    }
+
+    public List<DailySales> findDaily(LocalDate from, LocalDate to) {
+        return salesRepository.findDaily(from, to);
+    }
+
+    public List<OrderStatusCount> findStatusCounts() {
+        return salesRepository.findStatusCounts();
+    }
+
+    /** 처음부터 다시 계산 (정합성 확인용) - 트랜잭션은 SalesAggregator가 따로 염 */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // readOnly 트랜잭션에 묶이면 insert가 flush 안됨
+    public SalesRebuildResult rebuild() {
+        return salesAggregator.rebuild();
+    }
+}
@@ -0,0 +1,226 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 메모리 재고 원장 (jpashop.stock.mode=LEDGER 일 때 사용)
+ * - 상품별 남은 재고를 CAS로 차감하기 때문에 DB 왕복 없이 예약/재고 부족 판단이 가능함
+ *   (원장에 처음 들어오는 상품만 가격/재고를 한 번 읽고, 그 뒤로는 가격도 원장에서)
+ * - 예약된 변화량은 모아뒀다가 주기적으로 한 트랜잭션에서 벌크 UPDATE 해줌
+ * - 상품을 직접 수정하면 beginOverwrite로 원장을 비움 - 아직 DB에 안 간 변화량은 버리고 수정한 값을 기준으로 다시 시작
+ *   예약/취소는 read lock, 비우기는 write lock ➡️ 예약 하나가 비우기 전후로 나뉘지 않음
+ *   flush는 DB 반영이 끝날 때까지 flushLock을 잡음 ➡️ 비우기는 진행 중인 flush가 커밋될 때까지 기다림
+ *   수정이 커밋될 때까지(endOverwrite) 그 상품 예약은 기다림 ➡️ 커밋 전 예전 DB 값으로 원장을 다시 채워서 팔지 않음
+ * - 원장 항목마다 세대(generation)를 둬서, 비우기 전에 한 예약이 롤백되면 되돌리지 않음 (수정한 값이 기준)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedger {
+    private static final long OVERWRITE_WAIT_MILLIS = 5000;
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<Long, Entry> available = new ConcurrentHashMap<>();       // 상품별 가격, 남은 재고
+    private final ConcurrentMap<Long, AtomicInteger> pending = new ConcurrentHashMap<>(); // 아직 DB에 반영 안된 변화량
+    private final StampedLock evictLock = new StampedLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ConcurrentMap<Long, Integer> overwriting = new ConcurrentHashMap<>(); // 수정 트랜잭션이 커밋 전인 상품 -> 수정 중인 트랜잭션 수
+    private final AtomicLong generations = new AtomicLong();
+
+    /** 재고 예약 - 원장에 처음 들어오는 상품은 DB 가격/재고로 초기화, 수정 중인 상품이면 수정이 커밋될 때까지 기다림 */
+    public Reservation reserve(Long itemId, int count) {
+        while (true) {
+            awaitOverwrite(itemId);
+            long stamp = evictLock.readLock();
+            try {
+                if (overwriting.containsKey(itemId)) { // 기다린 사이에 다른 수정이 시작됨
+                    continue;
+                }
+                Entry entry = entryOf(itemId);
+                while (true) {
+                    int current = entry.stock.get();
+                    int restStock = current - count;
+                    if (restStock < 0) {
+                        throw new NotEnoughStockException("need more stock");
+                    }
+                    if (entry.stock.compareAndSet(current, restStock)) {
+                        break;
+                    }
+                }
+                pending.computeIfAbsent(itemId, id -> new AtomicInteger()).addAndGet(-count);
+                return new Reservation(itemId, count, entry.price, entry.generation);
+            } finally {
+                evictLock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /** 예약 되돌리기 (트랜잭션 롤백) - 예약한 뒤에 상품이 수정됐으면 수정한 값이 기준이라 되돌리지 않음 */
+    public void release(Reservation reservation) {
+        long stamp = evictLock.readLock();
+        try {
+            Entry entry = available.get(reservation.itemId);
+            if (entry == null || entry.generation != reservation.generation) {
+                return;
+            }
+            entry.stock.addAndGet(reservation.count);
+            pending.computeIfAbsent(reservation.itemId, id -> new AtomicInteger()).addAndGet(reservation.count);
+        } finally {
+            evictLock.unlockRead(stamp);
+        }
+    }
+
+    /** 커밋된 주문 취소 - ENTITY/ATOMIC처럼 지금 재고에 더함 */
+    public void restock(Long itemId, int count) {
+        long stamp = evictLock.readLock();
+        try {
+            Entry entry = available.get(itemId);
+            if (entry != null) {
+                entry.stock.addAndGet(count);
+            }
+            pending.computeIfAbsent(itemId, id -> new AtomicInteger()).addAndGet(count);
+        } finally {
+            evictLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 재고를 직접 수정한 경우(상품 수정) 원장을 비우고, endOverwrite 전까지 그 상품 예약을 막음
+     * 수정 트랜잭션이 커밋되기 전에 불러야 진행 중인 flush가 수정한 값을 덮어쓰지 않음 (StockService.stockOverwritten)
+     */
+    public void beginOverwrite(Long itemId) {
+        flushLock.lock();
+        try {
+            long stamp = evictLock.writeLock();
+            try {
+                overwriting.merge(itemId, 1, Integer::sum);
+                available.remove(itemId);
+                pending.remove(itemId);
+            } finally {
+                evictLock.unlockWrite(stamp);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** 수정 트랜잭션이 끝남(커밋/롤백) - 다음 예약은 DB 값으로 다시 시작 */
+    public void endOverwrite(Long itemId) {
+        synchronized (overwriting) {
+            overwriting.computeIfPresent(itemId, (id, count) -> count > 1 ? count - 1 : null);
+            overwriting.notifyAll();
+        }
+    }
+
+    public int getAvailable(Long itemId) {
+        Entry entry = available.get(itemId);
+        return entry == null ? -1 : entry.stock.get();
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.stock.ledger.flush-interval:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Integer> deltas = new TreeMap<>(); // item id 순서대로 UPDATE 해서 락 순서를 고정함
+            pending.forEach((itemId, delta) -> {
+                int value = delta.getAndSet(0);
+                if (value != 0) {
+                    deltas.put(itemId, value);
+                }
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> deltas.forEach(itemRepository::addStock));
+            } catch (RuntimeException e) { // 반영 못한 변화량은 되돌려놓고 다음 주기에 다시 시도
+                log.warn("stock ledger flush failed, retry next time. items={}", deltas.keySet(), e);
+                deltas.forEach((itemId, value) -> pending.computeIfAbsent(itemId, id -> new AtomicInteger()).addAndGet(value));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void awaitOverwrite(Long itemId) {
+        if (!overwriting.containsKey(itemId)) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + OVERWRITE_WAIT_MILLIS;
+        synchronized (overwriting) {
+            while (overwriting.containsKey(itemId)) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("상품 정보를 수정하는 중입니다. 잠시 후 다시 시도해주세요. itemId=" + itemId);
+                }
+                try {
+                    overwriting.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("재고 예약 중 인터럽트되었습니다. itemId=" + itemId, e);
+                }
+            }
+        }
+    }
+
+    private Entry entryOf(Long itemId) {
+        Entry entry = available.get(itemId);
+        if (entry != null) {
+            return entry;
+        }
+        int[] row = itemRepository.findPriceAndStock(itemId); // 원장에 없을 때만 DB 조회
+        if (row == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        return available.computeIfAbsent(itemId, id -> new Entry(row[0], row[1], generations.incrementAndGet()));
+    }
+
+    private static final class Entry {
+        private final int price;
+        private final AtomicInteger stock;
+        private final long generation; // 비웠다가 다시 채우면 바뀜
+
+        Entry(int price, int stock, long generation) {
+            this.price = price;
+            this.stock = new AtomicInteger(stock);
+            this.generation = generation;
+        }
+    }
+
+    /** 예약 하나 - 롤백되면 release로 되돌림 */
+    public static final class Reservation {
+        private final Long itemId;
+        private final int count;
+        private final int price;
+        private final long generation;
+
+        Reservation(Long itemId, int count, int price, long generation) {
+            this.itemId = itemId;
+            this.count = count;
+            this.price = price;
+            this.generation = generation;
+        }
+
+        public int getPrice() {
+            return price;
+        }
+    }
+}
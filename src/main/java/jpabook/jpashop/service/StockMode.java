@@ -0,0 +1,8 @@
+package jpabook.jpashop.service;
+
+/** 주문 시 재고를 차감하는 방식 */
+public enum StockMode {
+    ENTITY, // Item 엔티티의 removeStock + 변경 감지 (기본)
+    ATOMIC, // 엔티티를 조회하지 않고 조건부 UPDATE 한 번으로 차감 (동시 주문에도 재고가 꼬이지 않음)
+    LEDGER  // 메모리 재고 원장에서 바로 예약하고, 변화량은 주기적으로 DB에 반영
+}
@@ -0,0 +1,244 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.StockChangedEvent;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 상품 생성 시 재고 차감, 주문 취소 시 재고 복구를 담당
+ * 트랜잭션은 따로 걸지 않고 호출하는 쪽(OrderService)의 트랜잭션을 그대로 따라감
+ */
+@Service
+@RequiredArgsConstructor
+public class StockService {
+    private final ItemRepository itemRepository;
+    private final StockLedger stockLedger;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${jpashop.stock.mode:ENTITY}")
+    private StockMode stockMode;
+
+    /** 주문 상품 생성 + 재고 차감 */
+    public OrderItem createOrderItem(Long itemId, int count) {
+        if (stockMode == StockMode.ATOMIC) { // 조건부 UPDATE 먼저 - 재고가 부족하면 SELECT 없이 끝남
+            removeStockOrThrow(itemId, count);
+            Integer price = itemRepository.findPrice(itemId); // UPDATE로 잡은 행 락 안에서 읽음
+            eventPublisher.publishEvent(new StockChangedEvent(itemId, -count));
+            return OrderItem.createReservedOrderItem(itemRepository.getReference(itemId), price, count);
+        }
+
+        if (stockMode == StockMode.LEDGER) { // 가격, 재고 모두 원장에서 (원장에 없는 상품만 DB 조회)
+            StockLedger.Reservation reservation = stockLedger.reserve(itemId, count);
+            releaseOnRollback(reservation); // 롤백되면 예약도 되돌림
+            eventPublisher.publishEvent(new StockChangedEvent(itemId, -count));
+            return OrderItem.createReservedOrderItem(itemRepository.getReference(itemId), reservation.getPrice(), count);
+        }
+
+        Item item = itemRepository.findOne(itemId);
+        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        eventPublisher.publishEvent(new StockChangedEvent(itemId, -count));
+        return orderItem;
+    }
+
+    /**
+     * 여러 상품 주문 - 상품은 in 쿼리 한 번으로 조회하고, 재고 차감(락)은 항상 item id 순서로 진행해서 데드락을 피함
+     * 중간에 재고가 부족하면 예외를 던짐 - 앞에서 차감한 DB 재고는 호출한 쪽 트랜잭션이 롤백하면서 되돌림
+     * (메모리 원장은 롤백되지 않으니 LEDGER만 직접 되돌림)
+     */
+    public List<OrderItem> createOrderItems(List<OrderLine> orderLines) {
+        Map<Long, Integer> counts = mergeLines(orderLines);
+        if (counts.size() == 1) { // 상품 하나면 em.find로 조회 (영속성 컨텍스트/2차 캐시 활용)
+            Map.Entry<Long, Integer> line = counts.entrySet().iterator().next();
+            return List.of(createOrderItem(line.getKey(), line.getValue()));
+        }
+
+        if (stockMode == StockMode.ATOMIC) { // 재고 차감(UPDATE)이 모두 성공한 뒤에 가격을 in 쿼리 한 번으로
+            counts.forEach(this::removeStockOrThrow);
+            Map<Long, Integer> prices = itemRepository.findPrices(counts.keySet());
+
+            List<OrderItem> orderItems = new ArrayList<>();
+            counts.forEach((itemId, count) ->
+                    orderItems.add(OrderItem.createReservedOrderItem(itemRepository.getReference(itemId), prices.get(itemId), count)));
+            publishStockChanged(orderItems, -1);
+            return orderItems;
+        }
+
+        if (stockMode == StockMode.LEDGER) {
+            List<OrderItem> orderItems = new ArrayList<>();
+            List<StockLedger.Reservation> reservations = new ArrayList<>();
+            try {
+                counts.forEach((itemId, count) -> {
+                    StockLedger.Reservation reservation = stockLedger.reserve(itemId, count);
+                    reservations.add(reservation);
+                    orderItems.add(OrderItem.createReservedOrderItem(itemRepository.getReference(itemId), reservation.getPrice(), count));
+                });
+            } catch (RuntimeException e) {
+                reservations.forEach(stockLedger::release);
+                throw e;
+            }
+            reservations.forEach(this::releaseOnRollback);
+            publishStockChanged(orderItems, -1);
+            return orderItems;
+        }
+
+        List<Item> items = itemRepository.findAllByIds(counts.keySet()); // item id 순서로 옴
+        checkAllFound(counts.keySet(), items.stream().map(Item::getId).collect(Collectors.toSet()));
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (Item item : items) {
+            orderItems.add(OrderItem.createOrderItem(item, item.getPrice(), counts.get(item.getId())));
+        }
+        publishStockChanged(orderItems, -1); // 모든 상품이 차감된 뒤에만 (중간에 실패한 주문은 이벤트 없음)
+        return orderItems;
+    }
+
+    /** 주문 취소 + 재고 복구 */
+    public void cancel(Order order) {
+        cancelAndRestock(order);
+        publishStockChanged(order.getOrderItems(), 1);
+    }
+
+    private void cancelAndRestock(Order order) {
+        if (stockMode == StockMode.LEDGER) {
+            order.cancelWithoutRestock();
+            for (OrderItem orderItem : order.getOrderItems()) { // 커밋된 뒤에 원장에 재고를 돌려줌
+                restockAfterCommit(orderItem.getItem().getId(), orderItem.getCount());
+            }
+            return;
+        }
+        if (stockMode == StockMode.ATOMIC) {
+            order.cancelWithoutRestock();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                itemRepository.addStock(orderItem.getItem().getId(), orderItem.getCount());
+            }
+            return;
+        }
+        order.cancel();
+    }
+
+    /** 재고 복구만 (주문 상태는 다른 DB에 있는 경우 - 샤딩) */
+    public void restock(List<OrderItem> orderItems) {
+        for (OrderItem orderItem : orderItems) {
+            Long itemId = orderItem.getItem().getId();
+            if (stockMode == StockMode.LEDGER) {
+                restockAfterCommit(itemId, orderItem.getCount());
+            } else if (stockMode == StockMode.ATOMIC) {
+                itemRepository.addStock(itemId, orderItem.getCount());
+            } else {
+                itemRepository.findOne(itemId).addStock(orderItem.getCount());
+            }
+        }
+        publishStockChanged(orderItems, 1);
+    }
+
+    /** 상품 재고를 직접 수정한 경우 */
+    public void stockOverwritten(Long itemId) {
+        if (stockMode == StockMode.LEDGER) {
+            stockLedger.beginOverwrite(itemId); // 커밋 전에 - 진행 중인 flush가 수정한 재고를 덮어쓰지 않게, 커밋 전 DB 값으로 예약하지 않게
+            runAfterCompletion(() -> stockLedger.endOverwrite(itemId)); // 커밋/롤백 뒤에 예약을 다시 받음
+        }
+    }
+
+    public StockMode getStockMode() {
+        return stockMode;
+    }
+
+    /** 재고 변경 알림 - 리스너(@TransactionalEventListener)는 커밋된 뒤에 받음 */
+    private void publishStockChanged(List<OrderItem> orderItems, int sign) {
+        for (OrderItem orderItem : orderItems) {
+            eventPublisher.publishEvent(new StockChangedEvent(orderItem.getItem().getId(), sign * orderItem.getCount()));
+        }
+    }
+
+    /** 같은 상품이 여러 줄이면 수량을 합침 (item id 순서 정렬) */
+    private static Map<Long, Integer> mergeLines(List<OrderLine> orderLines) {
+        if (orderLines == null || orderLines.isEmpty()) {
+            throw new IllegalArgumentException("주문 상품이 없습니다.");
+        }
+        Map<Long, Integer> counts = new TreeMap<>();
+        for (OrderLine orderLine : orderLines) {
+            if (orderLine.getItemId() == null || orderLine.getCount() <= 0) {
+                throw new IllegalArgumentException("주문 상품과 수량을 확인해주세요.");
+            }
+            counts.merge(orderLine.getItemId(), orderLine.getCount(), Integer::sum);
+        }
+        return counts;
+    }
+
+    /** 조건부 재고 차감 - 실패했을 때만 상품이 있는지 확인해서 재고 부족/없는 상품을 구분함 */
+    private void removeStockOrThrow(Long itemId, int count) {
+        if (itemRepository.removeStock(itemId, count)) {
+            return;
+        }
+        if (itemRepository.findPrice(itemId) == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        throw new NotEnoughStockException("need more stock");
+    }
+
+    private static void checkAllFound(Set<Long> requested, Set<Long> found) {
+        if (found.size() != requested.size()) {
+            Set<Long> missing = new TreeSet<>(requested);
+            missing.removeAll(found);
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + missing);
+        }
+    }
+
+    /** 롤백됐을 때 원장 예약을 되돌림 */
+    private void releaseOnRollback(StockLedger.Reservation reservation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    stockLedger.release(reservation);
+                }
+            }
+        });
+    }
+
+    /** 커밋됐을 때 원장에 재고를 돌려줌 (주문 취소) */
+    private void restockAfterCommit(Long itemId, int count) {
+        runAfterCommit(() -> stockLedger.restock(itemId, count));
+    }
+
+    private void runAfterCompletion(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                task.run();
+            }
+        });
+    }
+
+    private void runAfterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
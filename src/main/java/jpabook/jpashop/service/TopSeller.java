@@ -0,0 +1,12 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TopSeller {
+    private Long itemId;
+    private String name;
+    private long units; // 창 안에서 팔린 수량 (근사값, 실제보다 작게 나오지는 않음)
+}
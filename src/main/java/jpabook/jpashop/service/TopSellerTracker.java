@@ -0,0 +1,63 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.event.OrderCanceledEvent;
+import jpabook.jpashop.event.OrderLineAmount;
+import jpabook.jpashop.event.OrderPlacedEvent;
+import jpabook.jpashop.search.ItemDocument;
+import jpabook.jpashop.search.ItemSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * 실시간 베스트셀러 (최근 1시간 / 최근 하루)
+ * 주문/취소가 커밋되면 HeavyHitters에 수량만 더하고, 화면에서는 GROUP BY 없이 메모리에서 바로 상위 상품을 꺼냄
+ */
+@Component
+@RequiredArgsConstructor
+public class TopSellerTracker {
+    private static final int WIDTH = 1024;    // count-min sketch 열 수 (오차 ~ 창 안 전체 수량 * e / WIDTH)
+    private static final int DEPTH = 4;       // 해시 개수 (오차를 넘을 확률 ~ e^-DEPTH)
+    private static final int CANDIDATES = 64; // bucket마다 기억하는 후보 상품 수
+
+    public enum Window { HOUR, DAY }
+
+    private final ItemSearchService itemSearchService;
+
+    private final HeavyHitters lastHour = new HeavyHitters(60_000, 60, WIDTH, DEPTH, CANDIDATES);   // 1분 x 60
+    private final HeavyHitters lastDay = new HeavyHitters(3_600_000, 24, WIDTH, DEPTH, CANDIDATES); // 1시간 x 24
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        add(event.getLines(), event.getOrderDate(), 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCanceled(OrderCanceledEvent event) {
+        add(event.getLines(), event.getOrderDate(), -1);
+    }
+
+    void add(List<OrderLineAmount> lines, LocalDateTime orderDate, int sign) {
+        long eventMillis = orderDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long now = System.currentTimeMillis();
+        for (OrderLineAmount line : lines) {
+            lastHour.add(line.getItemId(), sign * line.getCount(), eventMillis, now);
+            lastDay.add(line.getItemId(), sign * line.getCount(), eventMillis, now);
+        }
+    }
+
+    /** 상품명은 검색 색인에서 붙임 (주문마다 바뀌는 재고가 없어서 상품 목록 스냅샷과 달리 다시 만들 일이 없음) */
+    public List<TopSeller> top(Window window, int limit) {
+        HeavyHitters hitters = window == Window.DAY ? lastDay : lastHour;
+        return hitters.top(Math.min(Math.max(limit, 1), CANDIDATES), System.currentTimeMillis()).stream()
+                .map(r -> {
+                    ItemDocument item = itemSearchService.findDocument(r[0]);
+                    return new TopSeller(r[0], item != null ? item.getName() : null, r[1]);
+                })
+                .toList();
+    }
+}
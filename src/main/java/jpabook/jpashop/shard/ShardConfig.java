@@ -0,0 +1,62 @@
+package jpabook.jpashop.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 주문 샤딩 (jpashop.shard.enabled=true 일 때만, 기본은 지금처럼 DB 하나)
+ * global DB는 spring.datasource.*, 주문 샤드는 jpashop.shard.shards[*]
+ * 🚫 읽기/쓰기 분리(jpashop.datasource.routing)와 같이 켤 수 없음 (둘 다 JPA DataSource를 바꿈)
+ */
+@Configuration
+@EnableConfigurationProperties(ShardProperties.class)
+@ConditionalOnProperty(value = "jpashop.shard.enabled", havingValue = "true")
+public class ShardConfig {
+
+    /** global 풀 - 부트 기본 DataSource처럼 spring.datasource.hikari.* 를 그대로 받고, 빈이라 종료할 때 스프링이 닫음 */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource globalDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource global = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        global.setPoolName("global");
+        return global;
+    }
+
+    /** 샤드 풀은 ShardRoutingDataSource가 들고 있다가 close() 때 닫음 */
+    @Bean
+    @Primary
+    ShardRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, ShardProperties properties,
+                                      @Qualifier("globalDataSource") HikariDataSource global) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("jpashop.shard.shards 에 샤드를 하나 이상 설정해주세요.");
+        }
+
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardProperties.Shard shard = properties.getShards().get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            dataSource.setPoolName("shard" + i);
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            shards.add(dataSource);
+        }
+        return new ShardRoutingDataSource(global, shards);
+    }
+}
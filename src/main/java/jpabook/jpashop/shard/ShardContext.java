@@ -0,0 +1,29 @@
+package jpabook.jpashop.shard;
+
+import java.util.function.Supplier;
+
+/** 지금 스레드가 쓰는 샤드 (null이면 global DB) - ShardRoutingDataSource가 커넥션을 빌릴 때 봄 */
+public final class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package jpabook.jpashop.shard;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.ShardBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+/**
+ * 회원 id -> 주문 샤드
+ * 회원을 buckets개 bucket(member_id % buckets)으로 나누고 bucket마다 샤드를 정해둠 (기본은 bucket % 샤드 수)
+ * ➡️ 샤드를 늘리거나 몰린 샤드를 나눌 때 회원 전체를 다시 나누지 않고 bucket 단위로 옮김 (ShardRebalancer)
+ * 샤딩이 꺼져 있으면 isEnabled() = false 이고 나머지는 쓰지 않음
+ * 🚫 bucket 배치와 옮기는 중 표시는 노드(JVM)마다 따로 들고 있음 ➡️ bucket 옮기기는 애플리케이션이 한 대만 떠 있을 때만 (ShardRebalancer)
+ */
+@Component
+@RequiredArgsConstructor
+public class ShardDirectory {
+    /**
+     * 샤드 시퀀스는 (샤드 + 1) << 40 부터 시작 (그 아래는 샤딩 전 global id) ➡️ 샤드끼리 id가 안 겹침
+     * id 블록(allocationSize)은 샤드와 상관없이 같이 쓰기 때문에 id로 아는 샤드는 먼저 찾아볼 후보일 뿐
+     */
+    public static final int ID_SHIFT = 40;
+    private static final long MOVE_WAIT_SECONDS = 30;
+
+    private final EntityManager em;
+    private final ObjectProvider<ShardRoutingDataSource> routingDataSource;
+
+    @Value("${jpashop.shard.enabled:false}")
+    private boolean enabled;
+    @Value("${jpashop.shard.buckets:1024}")
+    private int buckets;
+
+    private volatile int[] bucketShards = new int[0];
+    private final Set<Integer> moving = ConcurrentHashMap.newKeySet(); // 옮기는 중인 bucket (주문 저장을 막음)
+    private volatile ReadWriteLock[] bucketLocks = new ReadWriteLock[0]; // 쓰기는 읽기 락, 옮기기는 쓰기 락
+
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        int shardCount = shardCount();
+        int[] assignment = new int[buckets];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            assignment[bucket] = bucket % shardCount;
+        }
+        for (ShardBucket moved : em.createQuery("select b from ShardBucket b", ShardBucket.class).getResultList()) {
+            if (moved.getBucket() < buckets && moved.getShard() < shardCount) {
+                assignment[moved.getBucket()] = moved.getShard();
+            }
+        }
+        bucketShards = assignment;
+
+        ReadWriteLock[] locks = new ReadWriteLock[buckets];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            locks[bucket] = new ReentrantReadWriteLock();
+        }
+        bucketLocks = locks;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int shardCount() {
+        return routingDataSource.getObject().shardCount();
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public int bucketOf(Long memberId) {
+        return (int) Math.floorMod(memberId, (long) buckets);
+    }
+
+    public int shardOfBucket(int bucket) {
+        return bucketShards[bucket];
+    }
+
+    /** 조회용 - 옮기는 중이어도 다 옮겨질 때까지는 원래 샤드에 그대로 있음 */
+    public int shardOf(Long memberId) {
+        return bucketShards[bucketOf(memberId)];
+    }
+
+    /**
+     * 저장/변경용 - 회원의 샤드 번호로 work 실행, 옮기는 중인 bucket이면 거절
+     * work가 끝날(샤드에 커밋될) 때까지 bucket 읽기 락을 잡고 있음 ➡️ 옮기기는 진행 중인 쓰기가 다 커밋된 뒤에 복사를 시작함
+     */
+    public <T> T write(Long memberId, IntFunction<T> work) {
+        int bucket = bucketOf(memberId);
+        Lock lock = bucketLocks[bucket].readLock();
+        if (!lock.tryLock()) {
+            throw movingException(memberId);
+        }
+        try {
+            if (moving.contains(bucket)) {
+                throw movingException(memberId);
+            }
+            return work.apply(bucketShards[bucket]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static IllegalStateException movingException(Long memberId) {
+        return new IllegalStateException("회원 주문 데이터를 옮기는 중입니다. 잠시 후 다시 시도해주세요. memberId=" + memberId);
+    }
+
+    /** 주문 id로 샤드를 찾을 때 볼 순서 - id 블록을 받아온 샤드부터, 없으면 나머지 (다른 샤드 주문, 옮겨졌거나 샤딩 전 주문) */
+    public List<Integer> searchOrderOf(Long orderId) {
+        List<Integer> order = new ArrayList<>();
+        int home = (int) (orderId >>> ID_SHIFT) - 1;
+        if (home >= 0 && home < shardCount()) {
+            order.add(home);
+        }
+        for (int shard = 0; shard < shardCount(); shard++) {
+            if (shard != home) {
+                order.add(shard);
+            }
+        }
+        return order;
+    }
+
+    /** 샤드별 bucket 수 */
+    public Map<Integer, Integer> bucketCounts() {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        for (int shard : bucketShards) {
+            counts.merge(shard, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * 새 쓰기를 막고, 이미 샤드를 정하고 쓰는 중인 주문이 커밋될 때까지 기다림 ➡️ 이후 복사에서 빠지는 주문이 없음
+     * endMove는 같은 스레드에서 불러야 함 (쓰기 락)
+     */
+    void beginMove(int bucket) {
+        if (!moving.add(bucket)) {
+            throw new IllegalStateException("이미 옮기는 중인 bucket입니다. bucket=" + bucket);
+        }
+        boolean locked = false;
+        try {
+            locked = bucketLocks[bucket].writeLock().tryLock(MOVE_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!locked) {
+            moving.remove(bucket);
+            throw new IllegalStateException("진행 중인 주문 저장이 끝나지 않아 옮기지 못했습니다. bucket=" + bucket);
+        }
+    }
+
+    void endMove(int bucket) {
+        moving.remove(bucket);
+        bucketLocks[bucket].writeLock().unlock();
+    }
+
+    void assign(int bucket, int shard) {
+        int[] assignment = bucketShards.clone();
+        assignment[bucket] = shard;
+        bucketShards = assignment;
+    }
+}
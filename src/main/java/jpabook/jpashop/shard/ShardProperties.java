@@ -0,0 +1,28 @@
+package jpabook.jpashop.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** jpashop.shard.* (global DB는 기존 spring.datasource.* 그대로) */
+@Getter
+@Setter
+@ConfigurationProperties("jpashop.shard")
+public class ShardProperties {
+    private boolean enabled;
+    private int buckets = 1024;
+    private boolean createSchema = true; // 기동할 때 샤드마다 스키마를 지우고 다시 만듦 (ddl-auto: create와 같이)
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
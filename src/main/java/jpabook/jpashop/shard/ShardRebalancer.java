@@ -0,0 +1,200 @@
+package jpabook.jpashop.shard;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.ShardBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 샤드 데이터 옮기기 (관리자용, 주문이 적은 시간에)
+ * - backfill : 샤딩 전에 global DB에 쌓인 주문을 회원의 샤드로 복사 (global 원본은 남겨둠)
+ * - moveBucket : bucket 하나(회원 id % buckets)의 주문을 다른 샤드로 옮김
+ *   그 bucket 주문 저장/취소를 막고 진행 중인 저장이 커밋되길 기다림 ➡️ 복사 ➡️ 배치 변경(shard_bucket) ➡️ 원래 샤드에서 삭제
+ *   🚫 막는 것도 배치도 이 노드 메모리에만 있어서, 애플리케이션이 여러 대면 다른 노드는 계속 원래 샤드에 씀 ➡️ 한 대만 띄우고 옮김
+ * - purge : 샤드에 남은 자기 bucket이 아닌 주문 삭제 (옮기다 중간에 끊긴 경우)
+ * 엔티티를 거치지 않고 JDBC로 orders, delivery, order_item 행을 그대로 복사하고, 같은 id가 있으면 지우고 다시 넣어서 여러 번 돌려도 안전함
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardRebalancer {
+    private static final int BATCH_SIZE = 500;
+
+    private final ShardDirectory shardDirectory;
+    private final ObjectProvider<ShardRoutingDataSource> routingDataSource;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    /** global DB의 주문을 회원의 샤드로 복사, 복사한 주문 수 */
+    public long backfill() {
+        ShardRoutingDataSource routing = routing();
+        JdbcTemplate global = new JdbcTemplate(routing.global());
+        List<JdbcTemplate> shards = shardJdbc(routing);
+        long copied = copyOrders(global, "1 = 1", new Object[0],
+                memberId -> shards.get(shardDirectory.shardOf(memberId)));
+        log.info("backfill copied {} orders", copied);
+        return copied;
+    }
+
+    /** bucket 하나를 target 샤드로 옮김, 옮긴 주문 수 */
+    public long moveBucket(int bucket, int target) {
+        ShardRoutingDataSource routing = routing();
+        if (bucket < 0 || bucket >= shardDirectory.getBuckets() || target < 0 || target >= routing.shardCount()) {
+            throw new IllegalArgumentException("잘못된 bucket/샤드입니다. bucket=" + bucket + ", target=" + target);
+        }
+        int source = shardDirectory.shardOfBucket(bucket);
+        if (source == target) {
+            return 0;
+        }
+        List<JdbcTemplate> shards = shardJdbc(routing);
+        String where = "mod(member_id, ?) = ?";
+        Object[] args = {shardDirectory.getBuckets(), bucket};
+
+        shardDirectory.beginMove(bucket);
+        try {
+            deleteOrders(shards.get(target), where, args); // 예전에 옮기다 끊겨서 남은 복사본
+            long moved = copyOrders(shards.get(source), where, args, memberId -> shards.get(target));
+
+            transactionTemplate.executeWithoutResult(status -> { // 배치 변경은 global DB에 저장
+                ShardBucket shardBucket = em.find(ShardBucket.class, bucket);
+                if (shardBucket == null) {
+                    em.persist(new ShardBucket(bucket, target));
+                } else {
+                    shardBucket.moveTo(target);
+                }
+            });
+            shardDirectory.assign(bucket, target);
+
+            deleteOrders(shards.get(source), where, args);
+            log.info("bucket {} moved from shard {} to {} ({} orders)", bucket, source, target, moved);
+            return moved;
+        } finally {
+            shardDirectory.endMove(bucket);
+        }
+    }
+
+    /** 샤드에서 자기 bucket이 아닌 주문 삭제, 지운 주문 수 */
+    public long purge(int shard) {
+        ShardRoutingDataSource routing = routing();
+        JdbcTemplate jdbc = new JdbcTemplate(routing.shard(shard));
+        long deleted = 0;
+        for (int bucket = 0; bucket < shardDirectory.getBuckets(); bucket++) {
+            if (shardDirectory.shardOfBucket(bucket) != shard) {
+                deleted += deleteOrders(jdbc, "mod(member_id, ?) = ?", new Object[]{shardDirectory.getBuckets(), bucket});
+            }
+        }
+        return deleted;
+    }
+
+    /** from에서 조건에 맞는 주문을 order_id 순으로 BATCH_SIZE씩 읽어서 회원마다 정해진 샤드로 복사 (배송, 주문상품 포함) */
+    private long copyOrders(JdbcTemplate from, String where, Object[] args, Function<Long, JdbcTemplate> targetOf) {
+        long copied = 0;
+        long lastId = 0;
+        while (true) {
+            List<Map<String, Object>> orders = from.queryForList(
+                    "select * from orders where " + where + " and order_id > ? order by order_id limit " + BATCH_SIZE,
+                    append(args, lastId));
+            if (orders.isEmpty()) {
+                return copied;
+            }
+            Map<JdbcTemplate, List<Map<String, Object>>> byTarget = orders.stream()
+                    .collect(Collectors.groupingBy(row -> targetOf.apply(((Number) row.get("member_id")).longValue()),
+                            IdentityHashMap::new, Collectors.toList()));
+            byTarget.forEach((target, rows) -> {
+                List<Object> orderIds = column(rows, "order_id");
+                List<Object> deliveryIds = column(rows, "delivery_id");
+                List<Map<String, Object>> deliveries = selectIn(from, "delivery", "delivery_id", deliveryIds);
+                List<Map<String, Object>> orderItems = selectIn(from, "order_item", "order_id", orderIds);
+
+                deleteRows(target, orderIds, deliveryIds); // 이미 복사된 행이 있으면 지우고 다시 넣음
+                insert(target, "delivery", deliveries);
+                insert(target, "orders", rows);
+                insert(target, "order_item", orderItems);
+            });
+            copied += orders.size();
+            lastId = ((Number) orders.get(orders.size() - 1).get("order_id")).longValue();
+        }
+    }
+
+    /** 조건에 맞는 주문을 BATCH_SIZE씩 삭제, 지운 주문 수 */
+    private long deleteOrders(JdbcTemplate jdbc, String where, Object[] args) {
+        long deleted = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbc.queryForList(
+                    "select order_id, delivery_id from orders where " + where + " limit " + BATCH_SIZE, args);
+            if (rows.isEmpty()) {
+                return deleted;
+            }
+            deleteRows(jdbc, column(rows, "order_id"), column(rows, "delivery_id"));
+            deleted += rows.size();
+        }
+    }
+
+    private static void deleteRows(JdbcTemplate jdbc, List<Object> orderIds, List<Object> deliveryIds) {
+        jdbc.update("delete from order_item where order_id in (" + placeholders(orderIds.size()) + ")", orderIds.toArray());
+        jdbc.update("delete from orders where order_id in (" + placeholders(orderIds.size()) + ")", orderIds.toArray());
+        if (!deliveryIds.isEmpty()) {
+            jdbc.update("delete from delivery where delivery_id in (" + placeholders(deliveryIds.size()) + ")", deliveryIds.toArray());
+        }
+    }
+
+    private static List<Map<String, Object>> selectIn(JdbcTemplate jdbc, String table, String column, List<Object> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.queryForList("select * from " + table + " where " + column + " in (" + placeholders(ids.size()) + ")",
+                ids.toArray());
+    }
+
+    /** 읽은 행을 컬럼 그대로 insert (샤드 스키마는 global과 같은 엔티티로 만들어서 컬럼이 같음) */
+    private static void insert(JdbcTemplate jdbc, String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "insert into " + table + " (" + String.join(", ", columns) + ") values (" + placeholders(columns.size()) + ")";
+        jdbc.batchUpdate(sql, rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .collect(Collectors.toList()));
+    }
+
+    private static List<Object> column(List<Map<String, Object>> rows, String column) {
+        return rows.stream()
+                .map(row -> row.get(column))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] append(Object[] args, Object last) {
+        Object[] appended = Arrays.copyOf(args, args.length + 1);
+        appended[args.length] = last;
+        return appended;
+    }
+
+    private ShardRoutingDataSource routing() {
+        if (!shardDirectory.isEnabled()) {
+            throw new IllegalStateException("샤딩이 꺼져 있습니다. (jpashop.shard.enabled)");
+        }
+        return routingDataSource.getObject();
+    }
+
+    private static List<JdbcTemplate> shardJdbc(ShardRoutingDataSource routing) {
+        List<JdbcTemplate> shards = new ArrayList<>();
+        for (int shard = 0; shard < routing.shardCount(); shard++) {
+            shards.add(new JdbcTemplate(routing.shard(shard)));
+        }
+        return shards;
+    }
+}
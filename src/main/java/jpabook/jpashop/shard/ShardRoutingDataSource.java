@@ -0,0 +1,65 @@
+package jpabook.jpashop.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** ShardContext에 샤드가 있으면 그 샤드 DB, 없으면 global DB (회원, 상품/재고, 집계 등) */
+@Slf4j
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    private static final String GLOBAL = "global";
+
+    private final DataSource global;
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(DataSource global, List<DataSource> shards) {
+        this.global = global;
+        this.shards = List.copyOf(shards);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(GLOBAL, global);
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(global);
+        setLenientFallback(false); // 없는 샤드 번호면 global로 가지 않고 예외
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        return shard != null ? shard : GLOBAL;
+    }
+
+    public DataSource global() {
+        return global;
+    }
+
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /** 샤드 풀을 닫음 (global은 따로 만든 빈이라 여기서 안 닫음) */
+    @Override
+    public void close() {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (shards.get(shard) instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("failed to close shard {}", shard, e);
+                }
+            }
+        }
+    }
+}
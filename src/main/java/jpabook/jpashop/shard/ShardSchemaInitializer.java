@@ -0,0 +1,87 @@
+package jpabook.jpashop.shard;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 샤드마다 스키마 생성 (global DB는 지금처럼 ddl-auto가 만듦)
+ * - 엔티티 매핑 그대로 테이블을 만든 뒤, 샤드에 없는 회원/상품을 가리키는 FK는 지움 (회원, 상품/재고는 global DB에 있음)
+ * - 시퀀스는 샤드마다 (샤드 + 1) << 40 부터 ➡️ 샤드끼리, 샤딩 전 global 주문과도 id가 안 겹침
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "jpashop.shard.enabled", havingValue = "true")
+public class ShardSchemaInitializer {
+    private static final List<String> SHARDED_TABLES = List.of("orders", "order_item", "delivery");
+    private static final Set<String> GLOBAL_TABLES = Set.of("member", "item");
+
+    private final EntityManagerFactory emf;
+    private final ShardRoutingDataSource routingDataSource;
+    private final ShardProperties properties;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isCreateSchema()) {
+            return;
+        }
+        SessionFactory sessionFactory = emf.unwrap(SessionFactory.class);
+        for (int shard = 0; shard < routingDataSource.shardCount(); shard++) {
+            ShardContext.call(shard, () -> { // 스키마 도구도 ShardRoutingDataSource로 커넥션을 빌림
+                sessionFactory.getSchemaManager().dropMappedObjects(false);
+                sessionFactory.getSchemaManager().exportMappedObjects(false);
+                return null;
+            });
+            JdbcTemplate jdbc = new JdbcTemplate(routingDataSource.shard(shard));
+            dropGlobalForeignKeys(jdbc);
+            restartSequences(jdbc, (shard + 1L) << ShardDirectory.ID_SHIFT);
+            log.info("shard {} schema created", shard);
+        }
+    }
+
+    private static void dropGlobalForeignKeys(JdbcTemplate jdbc) {
+        List<String[]> foreignKeys = jdbc.execute((Connection connection) -> {
+            DatabaseMetaData meta = connection.getMetaData();
+            List<String[]> result = new ArrayList<>();
+            for (String table : SHARDED_TABLES) {
+                try (ResultSet rs = meta.getImportedKeys(connection.getCatalog(), connection.getSchema(), identifier(meta, table))) {
+                    while (rs.next()) {
+                        if (GLOBAL_TABLES.contains(rs.getString("PKTABLE_NAME").toLowerCase())) {
+                            result.add(new String[]{table, rs.getString("FK_NAME")});
+                        }
+                    }
+                }
+            }
+            return result;
+        });
+        foreignKeys.forEach(fk -> jdbc.execute("alter table " + fk[0] + " drop constraint " + fk[1]));
+    }
+
+    /** pooled optimizer는 읽은 값 - increment + 1 부터 쓰기 때문에 start + increment로 맞춤 */
+    private static void restartSequences(JdbcTemplate jdbc, long start) {
+        jdbc.queryForList("select sequence_name, increment from information_schema.sequences where sequence_schema = current_schema")
+                .forEach(row -> jdbc.execute("alter sequence " + row.get("sequence_name")
+                        + " restart with " + (start + ((Number) row.get("increment")).longValue())));
+    }
+
+    private static String identifier(DatabaseMetaData meta, String name) throws SQLException {
+        if (meta.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase();
+        }
+        return meta.storesLowerCaseIdentifiers() ? name.toLowerCase() : name;
+    }
+}
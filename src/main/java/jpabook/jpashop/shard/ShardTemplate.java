@@ -0,0 +1,40 @@
+package jpabook.jpashop.shard;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * 샤드 하나에서 트랜잭션 실행
+ * - 항상 새 트랜잭션 + 새 EntityManager (REQUIRES_NEW) ➡️ 샤드 엔티티가 global 영속성 컨텍스트에 섞이지 않음
+ * - 트랜잭션 밖(OSIV)에서 불리면 요청의 EntityManager를 잠깐 떼어놔서 재사용되지 않게 함
+ * - 여러 DB를 한 번에 커밋하는 분산 트랜잭션은 없음 ➡️ 호출하는 쪽에서 global 변경을 먼저 flush 하고 샤드를 씀
+ */
+@Component
+@RequiredArgsConstructor
+public class ShardTemplate {
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory emf;
+
+    public <T> T execute(int shard, boolean readOnly, Supplier<T> work) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(readOnly);
+
+        Object requestEntityManager = TransactionSynchronizationManager.isActualTransactionActive()
+                ? null : TransactionSynchronizationManager.unbindResourceIfPossible(emf);
+        try {
+            return ShardContext.call(shard, () -> template.execute(status -> work.get()));
+        } finally {
+            if (requestEntityManager != null) {
+                TransactionSynchronizationManager.bindResource(emf, requestEntityManager);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package jpabook.jpashop;
+
+import org.junit.Assume;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** 벤치마크 테스트용 - ./gradlew test -Pbenchmark 일 때만 돌고, 결과는 로그로 남김 */
+public final class Benchmark {
+    private static final Logger log = LoggerFactory.getLogger(Benchmark.class);
+
+    private Benchmark() {
+    }
+
+    /** 벤치마크가 꺼져 있으면 테스트를 건너뜀 (실패가 아니라 skip) */
+    public static void assumeEnabled() {
+        Assume.assumeTrue("벤치마크는 -Pbenchmark 일 때만 실행", Boolean.getBoolean("jpashop.benchmark"));
+    }
+
+    public static void report(String format, Object... args) {
+        log.info(String.format(format, args));
+    }
+}
@@ -0,0 +1,81 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.Benchmark;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BinaryFormatBenchmarkTest { // 스프링 없이 인코딩만 비교 (API 응답은 OrderApiControllerTest)
+
+    @Test
+    public void 포맷만_다르고_내용은_같음() throws Exception {
+        // given
+        List<OrderQueryDto> orders = sampleOrders(10);
+        ObjectMapper json = configure(Jackson2ObjectMapperBuilder.json());
+        ObjectMapper cbor = configure(Jackson2ObjectMapperBuilder.cbor());
+        ObjectMapper smile = configure(Jackson2ObjectMapperBuilder.smile());
+
+        //when
+        byte[] jsonBytes = json.writeValueAsBytes(orders);
+        byte[] cborBytes = cbor.writeValueAsBytes(orders);
+        byte[] smileBytes = smile.writeValueAsBytes(orders);
+
+        //then
+        assertEquals("포맷만 다르고 내용은 같아야 한다.", json.readTree(jsonBytes), cbor.readTree(cborBytes));
+        assertEquals("포맷만 다르고 내용은 같아야 한다.", json.readTree(jsonBytes), smile.readTree(smileBytes));
+        assertTrue(cborBytes.length < jsonBytes.length);
+        assertTrue(smileBytes.length < jsonBytes.length);
+    }
+
+    /** 같은 주문 목록을 JSON / CBOR / Smile 로 인코딩했을 때 주문당 시간과 바이트 */
+    @Test
+    public void 인코딩_벤치마크() throws Exception {
+        Benchmark.assumeEnabled();
+        List<OrderQueryDto> orders = sampleOrders(1000);
+        run("json", configure(Jackson2ObjectMapperBuilder.json()), orders);
+        run("cbor", configure(Jackson2ObjectMapperBuilder.cbor()), orders);
+        run("smile", configure(Jackson2ObjectMapperBuilder.smile()), orders);
+    }
+
+    private void run(String name, ObjectMapper mapper, List<OrderQueryDto> orders) throws Exception {
+        byte[] bytes = null;
+        for (int i = 0; i < 200; i++) { // JIT 워밍업
+            bytes = mapper.writeValueAsBytes(orders);
+        }
+        int rounds = 500;
+        long begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            bytes = mapper.writeValueAsBytes(orders);
+        }
+        long elapsed = System.nanoTime() - begin;
+        Benchmark.report("%s: %.0f ns/order, %.1f bytes/order",
+                name, (double) elapsed / rounds / orders.size(), (double) bytes.length / orders.size());
+    }
+
+    private static ObjectMapper configure(Jackson2ObjectMapperBuilder builder) { // 부트 기본 설정처럼 날짜는 ISO 문자열
+        return builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    }
+
+    private static List<OrderQueryDto> sampleOrders(int count) {
+        List<OrderQueryDto> orders = new ArrayList<>(count);
+        LocalDateTime orderDate = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (long id = 1; id <= count; id++) {
+            OrderQueryDto order = new OrderQueryDto(id, "회원" + id, orderDate.plusMinutes(id), new Address("서울", "강가 " + id, "123-123"));
+            order.setOrderItems(List.of(
+                    new OrderItemQueryDto(id, "JPA1 BOOK", 10000, 1),
+                    new OrderItemQueryDto(id, "JPA2 BOOK", 20000, 2)));
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,65 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.catalog.stock-refresh-interval=1h") // 다른 테스트의 주문 때문에 ETag가 바뀌지 않게
+@AutoConfigureMockMvc
+public class ItemApiControllerTest { // 버전은 커밋된 뒤에 올라가서 @Transactional(롤백)을 걸지 않음
+    @Autowired MockMvc mockMvc;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 상품목록_ETag_304() throws Exception {
+        // given
+        String eTag = fetchETag("/api/v1/items");
+
+        //when, then
+        mockMvc.perform(get("/api/v1/items").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/items").header("If-None-Match", eTag)) // 화면도 같은 스냅샷 ETag
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void 상품이_바뀌면_200() throws Exception {
+        // given
+        String eTag = fetchETag("/api/v1/items");
+
+        //when
+        Book book = new Book();
+        book.setName("ETag 테스트");
+        book.setPrice(1000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        // then
+        String newETag = mockMvc.perform(get("/api/v1/items").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(eTag, newETag);
+        mockMvc.perform(get("/items").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", newETag));
+    }
+
+    private String fetchETag(String url) throws Exception {
+        String eTag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(eTag);
+        return eTag;
+    }
+}
@@ -0,0 +1,146 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class OrderApiControllerTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+
+    @Test
+    public void 잘못된_커서는_400() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/orders/search").param("cursor", "bm90LWEtY3Vyc29y")) // base64지만 형식이 다름
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/members/1/orders").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 커서가_없으면_첫페이지() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/members/1/orders"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void V5_더_있으면_다음페이지_Link() throws Exception {
+        // given
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 10);
+        orderService.order(member.getId(), book.getId(), 1);
+        orderService.order(member.getId(), book.getId(), 1);
+
+        //when, then
+        mockMvc.perform(get("/api/v5/orders").param("offset", "0").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string("Link", containsString("offset=1&limit=1>; rel=\"next\"")));
+    }
+
+    @Test
+    public void V5_범위를_벗어난_limit은_400() throws Exception {
+        mockMvc.perform(get("/api/v5/orders").param("limit", "20000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v5/orders").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 주문등록_요청이_잘못되면_400() throws Exception {
+        mockMvc.perform(post("/api/v1/orders").contentType(MediaType.APPLICATION_JSON).content("{\"memberId\": 1}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/orders").contentType(MediaType.APPLICATION_JSON).content("{\"memberId\": 1, \"orderLines\": []}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/orders").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"memberId\": 1, \"orderLines\": [{\"itemId\": 1, \"count\": 0}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void V7_모르는_필드는_400() throws Exception {
+        mockMvc.perform(get("/api/v7/orders").param("fields", "orderId,password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v7/orders").param("fields", " , "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void Accept_헤더로_CBOR_Smile_응답() throws Exception {
+        // given
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 10);
+        orderService.order(member.getId(), book.getId(), 2);
+        String url = "/api/members/" + member.getId() + "/orders";
+
+        //when
+        MvcResult json = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+        MvcResult cbor = mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        MvcResult smile = mockMvc.perform(get(url).accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+                .andReturn();
+
+        //then
+        JsonNode expected = new ObjectMapper().readTree(json.getResponse().getContentAsByteArray());
+        assertEquals(1, expected.get("data").size());
+        assertEquals("포맷만 다르고 내용은 같아야 한다.", expected,
+                new ObjectMapper(new CBORFactory()).readTree(cbor.getResponse().getContentAsByteArray()));
+        assertEquals("포맷만 다르고 내용은 같아야 한다.", expected,
+                new ObjectMapper(new SmileFactory()).readTree(smile.getResponse().getContentAsByteArray()));
+    }
+
+    private Item createBook(String name, int price, int stockQuantity) {
+        Item book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
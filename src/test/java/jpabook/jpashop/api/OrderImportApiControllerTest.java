@@ -0,0 +1,92 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OrderImportApiControllerTest { // import 스레드에서 chunk마다 커밋하기 때문에 @Transactional(롤백)을 걸지 않음
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void ndjson_등록() throws Exception {
+        // given
+        Long memberId = createMember("대량등록API1");
+        Long itemId = createBook("시골 JPA", 10000, 10);
+        String body = "{\"memberId\":" + memberId + ",\"orderLines\":[{\"itemId\":" + itemId + ",\"count\":1}]}\n"
+                + "{\"memberId\":" + memberId + ",\"orderLines\":[{\"itemId\":-1,\"count\":1}]}\n";
+
+        //when
+        MvcResult result = mockMvc.perform(post("/api/v1/orders/import")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(request().asyncStarted()) // 요청 스레드는 바로 돌려줌
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.ordersImported").value(1))
+                .andExpect(jsonPath("$.rowsFailed").value(1))
+                .andExpect(jsonPath("$.errors[0]").value("line 2: 존재하지 않는 상품입니다. itemId=-1"));
+    }
+
+    @Test
+    public void csv_등록_후_작업조회() throws Exception {
+        // given
+        Long memberId = createMember("대량등록API2");
+        Long itemId = createBook("시골 JPA", 10000, 10);
+        MvcResult result = mockMvc.perform(post("/api/v1/orders/import")
+                        .contentType("text/csv")
+                        .content("memberId,itemId,count\n" + memberId + "," + itemId + ",2\n"))
+                .andReturn();
+        String jobId = mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.format").value("csv"))
+                .andReturn().getResponse().getContentAsString().replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        //when, then
+        mockMvc.perform(get("/api/v1/orders/import/" + jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ordersImported").value(1));
+    }
+
+    @Test
+    public void 없는_작업조회() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/import/-1"))
+                .andExpect(status().isNotFound());
+    }
+
+    private Long createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+}
@@ -0,0 +1,99 @@
+package jpabook.jpashop.coalesce;
+
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CoalescingAspectTest { // 스프링 컨텍스트 없이 프록시만 만들어서 테스트
+
+    @Test
+    public void 동시에_들어온_같은_조회는_한번만_실행() throws Exception {
+        // given
+        CoalescingAspect aspect = new CoalescingAspect();
+        AtomicInteger executions = new AtomicInteger();
+        SlowQuery query = proxy(new SlowQuery(executions), aspect);
+        int threads = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return query.find(10);
+            }));
+        }
+        start.countDown();
+        List<List<Integer>> results = new ArrayList<>();
+        for (Future<List<Integer>> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+
+        //then
+        assertTrue("거의 동시에 들어온 조회는 합쳐져야 한다.", executions.get() < threads);
+        results.forEach(r -> assertEquals(List.of(10), r));
+        CoalesceStats stats = aspect.getStats().get(0);
+        assertEquals(threads, stats.getCalls());
+        assertEquals(executions.get(), stats.getExecutions());
+        assertEquals(threads - stats.getExecutions(), stats.getJoined() + stats.getReused());
+    }
+
+    @Test
+    public void 인자가_다르면_따로_실행하고_예외도_같이_받음() throws Exception {
+        // given
+        AtomicInteger executions = new AtomicInteger();
+        SlowQuery query = proxy(new SlowQuery(executions), new CoalescingAspect());
+
+        //when
+        query.find(1);
+        query.find(2);
+
+        //then
+        assertEquals(2, executions.get());
+        try {
+            query.find(-1);
+            fail("실패한 조회는 예외를 그대로 받아야 한다.");
+        } catch (IllegalArgumentException e) {
+            assertEquals(3, executions.get());
+        }
+        try {
+            query.find(-1);
+            fail("실패한 결과는 재사용하면 안된다.");
+        } catch (IllegalArgumentException e) {
+            assertEquals(4, executions.get());
+        }
+    }
+
+    private static SlowQuery proxy(SlowQuery target, CoalescingAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    public static class SlowQuery {
+        private final AtomicInteger executions; // 프록시(하위 클래스)의 필드가 아니라 테스트가 들고 있는 카운터에 셈
+
+        public SlowQuery(AtomicInteger executions) {
+            this.executions = executions;
+        }
+
+        @Coalesce
+        public List<Integer> find(int key) throws InterruptedException {
+            executions.incrementAndGet();
+            if (key < 0) {
+                throw new IllegalArgumentException("key=" + key);
+            }
+            Thread.sleep(200);
+            return List.of(key);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package jpabook.jpashop.controller;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class OrderControllerTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 빈줄은_건너뛰고_주문() throws Exception {
+        // given
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 10);
+
+        //when
+        mockMvc.perform(post("/order")
+                        .param("memberId", member.getId().toString())
+                        .param("itemId", book.getId().toString(), "")
+                        .param("count", "2", ""))
+                // then
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/orders"));
+        assertEquals(8, book.getStockQuantity());
+    }
+
+    @Test
+    public void 수량이_빠진_줄은_주문화면에_오류() throws Exception {
+        // given
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 10);
+        Item book2 = createBook("토비 스프링", 20000, 10);
+
+        //when
+        mockMvc.perform(post("/order")
+                        .param("memberId", member.getId().toString())
+                        .param("itemId", book1.getId().toString(), book2.getId().toString())
+                        .param("count", "1", ""))
+                // then
+                .andExpect(status().isOk())
+                .andExpect(view().name("order/orderForm"))
+                .andExpect(model().attribute("errorMessage", "2번째 줄의 상품과 수량을 확인해주세요."));
+        assertEquals(10, book1.getStockQuantity());
+    }
+
+    @Test
+    public void 재고수량초과는_주문화면에_오류() throws Exception {
+        // given
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 1);
+
+        //when
+        mockMvc.perform(post("/order")
+                        .param("memberId", member.getId().toString())
+                        .param("itemId", book.getId().toString())
+                        .param("count", "2"))
+                // then
+                .andExpect(status().isOk())
+                .andExpect(view().name("order/orderForm"))
+                .andExpect(model().attributeExists("errorMessage"));
+    }
+
+    @Test
+    public void 회원_미선택은_주문화면에_오류() throws Exception {
+        //when
+        mockMvc.perform(post("/order")
+                        .param("memberId", "")
+                        .param("itemId", "")
+                        .param("count", ""))
+                // then
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("errorMessage", "주문회원을 선택해주세요."));
+    }
+
+    private Item createBook(String name, int price, int stockQuantity) {
+        Item book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
@@ -0,0 +1,107 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReplicaRoutingDataSourceTest { // 로컬 H2 in-memory DB 여러 개로 라우팅만 테스트 (스프링 컨텍스트 없이)
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingDataSource.unpinPrimary();
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    public void 읽기전용만_replica로() throws Exception {
+        // given
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(h2("primary"),
+                replicas("replica1", "replica2"), ReplicaSelection.ROUND_ROBIN);
+
+        //when
+        String write = databaseOf(routing);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        String read1 = databaseOf(routing);
+        String read2 = databaseOf(routing);
+        ReplicaRoutingDataSource.pinPrimary();
+        String pinned = databaseOf(routing);
+
+        //then
+        assertEquals("PRIMARY", write);
+        assertNotEquals("돌아가면서 replica를 골라야 한다.", read1, read2);
+        assertTrue(read1.startsWith("REPLICA") && read2.startsWith("REPLICA"));
+        assertEquals("방금 쓴 회원은 primary에서 읽어야 한다.", "PRIMARY", pinned);
+    }
+
+    @Test
+    public void 죽은_replica는_건너뜀() throws Exception {
+        // given
+        Map<String, javax.sql.DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("down", unreachable());
+        replicas.put("up", h2("replica3"));
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(h2("primary2"), replicas, ReplicaSelection.LEAST_CONNECTIONS);
+
+        //when
+        routing.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //then
+        assertEquals(Map.of("down", false, "up", true), routing.getReplicaStatus());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("REPLICA3", databaseOf(routing));
+        }
+    }
+
+    private Map<String, javax.sql.DataSource> replicas(String... names) {
+        Map<String, javax.sql.DataSource> replicas = new LinkedHashMap<>();
+        for (String name : names) {
+            replicas.put(name, h2(name));
+        }
+        return replicas;
+    }
+
+    private HikariDataSource h2(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSources.add(dataSource);
+        return dataSource;
+    }
+
+    private HikariDataSource unreachable() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:tcp://localhost:1/~/nowhere");
+        dataSource.setUsername("sa");
+        dataSource.setConnectionTimeout(250);
+        dataSource.setInitializationFailTimeout(-1);
+        dataSources.add(dataSource);
+        return dataSource;
+    }
+
+    private static String databaseOf(ReplicaRoutingDataSource routing) throws Exception {
+        try (Connection connection = routing.getConnection();
+             ResultSet rs = connection.createStatement().executeQuery("select database()")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Member;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.datasource.routing.enabled=true",
+        "jpashop.datasource.routing.health-check-interval=3600000",
+        "jpashop.datasource.routing.replicas[0].name=replica1",
+        "jpashop.datasource.routing.replicas[0].url=jdbc:h2:tcp://localhost/~/jpashop", // 같은 DB를 replica로 (어느 풀에서 빌렸는지만 확인)
+        "jpashop.datasource.routing.replicas[0].username=sa"})
+public class ReplicaRoutingTransactionTest {
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired ReplicaRoutingDataSource routingDataSource;
+
+    @Test
+    public void 한_요청에서_읽기전용_후_쓰기() throws Exception {
+        // given - OSIV처럼 요청 동안 EntityManager 하나를 스레드에 묶어둠
+        EntityManager em = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(em));
+        HikariDataSource replica = (HikariDataSource) routingDataSource.getResolvedDataSources().get("replica1");
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        try {
+            //when
+            int activeInRead = readOnly.execute(status -> {
+                em.createQuery("select count(m) from Member m").getSingleResult();
+                return activeConnections(replica);
+            });
+            Long memberId = readWrite.execute(status -> {
+                Member member = new Member();
+                member.setName("회원1");
+                em.persist(member);
+                em.flush();
+                assertEquals("쓰기 트랜잭션이 replica 커넥션을 물고 있으면 안된다.", 0, activeConnections(replica));
+                return member.getId();
+            });
+
+            //then
+            assertEquals("읽기 전용 트랜잭션은 replica로 가야 한다.", 1, activeInRead);
+            em.clear();
+            assertNotNull(readWrite.execute(status -> em.find(Member.class, memberId)));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            em.close();
+        }
+    }
+
+    private static int activeConnections(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean(); // 커넥션을 한 번도 안 빌렸으면 null
+        return pool != null ? pool.getActiveConnections() : 0;
+    }
+}
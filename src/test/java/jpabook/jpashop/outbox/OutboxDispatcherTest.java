@@ -0,0 +1,231 @@
+package jpabook.jpashop.outbox;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.OutboxEventType;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OutboxRepository;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"jpashop.outbox.enabled=true", "jpashop.outbox.dispatch-interval=3600000"})
+public class OutboxDispatcherTest { // dispatcher가 커밋된 outbox만 읽기 때문에 @Transactional(롤백)을 걸지 않음
+
+    @Autowired OutboxDispatcher outboxDispatcher;
+    @Autowired RecordingSubscriber recordingSubscriber;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired OutboxRepository outboxRepository;
+    @Autowired DataSource dataSource;
+
+    @Test
+    public void 주문_취소_재고변경이_순서대로_전달() throws Exception {
+        // given
+        Long memberId = createMember("outbox1");
+        Long itemId = createBook("outbox JPA", 10000, 10);
+        Long orderId = orderService.order(memberId, itemId, 2);
+        orderService.cancelOrder(orderId);
+
+        //when
+        outboxDispatcher.dispatch();
+
+        // then
+        List<OutboxEventType> types = recordingSubscriber.events.stream()
+                .filter(e -> e.getAggregateId().equals(orderId) && e.getType() != OutboxEventType.STOCK_CHANGED
+                        || e.getAggregateId().equals(itemId) && e.getType() == OutboxEventType.STOCK_CHANGED)
+                .map(OutboxEvent::getType)
+                .toList();
+        assertEquals(List.of(OutboxEventType.STOCK_CHANGED, OutboxEventType.ORDER_PLACED,
+                OutboxEventType.STOCK_CHANGED, OutboxEventType.ORDER_CANCELED), types);
+
+        int received = recordingSubscriber.events.size();
+        outboxDispatcher.dispatch();
+        assertEquals("받은 위치 다음부터만 전달해야 한다.", received, recordingSubscriber.events.size());
+    }
+
+    @Test
+    public void 롤백된_주문은_기록되지_않음() throws Exception {
+        // given
+        Long memberId = createMember("outbox2");
+        Long itemId = createBook("outbox 롤백", 10000, 10);
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.order(memberId, itemId, 1);
+            status.setRollbackOnly();
+        });
+        outboxDispatcher.dispatch();
+
+        // then
+        assertTrue("주문과 같은 트랜잭션이라 같이 롤백된다.", recordingSubscriber.events.stream()
+                .noneMatch(e -> e.getType() == OutboxEventType.STOCK_CHANGED && e.getAggregateId().equals(itemId)));
+    }
+
+    @Test
+    public void 늦게_커밋된_앞번호_이벤트도_전달() throws Exception {
+        // given - 앞 번호를 받은 트랜잭션이 뒤 번호보다 늦게 커밋됨
+        long aggregateId = System.nanoTime();
+        saveEvent(aggregateId - 1); // 구독자 위치를 잡아둠
+        outboxDispatcher.dispatch();
+
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> slow = executor.submit(() -> transactionTemplate.execute(status -> {
+            OutboxEvent event = new OutboxEvent(OutboxEventType.STOCK_CHANGED, aggregateId, "{}");
+            outboxRepository.save(event);
+            saved.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return event.getId();
+        }));
+        saved.await();
+        Long fastId = saveEvent(aggregateId);
+
+        //when
+        outboxDispatcher.dispatch();
+        List<Long> beforeCommit = receivedIds(aggregateId);
+        commit.countDown();
+        Long slowId = slow.get();
+        executor.shutdown();
+        outboxDispatcher.dispatch();
+
+        // then
+        assertTrue(slowId < fastId);
+        assertEquals(List.of(fastId), beforeCommit);
+        assertEquals("앞 번호는 빈 번호로 기억해뒀다가 커밋되면 전달해야 한다.", List.of(fastId, slowId), receivedIds(aggregateId));
+    }
+
+    @Test
+    public void 다른_서버와_번호가_섞여도_전달() throws Exception {
+        // given - 이 서버의 트랜잭션이 번호를 받는 사이에 다른 서버(같은 시퀀스를 쓰는 JDBC insert)가 번호를 받아 먼저 커밋
+        long aggregateId = System.nanoTime();
+        saveEvent(aggregateId - 1); // 구독자 위치를 잡아둠
+        outboxDispatcher.dispatch();
+
+        CountDownLatch firstSaved = new CountDownLatch(1);
+        CountDownLatch otherSaved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<List<Long>> local = executor.submit(() -> transactionTemplate.execute(status -> {
+            OutboxEvent first = new OutboxEvent(OutboxEventType.STOCK_CHANGED, aggregateId, "{}");
+            outboxRepository.save(first);
+            firstSaved.countDown();
+            await(otherSaved);
+            OutboxEvent second = new OutboxEvent(OutboxEventType.STOCK_CHANGED, aggregateId, "{}");
+            outboxRepository.save(second);
+            await(commit);
+            return List.of(first.getId(), second.getId());
+        }));
+        firstSaved.await();
+        JdbcTemplate otherNode = new JdbcTemplate(dataSource);
+        Long otherId = otherNode.queryForObject("select next value for outbox_event_seq", Long.class);
+        otherNode.update("insert into outbox_event (outbox_event_id, type, aggregate_id, payload, created_at) values (?, ?, ?, ?, ?)",
+                otherId, OutboxEventType.STOCK_CHANGED.name(), aggregateId, "{}", LocalDateTime.now());
+        otherSaved.countDown();
+
+        //when
+        outboxDispatcher.dispatch(); // 다른 서버 이벤트만 커밋된 상태
+        List<Long> beforeCommit = receivedIds(aggregateId);
+        commit.countDown();
+        List<Long> localIds = local.get();
+        executor.shutdown();
+        outboxDispatcher.dispatch();
+
+        // then
+        assertEquals("번호를 블록으로 받지 않아서 두 서버 번호가 하나씩 섞여야 한다.",
+                List.of(localIds.get(0) + 1, localIds.get(0) + 2), List.of(otherId, localIds.get(1)));
+        assertEquals(List.of(otherId), beforeCommit);
+        assertEquals("늦게 커밋된 이 서버의 앞뒤 번호도 전달해야 한다.",
+                List.of(otherId, localIds.get(0), localIds.get(1)), receivedIds(aggregateId));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Long saveEvent(long aggregateId) {
+        return transactionTemplate.execute(status -> {
+            OutboxEvent event = new OutboxEvent(OutboxEventType.STOCK_CHANGED, aggregateId, "{}");
+            outboxRepository.save(event);
+            return event.getId();
+        });
+    }
+
+    private List<Long> receivedIds(long aggregateId) {
+        return recordingSubscriber.events.stream()
+                .filter(e -> e.getAggregateId().equals(aggregateId))
+                .map(OutboxEvent::getId)
+                .toList();
+    }
+
+    private Long createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+
+    static class RecordingSubscriber implements OutboxSubscriber {
+        final List<OutboxEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String name() {
+            return "test-recorder";
+        }
+
+        @Override
+        public void handle(List<OutboxEvent> events) {
+            this.events.addAll(events);
+        }
+    }
+}
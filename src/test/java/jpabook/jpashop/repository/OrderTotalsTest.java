@@ -0,0 +1,146 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.order.query.OrderSearchDto;
+import jpabook.jpashop.repository.order.query.OrderSearchPage;
+import jpabook.jpashop.repository.order.query.OrderSearchRepository;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/** orders.total_price / item_count 역정규화 컬럼 */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderTotalsTest {
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderSearchRepository orderSearchRepository;
+
+    @Test
+    public void 총액은_주문상품과_일치() throws Exception {
+        // given
+        Member member = createMember("총액회원");
+        Item book1 = createBook("시골 JPA", 10000, 10);
+        Item book2 = createBook("토비 스프링", 20000, 10);
+
+        //when
+        Long orderId = orderService.order(member.getId(), List.of(new OrderLine(book1.getId(), 2), new OrderLine(book2.getId(), 3)));
+        em.flush();
+        em.clear();
+
+        // then
+        Order order = orderRepository.findOne(orderId);
+        assertEquals(order.getOrderItems().stream().mapToInt(OrderItem::getTotalPrice).sum(), order.getTotalPrice());
+        assertEquals(order.getOrderItems().stream().mapToInt(OrderItem::getCount).sum(), order.getItemCount());
+        assertEquals(10000 * 2 + 20000 * 3, order.getTotalPrice());
+        assertEquals(5, order.getItemCount());
+    }
+
+    @Test
+    public void 취소해도_주문당시_총액_유지() throws Exception {
+        // given
+        Member member = createMember("총액회원");
+        Item book = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+
+        //when
+        orderService.cancelOrder(orderId);
+        em.flush();
+        em.clear();
+
+        // then
+        Order order = orderRepository.findOne(orderId);
+        assertEquals(20000, order.getTotalPrice());
+        assertEquals(2, order.getItemCount());
+    }
+
+    @Test
+    public void 백필은_여러번_돌려도_안전() throws Exception {
+        // given - 컬럼이 생기기 전에 만들어진 주문처럼 총액을 비워둠
+        Member member = createMember("총액회원");
+        Item book1 = createBook("시골 JPA", 10000, 10);
+        Item book2 = createBook("토비 스프링", 20000, 10);
+        Long orderId = orderService.order(member.getId(), List.of(new OrderLine(book1.getId(), 1), new OrderLine(book2.getId(), 2)));
+        Long filledId = orderService.order(member.getId(), book1.getId(), 1);
+        em.flush();
+        em.createNativeQuery("update orders set total_price = 0, item_count = 0 where order_id = :orderId")
+                .setParameter("orderId", orderId)
+                .executeUpdate();
+
+        //when
+        int first = orderRepository.backfillTotals(orderId, filledId + 1);
+        int second = orderRepository.backfillTotals(orderId, filledId + 1);
+        em.clear();
+
+        // then
+        assertEquals("비어 있는 주문만 채운다.", 1, first);
+        assertEquals("이미 채운 주문은 다시 건드리지 않는다.", 0, second);
+        Order order = orderRepository.findOne(orderId);
+        assertEquals(10000 + 20000 * 2, order.getTotalPrice());
+        assertEquals(3, order.getItemCount());
+        assertEquals(10000, orderRepository.findOne(filledId).getTotalPrice());
+    }
+
+    @Test
+    public void 총액_커서는_같은_총액도_order_id로_이어짐() throws Exception {
+        // given - 총액 1000 x3, 2000 x2
+        Member member = createMember("총액커서");
+        Item book = createBook("시골 JPA", 1000, 100);
+        for (int count : new int[]{1, 2, 1, 2, 1}) {
+            orderService.order(member.getId(), book.getId(), count);
+        }
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("총액커서");
+        orderSearch.setSort(OrderSort.TOTAL_PRICE_DESC);
+
+        //when
+        List<OrderSearchDto> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderSearchPage page = orderSearchRepository.search(orderSearch, cursor, 2);
+            paged.addAll(page.getOrders());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // then
+        assertEquals(List.of(2000, 2000, 1000, 1000, 1000), paged.stream().map(OrderSearchDto::getTotalPrice).collect(Collectors.toList()));
+        List<Long> ids = paged.stream().map(OrderSearchDto::getOrderId).collect(Collectors.toList());
+        assertTrue("같은 총액 안에서는 order_id 내림차순", ids.get(0) > ids.get(1) && ids.get(2) > ids.get(3) && ids.get(3) > ids.get(4));
+    }
+
+    private Item createBook(String name, int price, int stockQuantity) {
+        Item book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
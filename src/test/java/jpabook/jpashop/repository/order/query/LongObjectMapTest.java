@@ -0,0 +1,82 @@
+package jpabook.jpashop.repository.order.query;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void 없는_키() throws Exception {
+        // given
+        LongObjectMap<String> map = new LongObjectMap<>(0);
+        map.computeIfAbsent(1L, k -> "a");
+
+        // then
+        assertNull(map.get(2L));
+        assertNull(map.get(0L));
+        assertEquals("기본값", map.getOrDefault(2L, "기본값"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void 있는_키는_다시_만들지_않음() throws Exception {
+        // given
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+        map.computeIfAbsent(7L, k -> "first");
+
+        //when
+        String value = map.computeIfAbsent(7L, k -> {
+            throw new AssertionError("이미 있는 키는 mappingFunction을 부르면 안된다.");
+        });
+
+        // then
+        assertEquals("first", value);
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void 경계값_키() throws Exception {
+        // given
+        LongObjectMap<Long> map = new LongObjectMap<>(1);
+        long[] keys = {0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 32, 1L << 40};
+
+        //when
+        for (long key : keys) {
+            map.computeIfAbsent(key, k -> k);
+        }
+
+        // then
+        for (long key : keys) {
+            assertEquals(Long.valueOf(key), map.get(key));
+        }
+        assertEquals(keys.length, map.size());
+    }
+
+    @Test
+    public void 충돌과_리사이즈() throws Exception {
+        // given - 작게 시작해서 충돌(선형 탐사)과 리사이즈가 여러 번 일어나게 함
+        LongObjectMap<Long> map = new LongObjectMap<>(1);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        //when
+        for (int i = 0; i < 10_000; i++) {
+            long key = i % 2 == 0 ? i : random.nextLong(); // 연속된 id + 무작위 id
+            map.computeIfAbsent(key, k -> k * 31);
+            expected.putIfAbsent(key, key * 31);
+        }
+
+        // then
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        for (int i = 0; i < 1000; i++) {
+            long missing = -1_000_000L - i;
+            assertNull(map.get(missing));
+        }
+    }
+}
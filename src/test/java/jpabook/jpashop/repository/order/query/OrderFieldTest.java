@@ -0,0 +1,26 @@
+package jpabook.jpashop.repository.order.query;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+public class OrderFieldTest { // 스프링 없이 파싱만 테스트
+
+    @Test
+    public void 필드_파싱() throws Exception {
+        assertEquals(EnumSet.of(OrderField.ORDER_ID, OrderField.ORDER_STATUS, OrderField.TOTAL_PRICE),
+                OrderField.parse("totalPrice, orderStatus,orderId,,totalPrice"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 모르는_필드() throws Exception {
+        OrderField.parse("orderId,password");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 빈_필드() throws Exception {
+        OrderField.parse(" , ");
+    }
+}
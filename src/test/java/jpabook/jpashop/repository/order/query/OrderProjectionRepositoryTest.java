@@ -0,0 +1,117 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderProjectionRepositoryTest {
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired OrderProjectionRepository orderProjectionRepository;
+
+    @Test
+    public void 고른_필드에_필요한_조인만() throws Exception {
+        String orderOnly = orderProjectionRepository.jpqlOf(OrderField.parse("orderStatus,totalPrice,memberId"), false);
+        String withMember = orderProjectionRepository.jpqlOf(OrderField.parse("name"), false);
+        String withDelivery = orderProjectionRepository.jpqlOf(OrderField.parse("address,deliveryStatus"), true);
+
+        assertFalse("memberId는 FK 컬럼이라 member를 조인하지 않는다.", orderOnly.contains(" join "));
+        assertTrue(withMember.contains("join o.member m"));
+        assertFalse(withMember.contains("join o.delivery d"));
+        assertTrue(withDelivery.contains("join o.delivery d"));
+        assertFalse(withDelivery.contains("join o.member m"));
+        assertTrue(withDelivery.contains("o.id > :afterId"));
+    }
+
+    @Test
+    public void 필드_조합마다_JPQL_한번만() throws Exception {
+        orderProjectionRepository.jpqlOf(OrderField.parse("orderId,itemCount"), false);
+        int afterFirst = orderProjectionRepository.cachedProjectionCount();
+
+        String same = orderProjectionRepository.jpqlOf(OrderField.parse("itemCount,orderId,itemCount"), false);
+        int afterSame = orderProjectionRepository.cachedProjectionCount();
+        String cursor = orderProjectionRepository.jpqlOf(OrderField.parse("orderId,itemCount"), true);
+
+        assertEquals("순서/중복만 다른 필드 집합은 같은 JPQL을 쓴다.", afterFirst, afterSame);
+        assertNotEquals("커서 여부가 다르면 다른 JPQL이다.", same, cursor);
+        assertTrue(orderProjectionRepository.cachedProjectionCount() <= afterSame + 1);
+    }
+
+    @Test
+    public void afterId_페이징과_orderItems_window() throws Exception {
+        // given
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 100);
+        Item book2 = createBook("토비 스프링", 20000, 100);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orderIds.add(orderService.order(member.getId(), List.of(new OrderLine(book1.getId(), 1 + i), new OrderLine(book2.getId(), 1))));
+        }
+        em.flush();
+        Set<OrderField> fields = OrderField.parse("orderStatus,totalPrice,orderItems");
+
+        //when - window 2개씩, 한 페이지 3건
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Long afterId = orderIds.get(0) - 1;
+        while (true) {
+            List<Map<String, Object>> page = new ArrayList<>();
+            orderProjectionRepository.stream(fields, afterId, 3, 2, page::add);
+            if (page.isEmpty()) {
+                break;
+            }
+            rows.addAll(page);
+            afterId = (Long) page.get(page.size() - 1).get("orderId");
+        }
+
+        //then
+        assertEquals(orderIds, rows.stream().map(row -> (Long) row.get("orderId")).toList());
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> row = rows.get(i);
+            assertEquals(List.of("orderId", "orderStatus", "totalPrice", "orderItems"), new ArrayList<>(row.keySet()));
+            assertEquals(OrderStatus.ORDER, row.get("orderStatus"));
+            assertEquals(10000 * (1 + i) + 20000, ((Number) row.get("totalPrice")).intValue());
+            @SuppressWarnings("unchecked")
+            List<OrderItemQueryDto> orderItems = (List<OrderItemQueryDto>) row.get("orderItems");
+            assertEquals("window 경계와 상관없이 자기 주문상품만 붙어야 한다.", 2, orderItems.size());
+            assertEquals(1 + i, orderItems.stream().filter(oi -> oi.getItemName().equals("시골 JPA")).findFirst().get().getCount());
+        }
+    }
+
+    private Item createBook(String name, int price, int stockQuantity) {
+        Item book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
@@ -0,0 +1,143 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderQueryRepositoryTest {
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderQueryRepository orderQueryRepository;
+
+    @Test
+    public void in절_여러_chunk_조회() throws Exception {
+        // given - 아직 커밋 안된 주문 (같은 트랜잭션에서만 보임)
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 10);
+        Long orderId1 = orderService.order(member.getId(), book.getId(), 1);
+        Long orderId2 = orderService.order(member.getId(), book.getId(), 2);
+        em.flush();
+
+        List<Long> orderIds = new ArrayList<>();
+        orderIds.add(orderId1);
+        for (long id = -1; id > -1200; id--) { // 없는 id로 chunk를 여러 개 만듦
+            orderIds.add(id);
+        }
+        orderIds.add(orderId2);
+
+        //when
+        LongObjectMap<List<OrderItemQueryDto>> orderItemMap = orderQueryRepository.findOrderItemMap(orderIds);
+
+        // then
+        assertEquals("chunk가 여러 개여도 호출한 트랜잭션의 주문이 보여야 한다.", 2, orderItemMap.size());
+        assertEquals(1, orderItemMap.get(orderId1).get(0).getCount());
+        assertEquals(2, orderItemMap.get(orderId2).get(0).getCount());
+        assertNull(orderItemMap.get(-1L));
+    }
+
+    @Test
+    public void V5_주문상품이_없는_주문은_빈_목록() throws Exception {
+        // given - 주문 상품 없이 들어간 주문
+        Member member = createMember();
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery);
+        em.persist(order);
+        em.flush();
+        int offset = em.createQuery("select count(o) from Order o where o.id < :id", Long.class)
+                .setParameter("id", order.getId())
+                .getSingleResult()
+                .intValue();
+
+        //when
+        List<OrderQueryDto> result = orderQueryRepository.findAllByDto_optimization(offset, 1);
+
+        // then
+        assertEquals(order.getId(), result.get(0).getOrderId());
+        assertEquals("주문 상품이 없으면 null이 아니라 빈 목록이어야 한다.", List.of(), result.get(0).getOrderItems());
+    }
+
+    @Test
+    public void 회원별_주문내역_커서페이징() throws Exception {
+        // given - 회원 주문 5건(주문일 2건은 같음) + 다른 회원 주문
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 100);
+        Item book2 = createBook("토비 스프링", 20000, 100);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 10, 12, 0);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Long orderId = orderService.order(member.getId(), List.of(new OrderLine(book1.getId(), 1 + i), new OrderLine(book2.getId(), 1)));
+            orderRepository.findOne(orderId).setOrderDate(base.plusDays(Math.min(i, 3))); // 마지막 두 건은 같은 주문일
+            expected.add(0, orderId); // 최신 주문부터
+        }
+        orderService.order(createMember().getId(), book1.getId(), 1);
+        em.flush();
+
+        //when
+        List<List<MemberOrderQueryDto>> pages = new ArrayList<>();
+        OrderCursor cursor = null;
+        while (true) {
+            List<MemberOrderQueryDto> page = orderQueryRepository.findMemberOrders(member.getId(), cursor, 2);
+            pages.add(page);
+            if (page.size() < 2) {
+                break;
+            }
+            MemberOrderQueryDto last = page.get(page.size() - 1);
+            cursor = OrderCursor.decode(new OrderCursor(last.getOrderDate(), last.getOrderId()).encode()); // API처럼 토큰을 거쳐서
+        }
+
+        // then
+        List<Long> orderIds = pages.stream().flatMap(List::stream).map(MemberOrderQueryDto::getOrderId).collect(Collectors.toList());
+        assertEquals("최신 주문부터 빠짐없이, 겹치지 않게 이어져야 한다.", expected, orderIds);
+        assertEquals(List.of(2, 2, 1), pages.stream().map(List::size).collect(Collectors.toList()));
+        for (MemberOrderQueryDto order : pages.get(0)) {
+            assertEquals("페이지마다 주문 상품이 붙어 있어야 한다.", 2, order.getOrderItems().size());
+            assertEquals(OrderStatus.ORDER, order.getOrderStatus());
+        }
+        MemberOrderQueryDto oldest = pages.get(2).get(0);
+        assertEquals(List.of(1, 1), oldest.getOrderItems().stream().map(OrderItemQueryDto::getCount).sorted().collect(Collectors.toList()));
+    }
+
+    private Item createBook(String name, int price, int stockQuantity) {
+        Item book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
@@ -0,0 +1,243 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.InvalidCursorException;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSort;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderSearchRepositoryTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 10, 12, 0);
+
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderSearchRepository orderSearchRepository;
+
+    @Test
+    public void 회원명은_앞부분_일치() throws Exception {
+        // given
+        Item book = createBook("시골 JPA", 1000, 100);
+        Long orderId = order(createMember("검색홍길동"), book, 1, BASE);
+        order(createMember("검색김철수"), book, 1, BASE);
+
+        //when
+        List<Long> prefix = orderIds(search(memberName("검색홍"), 10));
+        List<Long> middle = orderIds(search(memberName("길동"), 10));
+
+        // then
+        assertEquals(List.of(orderId), prefix);
+        assertTrue("중간 글자로는 찾지 않는다 (contains 검색이 아님)", middle.isEmpty());
+    }
+
+    @Test
+    public void 검색어의_와일드카드는_글자로() throws Exception {
+        // given
+        Item book = createBook("시골 JPA", 1000, 100);
+        Long orderId = order(createMember("검색A_1"), book, 1, BASE);
+        order(createMember("검색AB1"), book, 1, BASE);
+
+        //when
+        List<Long> result = orderIds(search(memberName("검색A_"), 10));
+
+        // then
+        assertEquals(List.of(orderId), result);
+    }
+
+    @Test
+    public void 조건별_검색() throws Exception {
+        // given - 같은 회원의 주문 4건
+        Member member = createMember("검색조건");
+        Item jpa = createBook("시골 JPA", 1000, 100);
+        Item spring = createBook("토비 스프링", 3000, 100);
+        order(member, jpa, 1, BASE.minusDays(5));                    // 1000
+        Long middle = order(member, jpa, 2, BASE);                   // 2000
+        Long expensive = order(member, spring, 2, BASE.plusDays(5)); // 6000
+        Long canceled = order(member, spring, 1, BASE);              // 3000
+        orderService.cancelOrder(canceled);
+        orderRepository.findOne(expensive).getDelivery().setStatus(DeliveryStatus.COMP);
+
+        // then
+        OrderSearch status = memberName("검색조건");
+        status.setOrderStatus(OrderStatus.CANCEL);
+        assertEquals(List.of(canceled), orderIds(search(status, 10)));
+
+        OrderSearch dates = memberName("검색조건");
+        dates.setOrderDateFrom(LocalDate.of(2024, 1, 10));
+        dates.setOrderDateTo(LocalDate.of(2024, 1, 10)); // 끝 날짜 포함
+        assertEquals(List.of(middle, canceled), sorted(orderIds(search(dates, 10))));
+
+        OrderSearch price = memberName("검색조건");
+        price.setMinPrice(2000);
+        price.setMaxPrice(3000);
+        assertEquals(List.of(middle, canceled), sorted(orderIds(search(price, 10))));
+
+        OrderSearch itemName = memberName("검색조건");
+        itemName.setItemName("토비");
+        assertEquals(List.of(expensive, canceled), sorted(orderIds(search(itemName, 10))));
+
+        OrderSearch delivery = memberName("검색조건");
+        delivery.setDeliveryStatus(DeliveryStatus.COMP);
+        assertEquals(List.of(expensive), orderIds(search(delivery, 10)));
+
+        assertEquals(4, search(memberName("검색조건"), 10).getOrders().size());
+    }
+
+    @Test
+    public void 정렬_방향() throws Exception {
+        // given
+        Member member = createMember("검색정렬");
+        Item book = createBook("시골 JPA", 1000, 100);
+        Long first = order(member, book, 3, BASE.minusDays(2)); // 3000
+        Long second = order(member, book, 1, BASE.minusDays(1)); // 1000
+        Long third = order(member, book, 2, BASE);               // 2000
+
+        // then
+        assertEquals(List.of(third, second, first), orderIds(search(sorted("검색정렬", OrderSort.ORDER_DATE_DESC), 10)));
+        assertEquals(List.of(first, second, third), orderIds(search(sorted("검색정렬", OrderSort.ORDER_DATE_ASC), 10)));
+        assertEquals(List.of(first, third, second), orderIds(search(sorted("검색정렬", OrderSort.TOTAL_PRICE_DESC), 10)));
+        assertEquals(List.of(second, third, first), orderIds(search(sorted("검색정렬", OrderSort.TOTAL_PRICE_ASC), 10)));
+    }
+
+    @Test
+    public void 커서로_이어서_조회() throws Exception {
+        // given - 같은 주문일/총액이 섞여 있어도 order_id로 순서가 정해짐
+        Member member = createMember("검색커서");
+        Item book = createBook("시골 JPA", 1000, 100);
+        for (int i = 0; i < 5; i++) {
+            order(member, book, 1 + i % 2, BASE.plusHours(i / 2));
+        }
+
+        for (OrderSort sort : OrderSort.values()) {
+            List<Long> all = orderIds(search(sorted("검색커서", sort), 10));
+
+            //when
+            List<Long> paged = new ArrayList<>();
+            List<Integer> pageSizes = new ArrayList<>();
+            String cursor = null;
+            do {
+                OrderSearchPage page = orderSearchRepository.search(sorted("검색커서", sort), cursor, 2);
+                paged.addAll(orderIds(page));
+                pageSizes.add(page.getOrders().size());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            // then
+            assertEquals(sort + " 커서로 이어 읽어도 한 번에 읽은 것과 같아야 한다.", all, paged);
+            assertEquals(List.of(2, 2, 1), pageSizes);
+        }
+    }
+
+    @Test(expected = InvalidCursorException.class)
+    public void 정렬과_맞지않는_커서() throws Exception {
+        // given
+        Member member = createMember("검색커서정렬");
+        Item book = createBook("시골 JPA", 1000, 100);
+        order(member, book, 1, BASE);
+        order(member, book, 1, BASE);
+        String dateCursor = orderSearchRepository.search(sorted("검색커서정렬", OrderSort.ORDER_DATE_DESC), null, 1).getNextCursor();
+
+        //when
+        orderSearchRepository.search(sorted("검색커서정렬", OrderSort.TOTAL_PRICE_DESC), dateCursor, 1);
+
+        // then
+        fail("총액 정렬에 주문일 커서를 넘기면 예외가 발생해야 한다.");
+    }
+
+    @Test
+    public void 같은_조건_조합은_JPQL_재사용() throws Exception {
+        // given
+        OrderSearch first = memberName("검색캐시1");
+        first.setMinPrice(1000);
+        OrderSearch sameShape = memberName("검색캐시2"); // 값만 다르고 조건 조합은 같음
+        sameShape.setMinPrice(5000);
+        OrderSearch otherShape = memberName("검색캐시3");
+        otherShape.setMaxPrice(5000);
+        otherShape.setSort(OrderSort.TOTAL_PRICE_ASC);
+
+        //when
+        search(first, 10);
+        int afterFirst = orderSearchRepository.cachedJpqlCount();
+        search(sameShape, 10);
+        int afterSame = orderSearchRepository.cachedJpqlCount();
+        search(otherShape, 10);
+        search(otherShape, 10);
+
+        // then
+        assertEquals("조건 조합이 같으면 JPQL을 새로 만들지 않는다.", afterFirst, afterSame);
+        assertTrue(orderSearchRepository.cachedJpqlCount() <= afterSame + 1);
+    }
+
+    private OrderSearchPage search(OrderSearch orderSearch, int limit) {
+        return orderSearchRepository.search(orderSearch, null, limit);
+    }
+
+    private static OrderSearch memberName(String memberName) {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(memberName);
+        return orderSearch;
+    }
+
+    private static OrderSearch sorted(String memberName, OrderSort sort) {
+        OrderSearch orderSearch = memberName(memberName);
+        orderSearch.setSort(sort);
+        return orderSearch;
+    }
+
+    private static List<Long> orderIds(OrderSearchPage page) {
+        return page.getOrders().stream().map(OrderSearchDto::getOrderId).collect(Collectors.toList());
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        return ids.stream().sorted().collect(Collectors.toList());
+    }
+
+    private Long order(Member member, Item item, int count, LocalDateTime orderDate) {
+        Long orderId = orderService.order(member.getId(), item.getId(), count);
+        Order order = orderRepository.findOne(orderId);
+        order.setOrderDate(orderDate);
+        return orderId;
+    }
+
+    private Item createBook(String name, int price, int stockQuantity) {
+        Item book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.search;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ItemSearchIndexTest { // 스프링 없이 색인만 테스트
+
+    @Test
+    public void 접두어_검색과_필드_가중치() throws Exception {
+        // given
+        ItemSearchIndex index = new ItemSearchIndex();
+        index.put(ItemDocument.of(book(1L, "JPA 프로그래밍", "김영한", "978-89-1234")));
+        index.put(ItemDocument.of(book(2L, "스프링 입문", "JPA 저자", "978-89-5678")));
+        index.put(ItemDocument.of(album(3L, "소설책 낭독", "홍길동")));
+
+        //when
+        List<ItemSearchHit> jpa = index.search("jp", 10);
+        List<ItemSearchHit> novel = index.search("소설", 10);
+        List<ItemSearchHit> isbn = index.search("978891234", 10);
+
+        //then
+        assertEquals("상품명이 저자보다 점수가 높아야 한다.", List.of(1L, 2L), jpa.stream().map(ItemSearchHit::getItemId).toList());
+        assertEquals(List.of(3L), novel.stream().map(ItemSearchHit::getItemId).toList());
+        assertEquals("하이픈 없이 isbn으로 찾을 수 있어야 한다.", List.of(1L), isbn.stream().map(ItemSearchHit::getItemId).toList());
+    }
+
+    @Test
+    public void 수정하면_예전_토큰은_지워짐() throws Exception {
+        // given
+        ItemSearchIndex index = new ItemSearchIndex();
+        index.put(ItemDocument.of(book(1L, "JPA 프로그래밍", "김영한", null)));
+
+        //when
+        index.put(ItemDocument.of(book(1L, "스프링 부트", "김영한", null)));
+
+        //then
+        assertTrue(index.search("jpa", 10).isEmpty());
+        assertEquals(1, index.search("스프링 김영", 10).size());
+        assertEquals(1, index.size());
+    }
+
+    private Book book(Long id, String name, String author, String isbn) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        return book;
+    }
+
+    private Album album(Long id, String name, String director) {
+        Album album = new Album();
+        album.setId(id);
+        album.setName(name);
+        album.setDirector(director);
+        return album;
+    }
+}
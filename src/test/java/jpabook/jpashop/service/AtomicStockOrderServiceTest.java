@@ -0,0 +1,183 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.OrderRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** jpashop.stock.mode=ATOMIC - 재고는 조건부 UPDATE로만 바뀌기 때문에 em.clear() 후 DB 값으로 확인 */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.stock.mode=ATOMIC")
+@Transactional
+public class AtomicStockOrderServiceTest {
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired ItemRepository itemRepository;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+
+    @Test
+    public void 상품주문() throws Exception {
+        // given
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 10);
+
+        //when
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+
+        // then
+        em.flush();
+        em.clear();
+        Order getOrder = orderRepository.findOne(orderId);
+        assertEquals(OrderStatus.ORDER, getOrder.getStatus());
+        assertEquals("주문 가격은 가격 * 수량이다", 10000 * 2, getOrder.getTotalPrice());
+        assertEquals("주문 수량만큼 재고가 줄어야 한다.", 8, stockOf(book));
+    }
+
+    @Test(expected = NotEnoughStockException.class)
+    public void 상품주문_재고수량초과() throws Exception {
+        // given
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 10);
+
+        //when
+        orderService.order(member.getId(), book.getId(), 11);
+
+        // then
+        fail("재고 수량 부족 예외가 발생해야 한다.");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는상품_주문() throws Exception {
+        // given
+        Member member = createMember();
+
+        //when
+        orderService.order(member.getId(), -1L, 1);
+
+        // then
+        fail("없는 상품은 예외가 발생해야 한다.");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 주문 트랜잭션이 실제로 롤백되는지 봐야 해서 테스트 트랜잭션을 걸지 않음
+    public void 여러상품_주문_재고수량초과() throws Exception {
+        // given
+        Long memberId = joinMember("ATOMIC_여러상품_재고수량초과");
+        Long book1Id = saveBook("시골 JPA", 10000, 10);
+        Long book2Id = saveBook("토비 스프링", 20000, 1);
+
+        //when
+        try {
+            orderService.order(memberId, List.of(new OrderLine(book1Id, 2), new OrderLine(book2Id, 2)));
+            fail("재고 수량 부족 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+        }
+
+        // then
+        assertEquals("앞에서 차감한 재고는 롤백 되어야 한다.", 10, itemRepository.findPriceAndStock(book1Id)[1]);
+        assertEquals(1, itemRepository.findPriceAndStock(book2Id)[1]);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 2차 캐시는 커밋된 상품만 들고 있어서 테스트 트랜잭션을 걸지 않음
+    public void 재고_UPDATE는_주문한_상품_캐시만_비움() throws Exception {
+        // given - 다른 상품은 2차 캐시에 올라가 있음
+        Long memberId = joinMember("ATOMIC_재고_UPDATE_캐시");
+        Long orderedId = saveBook("시골 JPA", 10000, 10);
+        Long otherId = saveBook("토비 스프링", 20000, 10);
+        itemService.findOne(orderedId);
+        itemService.findOne(otherId);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            orderService.order(memberId, orderedId, 1);
+        }
+        long hitsBefore = statistics.getSecondLevelCacheHitCount();
+        Item other = itemService.findOne(otherId);
+        long hits = statistics.getSecondLevelCacheHitCount() - hitsBefore;
+
+        // then
+        assertTrue("주문하지 않은 상품은 캐시에 남아 있어야 한다.", emf.getCache().contains(Item.class, otherId));
+        assertEquals("주문하지 않은 상품은 캐시에서 읽어야 한다.", 1, hits);
+        assertEquals(10, other.getStockQuantity());
+        assertEquals("주문한 상품은 캐시의 옛 재고가 아니라 바뀐 재고가 보여야 한다.", 7, itemService.findOne(orderedId).getStockQuantity());
+    }
+
+    @Test
+    public void 주문취소() throws Exception {
+        // given
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), List.of(new OrderLine(book.getId(), 2)));
+
+        //when
+        orderService.cancelOrder(orderId);
+
+        // then
+        em.flush();
+        em.clear();
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(orderId).getStatus());
+        assertEquals("주문이 취소된 상품은 그만큼 재고가 증가해야 한다.", 10, stockOf(book));
+    }
+
+    private int stockOf(Item item) {
+        return itemRepository.findPriceAndStock(item.getId())[1];
+    }
+
+    private Item createBook(String name, int price, int stockQuantity) {
+        Item book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+
+    private Long saveBook(String name, int price, int stockQuantity) { // 트랜잭션 밖에서 커밋까지
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long joinMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+}
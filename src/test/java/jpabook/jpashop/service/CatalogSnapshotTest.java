@@ -0,0 +1,69 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.event.StockChangedEvent;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CatalogSnapshotTest { // 스프링 없이 버전/ETag만 테스트 (상품 조회는 mock)
+
+    private ItemRepository itemRepository;
+    private CatalogSnapshot catalogSnapshot;
+
+    @Before
+    public void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findAll()).thenReturn(List.of());
+        catalogSnapshot = new CatalogSnapshot(itemRepository, mock(StockLedger.class));
+        ReflectionTestUtils.setField(catalogSnapshot, "stockRefreshInterval", Duration.ofHours(1));
+    }
+
+    @Test
+    public void 바뀐게_없으면_재사용() throws Exception {
+        //when
+        CatalogSnapshot.Snapshot first = catalogSnapshot.getSnapshot();
+        CatalogSnapshot.Snapshot second = catalogSnapshot.getSnapshot();
+
+        // then
+        assertSame(first, second);
+        verify(itemRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void 상품이_바뀌면_새_ETag() throws Exception {
+        // given
+        String before = catalogSnapshot.getSnapshot().getETag();
+
+        //when
+        catalogSnapshot.onItemChanged(new ItemChangedEvent(1L));
+
+        // then
+        assertNotEquals(before, catalogSnapshot.getSnapshot().getETag());
+    }
+
+    @Test
+    public void 재고변경은_주기마다_한번만_반영() throws Exception {
+        // given
+        String before = catalogSnapshot.getSnapshot().getETag();
+
+        //when
+        catalogSnapshot.onStockChanged(new StockChangedEvent(1L, -1));
+        catalogSnapshot.onStockChanged(new StockChangedEvent(1L, -1));
+
+        // then
+        assertEquals("주기 안에서는 주문이 들어와도 ETag가 그대로다.", before, catalogSnapshot.getSnapshot().getETag());
+
+        ReflectionTestUtils.setField(catalogSnapshot, "stockRefreshInterval", Duration.ZERO);
+        String refreshed = catalogSnapshot.getSnapshot().getETag();
+        assertNotEquals("주기가 지나면 재고 변경이 반영된다.", before, refreshed);
+        assertEquals("재고 변경이 더 없으면 버전도 그대로다.", refreshed, catalogSnapshot.getSnapshot().getETag());
+    }
+}
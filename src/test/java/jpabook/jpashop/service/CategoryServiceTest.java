@@ -0,0 +1,91 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.category.CategoryItemDto;
+import jpabook.jpashop.repository.category.CategoryQueryDto;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class CategoryServiceTest {
+
+    @Autowired CategoryService categoryService;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 하위카테고리_상품_조회() throws Exception {
+        // given: 도서 > 국내도서 > 소설
+        Long book = categoryService.create("도서", null);
+        Long domestic = categoryService.create("국내도서", book);
+        Long novel = categoryService.create("소설", domestic);
+        Long item1 = createBook("JPA", 1000);
+        Long item2 = createBook("소설책", 2000);
+        categoryService.addItem(domestic, item1);
+        categoryService.addItem(novel, item2);
+        em.flush();
+        em.clear();
+
+        //when
+        List<CategoryQueryDto> descendants = categoryService.findDescendants(book, 0, 100);
+        List<CategoryItemDto> items = categoryService.findSubtreeItems(book, null, 100);
+
+        //then
+        assertEquals(List.of(domestic, novel), descendants.stream().map(CategoryQueryDto::getCategoryId).toList());
+        assertEquals("소설은 도서에서 두 단계 아래", 2, descendants.get(1).getDepth());
+        assertEquals(List.of(item1, item2), items.stream().map(CategoryItemDto::getItemId).toList());
+    }
+
+    @Test
+    public void 서브트리_이동() throws Exception {
+        // given
+        Long book = categoryService.create("도서", null);
+        Long domestic = categoryService.create("국내도서", book);
+        Long novel = categoryService.create("소설", domestic);
+        Long music = categoryService.create("음반", null);
+        em.flush();
+        em.clear();
+
+        //when
+        categoryService.move(domestic, music);
+        em.flush();
+        em.clear();
+
+        //then
+        assertTrue("예전 조상과의 관계는 지워져야 한다.", categoryService.findDescendants(book, 0, 100).isEmpty());
+        assertEquals(List.of(domestic, novel), categoryService.findDescendants(music, 0, 100).stream()
+                .map(CategoryQueryDto::getCategoryId).toList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 하위카테고리_밑으로_이동_불가() throws Exception {
+        // given
+        Long book = categoryService.create("도서", null);
+        Long domestic = categoryService.create("국내도서", book);
+
+        //when
+        categoryService.move(book, domestic);
+
+        //then
+        fail("순환이 생기면 예외가 발생해야 한다.");
+    }
+
+    private Long createBook(String name, int price) {
+        Book item = new Book();
+        item.setName(name);
+        item.setPrice(price);
+        item.setStockQuantity(10);
+        em.persist(item);
+        return item.getId();
+    }
+}
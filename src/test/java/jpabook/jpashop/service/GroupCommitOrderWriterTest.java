@@ -0,0 +1,169 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.Benchmark;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.order.group-commit.enabled=true")
+public class GroupCommitOrderWriterTest { // writer 스레드가 따로 커밋하기 때문에 @Transactional(롤백)을 걸지 않음
+
+    @Autowired GroupCommitOrderWriter groupCommitOrderWriter;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 그룹커밋_주문() throws Exception {
+        // given
+        Long memberId = createMember("그룹커밋1");
+        Long itemId = createBook("시골 JPA", 10000, 10);
+
+        //when
+        Long orderId = groupCommitOrderWriter.order(memberId, List.of(new OrderLine(itemId, 2)));
+
+        // then
+        assertNotNull("주문마다 자기 주문 id를 받아야 한다.", orderId);
+        assertEquals(8, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test(expected = NotEnoughStockException.class)
+    public void 그룹커밋_재고수량초과() throws Exception {
+        // given
+        Long memberId = createMember("그룹커밋2");
+        Long itemId = createBook("시골 JPA", 10000, 10);
+
+        //when
+        groupCommitOrderWriter.order(memberId, List.of(new OrderLine(itemId, 11)));
+
+        // then
+        fail("같이 묶인 주문과 상관없이 자기 예외를 받아야 한다.");
+    }
+
+    @Test
+    public void 그룹커밋_일부주문_실패() throws Exception {
+        // given
+        Long memberId = createMember("그룹커밋4");
+        Long itemId = createBook("시골 JPA", 10000, 100);
+        Long soldOutId = createBook("토비 스프링", 20000, 1);
+        int threads = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger failure = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when - 같은 배치에 재고 부족 주문(앞 상품은 차감된 뒤 실패)이 섞여 들어감
+        for (int i = 0; i < threads; i++) {
+            boolean fail = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    if (fail) {
+                        groupCommitOrderWriter.order(memberId, List.of(new OrderLine(itemId, 1), new OrderLine(soldOutId, 2)));
+                    } else {
+                        groupCommitOrderWriter.order(memberId, List.of(new OrderLine(itemId, 1)));
+                    }
+                    success.incrementAndGet();
+                } catch (NotEnoughStockException e) {
+                    failure.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals("재고가 충분한 주문은 같이 묶인 주문이 실패해도 성공해야 한다.", threads / 2, success.get());
+        assertEquals(threads / 2, failure.get());
+        assertEquals("실패한 주문의 재고 차감은 남으면 안된다.", 100 - threads / 2, itemService.findOne(itemId).getStockQuantity());
+        assertEquals(1, itemService.findOne(soldOutId).getStockQuantity());
+    }
+
+    /** 기존 방식(주문 하나당 커밋)과 그룹 커밋의 처리량, p99 지연 비교 (-Pbenchmark) */
+    @Test
+    public void 그룹커밋_벤치마크() throws Exception {
+        Benchmark.assumeEnabled();
+        int threads = 32;
+        int ordersPerThread = 50;
+        Long memberId = createMember("그룹커밋3");
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < threads; i++) { // 스레드마다 상품을 따로 써서 재고 경합은 빼고 커밋 비용만 비교
+            itemIds.add(createBook("벤치마크" + i, 1000, ordersPerThread * 2));
+        }
+
+        run("per-order commit", threads, ordersPerThread, i -> orderService.order(memberId, itemIds.get(i), 1));
+        run("group commit", threads, ordersPerThread, i -> groupCommitOrderWriter.order(memberId, List.of(new OrderLine(itemIds.get(i), 1))));
+
+        for (Long itemId : itemIds) {
+            assertEquals(0, itemService.findOne(itemId).getStockQuantity());
+        }
+    }
+
+    private void run(String name, int threads, int ordersPerThread, OrderCall call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ordersPerThread; i++) {
+                    long start = System.nanoTime();
+                    assertNotNull(call.order(index));
+                    latencies.add(System.nanoTime() - start);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        Collections.sort(latencies);
+        long p99 = latencies.get((int) (latencies.size() * 0.99) - 1);
+        Benchmark.report("%s: %.0f orders/sec, p99 %.2f ms", name, latencies.size() * 1e9 / elapsed, p99 / 1e6);
+    }
+
+    interface OrderCall {
+        Long order(int threadIndex);
+    }
+
+    private Long createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+}
@@ -0,0 +1,113 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.Benchmark;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.*;
+
+public class HeavyHittersTest { // 스프링 없이 sketch만 테스트
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    public void 많이_팔린_상품이_위로() throws Exception {
+        // given
+        HeavyHitters hitters = new HeavyHitters(MINUTE, 60, 1024, 4, 64);
+        long now = 100 * MINUTE;
+        for (long itemId = 1; itemId <= 5000; itemId++) { // 한두 개씩 팔린 상품 여러 개
+            hitters.add(itemId, 1 + itemId % 2, now - (itemId % 30) * MINUTE, now);
+        }
+        hitters.add(7777L, 500, now - 10 * MINUTE, now);
+        hitters.add(8888L, 300, now, now);
+
+        //when
+        List<long[]> top = hitters.top(2, now);
+
+        //then
+        assertEquals(7777L, top.get(0)[0]);
+        assertEquals(8888L, top.get(1)[0]);
+        assertTrue("추정값은 실제보다 작으면 안된다.", top.get(0)[1] >= 500);
+    }
+
+    @Test
+    public void 창_밖으로_나가면_빠지고_취소는_뺌() throws Exception {
+        // given
+        HeavyHitters hitters = new HeavyHitters(MINUTE, 60, 1024, 4, 64);
+        long now = 100 * MINUTE;
+        hitters.add(1L, 10, now - 59 * MINUTE, now);
+        hitters.add(2L, 5, now, now);
+        hitters.add(2L, -5, now, now); // 취소
+
+        //when
+        List<long[]> later = hitters.top(10, now + MINUTE);
+
+        //then
+        assertTrue("1시간 지난 판매와 취소된 판매는 없어야 한다.", later.isEmpty());
+    }
+
+    @Test
+    public void 동시에_반영해도_많이_팔린_상품이_위로() throws Exception {
+        // given
+        HeavyHitters hitters = new HeavyHitters(MINUTE, 60, 1024, 4, 64);
+        long now = System.currentTimeMillis();
+
+        //when
+        addConcurrently(hitters, 4, 20_000, now);
+        List<long[]> top = hitters.top(10, now);
+
+        //then
+        assertEquals(10, top.size());
+        assertTrue("상위 상품은 많이 팔린 20개 안에 있어야 한다.", top.stream().allMatch(r -> r[0] < 20));
+    }
+
+    /** 주문 하나를 반영하는 비용 (상품 수와 상관없이 일정해야 함) */
+    @Test
+    public void 주문반영_벤치마크() throws Exception {
+        Benchmark.assumeEnabled();
+        int threads = 8;
+        int ordersPerThread = 200_000;
+        HeavyHitters hitters = new HeavyHitters(MINUTE, 60, 1024, 4, 64);
+        long now = System.currentTimeMillis();
+
+        long elapsed = addConcurrently(hitters, threads, ordersPerThread, now);
+
+        long queryBegin = System.nanoTime();
+        hitters.top(10, now);
+        long queryElapsed = System.nanoTime() - queryBegin;
+
+        Benchmark.report("heavy hitters: %.0f ns/order (%d threads), top 10 query %.2f ms",
+                (double) elapsed * threads / ((long) threads * ordersPerThread), threads, queryElapsed / 1e6);
+    }
+
+    /** 상품 10만 개 중 20개가 주문의 절반을 차지하는 분포로 동시에 반영, 걸린 시간(ns)을 돌려줌 */
+    private long addConcurrently(HeavyHitters hitters, int threads, int ordersPerThread, long now) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long begin = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < ordersPerThread; i++) {
+                        long itemId = random.nextBoolean() ? random.nextLong(20) : random.nextLong(100_000);
+                        hitters.add(itemId, 1, now, now);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
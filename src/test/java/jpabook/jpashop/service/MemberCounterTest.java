@@ -0,0 +1,81 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class MemberCounterTest { // 스프링 없이 갱신 규칙만 테스트 (count 쿼리는 mock)
+
+    private MemberQueryRepository memberQueryRepository;
+    private MemberCounter memberCounter;
+
+    @Before
+    public void setUp() {
+        memberQueryRepository = mock(MemberQueryRepository.class);
+        memberCounter = new MemberCounter(memberQueryRepository);
+        ReflectionTestUtils.setField(memberCounter, "refreshInterval", Duration.ofHours(1));
+    }
+
+    @Test
+    public void 캐시된_값_재사용() throws Exception {
+        // given
+        when(memberQueryRepository.count()).thenReturn(10L);
+
+        //when
+        long first = memberCounter.approximateCount();
+        memberCounter.increment(); // 갱신 사이에 가입
+        long second = memberCounter.approximateCount();
+
+        // then
+        assertEquals(10, first);
+        assertEquals(11, second);
+        verify(memberQueryRepository, times(1)).count();
+    }
+
+    @Test
+    public void 기동직후_갱신중이면_직접_셈() throws Exception {
+        // given - 첫 갱신 쿼리가 끝나지 않은 상태
+        CountDownLatch refreshing = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        when(memberQueryRepository.count())
+                .thenAnswer(invocation -> {
+                    refreshing.countDown();
+                    finish.await();
+                    return 10L;
+                })
+                .thenReturn(10L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> first = executor.submit(memberCounter::approximateCount);
+        refreshing.await();
+
+        //when
+        long concurrent = memberCounter.approximateCount();
+
+        // then
+        assertEquals("0이 아니라 실제 건수를 돌려줘야 한다.", 10, concurrent);
+        finish.countDown();
+        assertEquals(10, first.get().longValue());
+        executor.shutdown();
+    }
+
+    @Test
+    public void 주기가_지나면_다시_셈() throws Exception {
+        // given
+        when(memberQueryRepository.count()).thenReturn(10L, 20L);
+        memberCounter.approximateCount();
+
+        //when
+        ReflectionTestUtils.setField(memberCounter, "refreshInterval", Duration.ZERO);
+        long refreshed = memberCounter.approximateCount();
+
+        // then
+        assertEquals(20, refreshed);
+    }
+}
@@ -1,13 +1,17 @@
 package jpabook.jpashop.service;
 
 import jakarta.persistence.EntityManager;
+import jpabook.jpashop.Benchmark;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.member.query.MemberPage;
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
 import static org.junit.Assert.*;
@@ -20,6 +24,8 @@ public class MemberServiceTest { // Junit4
     @Autowired MemberService memberService;
     @Autowired MemberRepository memberRepository;
     @Autowired EntityManager em;
+    @Autowired MemberNameFilter memberNameFilter;
+    @Autowired MemberQueryRepository memberQueryRepository;
 
     @Test
     public void 회원가입() throws Exception {
@@ -50,4 +56,101 @@ public class MemberServiceTest { // Junit4
         fail("예외가 발생 해야 한다.");
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void 이름수정_중복_회원_예외() throws Exception {
+        // given
+        Member member1 = new Member();
+        member1.setName("수정중복1");
+        Member member2 = new Member();
+        member2.setName("수정중복2");
+        memberService.join(member1);
+        memberService.join(member2);
+
+        //when
+        memberService.update(member2.getId(), "수정중복1"); // 예외가 발생 해야 한다!
+
+        //then
+        fail("예외가 발생 해야 한다.");
+    }
+
+    @Test
+    public void 이름수정() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("수정전");
+        memberService.join(member);
+
+        //when
+        memberService.update(member.getId(), "수정전"); // 같은 이름은 그대로 통과
+        memberService.update(member.getId(), "수정후");
+
+        //then
+        em.clear();
+        assertEquals("수정후", memberRepository.findOne(member.getId()).getName());
+        assertTrue("바뀐 이름은 필터에 있어야 한다.", memberNameFilter.mightContain("수정후"));
+    }
+
+    @Test
+    public void 회원목록_전체건수() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("건수확인");
+        memberService.join(member);
+        em.flush();
+        long exact = memberQueryRepository.count();
+
+        //when
+        MemberPage exactPage = memberService.findMemberPage(null, 10, MemberCountMode.EXACT);
+        MemberPage approxPage = memberService.findMemberPage(null, 10, MemberCountMode.APPROX);
+        MemberPage nonePage = memberService.findMemberPage(null, 10, MemberCountMode.NONE);
+
+        // then
+        assertEquals(Long.valueOf(exact), exactPage.getTotalCount());
+        assertNotNull("근사값도 처음부터 0이 아닌 값이 있어야 한다.", approxPage.getTotalCount());
+        assertTrue(approxPage.getTotalCount() > 0);
+        assertNull("NONE이면 건수를 구하지 않는다.", nonePage.getTotalCount());
+        assertFalse(exactPage.getMembers().isEmpty());
+    }
+
+    @Test
+    public void 가입한_이름은_필터에_추가() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("필터확인");
+
+        //when
+        memberService.join(member);
+
+        // then
+        assertTrue("가입한 이름은 필터에 있어야 한다.", memberNameFilter.mightContain("필터확인"));
+    }
+
+    /** 새 이름 가입 처리량 - 이름 필터가 중복 확인 쿼리를 생략해주는 만큼 빨라져야 함 (-Pbenchmark) */
+    @Test
+    public void 회원가입_벤치마크() throws Exception {
+        Benchmark.assumeEnabled();
+        int joins = 2000;
+        ReflectionTestUtils.setField(memberNameFilter, "enabled", false);
+        double withoutFilter;
+        try {
+            withoutFilter = joinPerSecond("필터없음", joins);
+        } finally {
+            ReflectionTestUtils.setField(memberNameFilter, "enabled", true);
+        }
+        double withFilter = joinPerSecond("필터", joins);
+
+        Benchmark.report("signup: without filter %.0f joins/sec, with filter %.0f joins/sec", withoutFilter, withFilter);
+        assertTrue("가입한 이름은 필터에 있어야 한다.", memberNameFilter.mightContain("필터" + (joins - 1)));
+    }
+
+    private double joinPerSecond(String prefix, int joins) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < joins; i++) {
+            Member member = new Member();
+            member.setName(prefix + i);
+            memberService.join(member);
+        }
+        return joins * 1e9 / (System.nanoTime() - begin);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"jpashop.order.import.chunk-size=2", "jpashop.order.import.max-finished-jobs=2"})
+public class OrderImportServiceTest { // chunk마다 따로 커밋하기 때문에 @Transactional(롤백)을 걸지 않음
+
+    @Autowired OrderImportService orderImportService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManager em;
+
+    @Test
+    public void ndjson_등록_잘못된행은_건너뜀() throws Exception {
+        // given - chunk-size=2 라서 잘못된 행이 여러 chunk에 걸쳐 있음
+        Long memberId = createMember("대량등록1");
+        Long itemId = createBook("시골 JPA", 10000, 10);
+        String body = String.join("\n",
+                "{\"memberId\":" + memberId + ",\"orderLines\":[{\"itemId\":" + itemId + ",\"count\":1}]}",
+                "{\"memberId\":-1,\"orderLines\":[{\"itemId\":" + itemId + ",\"count\":1}]}",
+                "",
+                "{\"memberId\":" + memberId + ",\"orderDate\":\"2024-01-01T10:00:00\",\"orderLines\":[{\"itemId\":" + itemId + ",\"count\":2}]}",
+                "{not json",
+                "{\"memberId\":" + memberId + ",\"orderLines\":[{\"itemId\":-1,\"count\":1}]}",
+                "{\"memberId\":" + memberId + ",\"orderLines\":[{\"itemId\":" + itemId + ",\"count\":0}]}",
+                "{\"memberId\":" + memberId + ",\"orderLines\":[{\"itemId\":" + itemId + ",\"count\":3}]}");
+
+        //when
+        OrderImportJob job = orderImportService.importOrders(toStream(body), OrderImportService.NDJSON);
+
+        // then
+        assertEquals(OrderImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals("빈 줄은 읽은 행에 포함되지 않는다.", 7, job.getRowsRead().get());
+        assertEquals(3, job.getOrdersImported().get());
+        assertEquals(4, job.getRowsFailed().get());
+        assertTrue(job.getErrors().stream().anyMatch(e -> e.startsWith("line 5: parse error")));
+        assertTrue(job.getErrors().stream().anyMatch(e -> e.startsWith("line 2: 존재하지 않는 회원입니다.")));
+        assertTrue(job.getErrors().stream().anyMatch(e -> e.startsWith("line 6: 존재하지 않는 상품입니다.")));
+        assertTrue(job.getErrors().stream().anyMatch(e -> e.startsWith("line 7: 주문 수량을 확인해주세요.")));
+        assertEquals(3L, countOrders(memberId));
+        assertEquals("이미 처리된 주문이라 재고는 그대로다.", 10, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void csv_등록_헤더는_건너뜀() throws Exception {
+        // given
+        Long memberId = createMember("대량등록2");
+        Long itemId = createBook("시골 JPA", 10000, 10);
+        String body = "memberId,itemId,count,orderDate\n"
+                + memberId + "," + itemId + ",1,2024-01-01T10:00:00\n"
+                + memberId + "," + itemId + "\n"
+                + memberId + "," + itemId + ",2\n";
+
+        //when
+        OrderImportJob job = orderImportService.importOrders(toStream(body), OrderImportService.CSV);
+
+        // then
+        assertEquals(3, job.getRowsRead().get());
+        assertEquals(2, job.getOrdersImported().get());
+        assertEquals(1, job.getRowsFailed().get());
+        assertEquals(2L, countOrders(memberId));
+    }
+
+    @Test
+    public void 끝난작업은_최대개수만큼만_보관() throws Exception {
+        //when
+        OrderImportJob first = orderImportService.importOrders(toStream(""), OrderImportService.NDJSON);
+        orderImportService.importOrders(toStream(""), OrderImportService.NDJSON);
+        OrderImportJob last = orderImportService.importOrders(toStream(""), OrderImportService.NDJSON);
+
+        // then
+        assertTrue(orderImportService.findJobs().size() <= 2);
+        assertNull("오래된 작업부터 지워진다.", orderImportService.findJob(first.getId()));
+        assertSame(last, orderImportService.findJob(last.getId()));
+    }
+
+    @Test
+    public void 별도_스레드에서_등록() throws Exception {
+        // given
+        Long memberId = createMember("대량등록3");
+        Long itemId = createBook("시골 JPA", 10000, 10);
+
+        //when
+        OrderImportJob job = orderImportService.importOrdersAsync(toStream(memberId + "," + itemId + ",1"), OrderImportService.CSV).get();
+
+        // then
+        assertEquals(OrderImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(1L, countOrders(memberId));
+    }
+
+    private long countOrders(Long memberId) {
+        return em.createQuery("select count(o) from Order o where o.member.id = :memberId", Long.class)
+                .setParameter("memberId", memberId)
+                .getSingleResult();
+    }
+
+    private static ByteArrayInputStream toStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Long createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+}
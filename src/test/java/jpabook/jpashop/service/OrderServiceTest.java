@@ -8,14 +8,18 @@ import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
@@ -25,6 +29,9 @@ public class OrderServiceTest {
     @Autowired EntityManager em;
     @Autowired OrderService orderService;
     @Autowired OrderRepository orderRepository;
+    @Autowired ItemRepository itemRepository;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
 
     @Test
     public void 상품주문() throws Exception {
@@ -78,6 +85,92 @@ public class OrderServiceTest {
         assertEquals("주문이 취소된 상품은 그만큼 재고가 증가해야 한다.", 10, book.getStockQuantity());
     }
 
+    @Test
+    public void 이미_취소된_주문_취소() throws Exception {
+        // given
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+        orderService.cancelOrder(orderId);
+
+        //when
+        try {
+            orderService.cancelOrder(orderId);
+            fail("이미 취소된 주문은 예외가 발생해야 한다.");
+        } catch (IllegalStateException e) {
+        }
+
+        // then
+        assertEquals("재고는 한 번만 복구되어야 한다.", 10, book.getStockQuantity());
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(orderId).getStatus());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는주문_취소() throws Exception {
+        //when
+        orderService.cancelOrder(-1L);
+
+        // then
+        fail("없는 주문은 예외가 발생해야 한다.");
+    }
+
+    @Test
+    public void 여러상품_주문() throws Exception {
+        // given
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 10);
+        Item book2 = createBook("토비 스프링", 20000, 10);
+
+        //when
+        Long orderId = orderService.order(member.getId(), List.of(
+                new OrderLine(book2.getId(), 1),
+                new OrderLine(book1.getId(), 2),
+                new OrderLine(book1.getId(), 1))); // 같은 상품은 수량이 합쳐짐
+
+        // then
+        Order getOrder = orderRepository.findOne(orderId);
+        assertEquals("주문한 상품 종류 수가 정확 해야한다.", 2, getOrder.getOrderItems().size());
+        assertEquals("주문 가격은 가격 * 수량의 합이다", 10000 * 3 + 20000, getOrder.getTotalPrice());
+        assertEquals(7, book1.getStockQuantity());
+        assertEquals(9, book2.getStockQuantity());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 주문 트랜잭션이 실제로 롤백되는지 봐야 해서 테스트 트랜잭션을 걸지 않음
+    public void 여러상품_주문_재고수량초과() throws Exception {
+        // given
+        Long memberId = joinMember("여러상품_재고수량초과");
+        Long book1Id = saveBook("시골 JPA", 10000, 10);
+        Long book2Id = saveBook("토비 스프링", 20000, 1);
+
+        //when
+        try {
+            orderService.order(memberId, List.of(new OrderLine(book1Id, 2), new OrderLine(book2Id, 2)));
+            fail("재고 수량 부족 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+        }
+
+        // then
+        assertEquals("앞에서 차감한 재고는 롤백 되어야 한다.", 10, itemRepository.findPriceAndStock(book1Id)[1]);
+        assertEquals(1, itemRepository.findPriceAndStock(book2Id)[1]);
+    }
+
+    @Test
+    public void 조건부_재고차감() throws Exception {
+        // given
+        Item book = createBook("시골 JPA", 10000, 10);
+
+        //when
+        boolean first = itemRepository.removeStock(book.getId(), 7);
+        boolean second = itemRepository.removeStock(book.getId(), 7); // 남은 재고 3개
+
+        // then
+        em.clear(); // 벌크 UPDATE는 영속성 컨텍스트를 거치지 않음
+        assertTrue("재고가 충분하면 차감된다.", first);
+        assertFalse("재고가 부족하면 UPDATE 되지 않는다.", second);
+        assertEquals(3, itemRepository.findOne(book.getId()).getStockQuantity());
+    }
+
     // ctrl+alt+m 메소드 따로 만들어버림!
     private Item createBook(String name, int price, int stockQuantity) {
         Item book = new Book();
@@ -95,4 +188,20 @@ public class OrderServiceTest {
         em.persist(member);
         return member;
     }
-}
\ No newline at end of file
+
+    private Long saveBook(String name, int price, int stockQuantity) { // 트랜잭션 밖에서 커밋까지
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long joinMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+}
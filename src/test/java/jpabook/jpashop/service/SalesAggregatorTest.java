@@ -0,0 +1,119 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.sales.ItemSales;
+import jpabook.jpashop.repository.SalesRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SalesAggregatorTest { // 커밋된 뒤에 집계되기 때문에 @Transactional(롤백)을 걸지 않음
+
+    @Autowired SalesAggregator salesAggregator;
+    @Autowired SalesService salesService;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired SalesRepository salesRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void 주문_취소_집계와_재계산() throws Exception {
+        // given
+        salesAggregator.rebuild(); // 샘플 데이터(initDb)까지 맞춰두고 시작
+        Long memberId = createMember("매출집계1");
+        Long itemId = createBook("매출 JPA", 10000, 10);
+
+        //when
+        orderService.order(memberId, itemId, 2);
+        Long canceledOrderId = orderService.order(memberId, itemId, 3);
+        orderService.cancelOrder(canceledOrderId);
+        salesAggregator.flush();
+
+        //then
+        ItemSales itemSales = salesService.findTopItems(1000).stream()
+                .filter(s -> s.getItemId().equals(itemId))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("취소된 주문은 빠져야 한다.", 2, itemSales.getUnitsSold());
+        assertEquals(20000, itemSales.getRevenue());
+
+        SalesRebuildResult result = salesAggregator.rebuild();
+        assertEquals("증분 집계와 처음부터 다시 계산한 값이 같아야 한다.", 0, result.getItemMismatches());
+        assertEquals(0, result.getDayMismatches());
+        assertEquals(0, result.getStatusMismatches());
+    }
+
+    @Test
+    public void 여러_서버가_같은_상품을_동시에_반영() throws Exception {
+        // given - 아직 집계 행이 없는 상품
+        Long itemId = createBook("동시 집계 JPA", 10000, 10);
+        int servers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(servers);
+
+        //when - 서버마다 자기 flush 트랜잭션으로 더함, 실패하면 SalesAggregator처럼 다음 주기에 다시
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < servers; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> salesRepository.addItemSales(itemId, 1, 10000));
+                        return null;
+                    } catch (RuntimeException e) { // 처음 넣는 순간이 겹친 경우
+                        if (attempt == 10) {
+                            throw e;
+                        }
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        ItemSales itemSales = salesRepository.findAllItemSales().stream()
+                .filter(s -> s.getItemId().equals(itemId))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("빠지거나 두 번 더해진 서버가 없어야 한다.", servers, itemSales.getUnitsSold());
+        assertEquals(servers * 10000L, itemSales.getRevenue());
+    }
+
+    private Long createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+}
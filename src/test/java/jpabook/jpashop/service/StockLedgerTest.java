@@ -0,0 +1,242 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.Benchmark;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class StockLedgerTest { // 스프링 없이 원장만 테스트 (상품 조회와 DB 반영은 mock)
+
+    private ItemRepository itemRepository;
+    private StockLedger ledger;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        ledger = new StockLedger(itemRepository, transactionTemplate);
+    }
+
+    @Test
+    public void 재고_예약_취소() throws Exception {
+        // given
+        when(itemRepository.findPriceAndStock(1L)).thenReturn(new int[]{1000, 10});
+
+        //when
+        int price = ledger.reserve(1L, 3).getPrice();
+        StockLedger.Reservation rolledBack = ledger.reserve(1L, 1);
+        ledger.release(rolledBack);
+
+        // then
+        assertEquals("가격은 원장에서 돌려줘야 한다.", 1000, price);
+        assertEquals("예약한 만큼 줄고 취소한 만큼 늘어야 한다.", 7, ledger.getAvailable(1L));
+        verify(itemRepository, times(1)).findPriceAndStock(1L); // 원장에 없을 때 한 번만 조회
+    }
+
+    @Test(expected = NotEnoughStockException.class)
+    public void 재고_예약_재고수량초과() throws Exception {
+        // given
+        when(itemRepository.findPriceAndStock(1L)).thenReturn(new int[]{1000, 10});
+
+        //when
+        ledger.reserve(1L, 11);
+
+        // then
+        fail("재고 수량 부족 예외가 발생해야 한다.");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는_상품_예약() throws Exception {
+        //when
+        ledger.reserve(99L, 1);
+
+        // then
+        fail("없는 상품은 예외가 발생해야 한다.");
+    }
+
+    @Test
+    public void flush는_변화량만_반영() throws Exception {
+        // given
+        when(itemRepository.findPriceAndStock(1L)).thenReturn(new int[]{1000, 10});
+        ledger.reserve(1L, 3);
+        ledger.restock(1L, 1); // 주문 취소
+
+        //when
+        ledger.flush();
+        ledger.flush();
+
+        // then
+        verify(itemRepository, times(1)).addStock(1L, -2);
+    }
+
+    @Test
+    public void 비우면_수정한_재고로_다시_시작() throws Exception {
+        // given
+        when(itemRepository.findPriceAndStock(1L)).thenReturn(new int[]{1000, 10}, new int[]{2000, 50});
+        ledger.reserve(1L, 3);
+
+        //when
+        ledger.beginOverwrite(1L); // 상품 수정 - 아직 반영 안된 -3은 버림
+        ledger.endOverwrite(1L);
+        int price = ledger.reserve(1L, 1).getPrice();
+        ledger.flush();
+
+        // then
+        assertEquals(2000, price);
+        assertEquals(49, ledger.getAvailable(1L));
+        verify(itemRepository, times(1)).addStock(1L, -1);
+        verify(itemRepository, never()).addStock(1L, -4);
+    }
+
+    @Test
+    public void 비우기는_진행중인_flush가_끝날때까지_기다림() throws Exception {
+        // given
+        when(itemRepository.findPriceAndStock(1L)).thenReturn(new int[]{1000, 10});
+        ledger.reserve(1L, 3);
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        when(itemRepository.addStock(1L, -3)).thenAnswer(invocation -> {
+            flushing.countDown();
+            commit.await();
+            return 1;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when
+        Future<?> flush = executor.submit(ledger::flush);
+        flushing.await();
+        Future<?> evict = executor.submit(() -> ledger.beginOverwrite(1L));
+
+        // then
+        try {
+            evict.get(200, TimeUnit.MILLISECONDS);
+            fail("flush가 DB에 반영하는 동안 evict는 끝나면 안된다.");
+        } catch (TimeoutException expected) {
+        }
+        commit.countDown();
+        flush.get();
+        evict.get();
+        ledger.endOverwrite(1L);
+        executor.shutdown();
+        assertEquals("비운 뒤에는 원장에 없어야 한다.", -1, ledger.getAvailable(1L));
+    }
+
+    @Test
+    public void 수정이_끝날때까지_예약은_기다림() throws Exception {
+        // given - 수정 트랜잭션이 커밋 전 (DB에는 아직 예전 재고 10)
+        when(itemRepository.findPriceAndStock(1L)).thenReturn(new int[]{1000, 10}, new int[]{1000, 50});
+        ledger.reserve(1L, 1);
+        ledger.beginOverwrite(1L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        //when
+        Future<StockLedger.Reservation> reserve = executor.submit(() -> ledger.reserve(1L, 2));
+
+        // then
+        try {
+            reserve.get(200, TimeUnit.MILLISECONDS);
+            fail("수정이 커밋되기 전에는 예약하면 안된다.");
+        } catch (TimeoutException expected) {
+        }
+        ledger.endOverwrite(1L); // 수정 커밋 - 재고 50
+        reserve.get();
+        executor.shutdown();
+        ledger.flush();
+        assertEquals("수정한 재고 기준으로 예약되어야 한다.", 48, ledger.getAvailable(1L));
+        verify(itemRepository, times(2)).findPriceAndStock(1L);
+        verify(itemRepository, times(1)).addStock(1L, -2);
+    }
+
+    @Test
+    public void 수정전_예약이_롤백되면_되돌리지_않음() throws Exception {
+        // given
+        when(itemRepository.findPriceAndStock(1L)).thenReturn(new int[]{1000, 10}, new int[]{1000, 50});
+        StockLedger.Reservation reservation = ledger.reserve(1L, 3);
+        ledger.beginOverwrite(1L); // 상품 수정 - 재고 50
+        ledger.endOverwrite(1L);
+        ledger.reserve(1L, 1);
+
+        //when
+        ledger.release(reservation); // 수정 전에 한 주문이 롤백됨
+        ledger.flush();
+
+        // then
+        assertEquals("수정한 재고에 예전 예약을 더하면 안된다.", 49, ledger.getAvailable(1L));
+        verify(itemRepository, times(1)).addStock(1L, -1);
+    }
+
+    @Test
+    public void 동시_예약() throws Exception {
+        // given
+        int stock = 10_000;
+        when(itemRepository.findPriceAndStock(1L)).thenReturn(new int[]{1000, stock});
+
+        //when
+        long success = reserveConcurrently(8, stock);
+
+        // then
+        assertEquals("재고보다 많이 팔리면 안된다.", stock, success);
+        assertEquals(0, ledger.getAvailable(1L));
+    }
+
+    /** 인기 상품 하나에 64개 스레드가 동시에 주문 (-Pbenchmark) */
+    @Test
+    public void 동시_주문_벤치마크() throws Exception {
+        Benchmark.assumeEnabled();
+        int threads = 64;
+        int stock = 1_000_000;
+        when(itemRepository.findPriceAndStock(1L)).thenReturn(new int[]{1000, stock});
+        ledger.reserve(1L, 0);
+
+        long begin = System.nanoTime();
+        long success = reserveConcurrently(threads, stock);
+        long elapsed = System.nanoTime() - begin;
+
+        Benchmark.report("stock ledger: %d threads, %.0f orders/sec", threads, success * 1e9 / elapsed);
+        assertEquals("재고보다 많이 팔리면 안된다.", stock, success);
+    }
+
+    private long reserveConcurrently(int threads, int stock) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong success = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    while (true) {
+                        ledger.reserve(1L, 1);
+                        success.incrementAndGet();
+                    }
+                } catch (NotEnoughStockException e) { // 재고 소진
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        return success.get();
+    }
+}
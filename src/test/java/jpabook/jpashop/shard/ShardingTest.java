@@ -0,0 +1,248 @@
+package jpabook.jpashop.shard;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.MemberOrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.query.ShardOrderPage;
+import jpabook.jpashop.repository.order.query.ShardOrderQueryDto;
+import jpabook.jpashop.repository.order.query.ShardedOrderQueryRepository;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.SalesAggregator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.shard.enabled=true",
+        "jpashop.shard.buckets=8",
+        "jpashop.shard.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "jpashop.shard.shards[0].username=sa",
+        "jpashop.shard.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "jpashop.shard.shards[1].username=sa",
+        "spring.jpa.properties.hibernate.connection.handling_mode=DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION"})
+@AutoConfigureMockMvc
+public class ShardingTest { // 샤드 DB는 따로 커밋되기 때문에 @Transactional(롤백)을 걸지 않음
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired ShardedOrderQueryRepository shardedOrderQueryRepository;
+    @Autowired ShardDirectory shardDirectory;
+    @Autowired ShardRebalancer shardRebalancer;
+    @Autowired ShardRoutingDataSource routingDataSource;
+    @Autowired SalesAggregator salesAggregator;
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void 주문은_회원의_샤드에_저장() throws Exception {
+        // given
+        Long memberId = createMember();
+        Long itemId = createBook("샤드 JPA", 10000, 10);
+
+        //when
+        Long orderId = orderService.order(memberId, itemId, 2);
+
+        // then
+        int shard = shardDirectory.shardOf(memberId);
+        assertEquals(1, countOrders(routingDataSource.shard(shard), orderId));
+        assertEquals(0, countOrders(routingDataSource.shard(1 - shard), orderId));
+        assertEquals("주문은 global DB에 저장되지 않는다.", 0, countOrders(routingDataSource.global(), orderId));
+        assertEquals("재고는 global DB에서 차감된다.", 8, itemService.findOne(itemId).getStockQuantity());
+
+        Order order = orderRepository.findOne(orderId);
+        assertEquals(1, order.getOrderItems().size());
+        List<MemberOrderQueryDto> history = orderQueryRepository.findMemberOrders(memberId, null, 10);
+        assertEquals(orderId, history.get(0).getOrderId());
+        assertEquals("상품 이름은 global DB에서 채운다.", "샤드 JPA", history.get(0).getOrderItems().get(0).getItemName());
+    }
+
+    @Test
+    public void 주문취소() throws Exception {
+        // given
+        Long memberId = createMember();
+        Long itemId = createBook("샤드 JPA", 10000, 10);
+        Long orderId = orderService.order(memberId, itemId, 3);
+
+        //when
+        orderService.cancelOrder(orderId);
+
+        // then
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(orderId).getStatus());
+        assertEquals("취소하면 global 재고가 복구된다.", 10, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 샤드별_커서로_합쳐서_페이징() throws Exception {
+        // given
+        Long itemId = createBook("샤드 JPA", 1000, 100);
+        for (int i = 0; i < 10; i++) {
+            orderService.order(createMember(), itemId, 1);
+        }
+        List<Long> expected = shardedOrderQueryRepository.findPage(0, 10000).stream()
+                .map(ShardOrderQueryDto::getOrderId).toList();
+
+        //when
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            ShardOrderPage page = shardedOrderQueryRepository.findPage(cursor, 3);
+            page.getOrders().forEach(o -> paged.add(o.getOrderId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // then
+        assertEquals("커서로 넘긴 페이지를 이으면 전체 목록(최신순)과 같아야 한다.", expected, paged);
+    }
+
+    @Test
+    public void bucket_옮기기() throws Exception {
+        // given
+        Long memberId = createMember();
+        Long itemId = createBook("샤드 JPA", 1000, 10);
+        Long orderId = orderService.order(memberId, itemId, 1);
+        int bucket = shardDirectory.bucketOf(memberId);
+        int source = shardDirectory.shardOf(memberId);
+
+        //when
+        shardRebalancer.moveBucket(bucket, 1 - source);
+
+        // then
+        assertEquals(1 - source, shardDirectory.shardOf(memberId));
+        assertEquals(1, countOrders(routingDataSource.shard(1 - source), orderId));
+        assertEquals(0, countOrders(routingDataSource.shard(source), orderId));
+        assertEquals("옮긴 뒤에도 회원 주문 내역이 보여야 한다.", orderId,
+                orderQueryRepository.findMemberOrders(memberId, null, 10).get(0).getOrderId());
+        assertNotNull(orderRepository.findOne(orderId));
+    }
+
+    @Test
+    public void bucket_옮기는_중에_주문() throws Exception {
+        // given - 이미 주문이 있는 회원
+        Long memberId = createMember();
+        int bucket = shardDirectory.bucketOf(memberId);
+        int source = shardDirectory.shardOf(memberId);
+        Long firstItemId = createBook("샤드 JPA", 1000, 100);
+        for (int i = 0; i < 20; i++) {
+            orderService.order(memberId, firstItemId, 1);
+        }
+
+        int threads = 4;
+        List<Long> itemIds = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            itemIds.add(createBook("샤드 JPA" + t, 1000, 1000));
+        }
+        List<Long> placed = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger[] placedPerItem = new AtomicInteger[threads];
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Long itemId = itemIds.get(t);
+            AtomicInteger count = placedPerItem[t] = new AtomicInteger();
+            futures.add(executor.submit(() -> {
+                started.countDown();
+                while (!done.get()) {
+                    try {
+                        placed.add(orderService.order(memberId, itemId, 1));
+                        count.incrementAndGet();
+                    } catch (IllegalStateException e) { // 옮기는 중이라 거절된 주문
+                    }
+                }
+                return null;
+            }));
+        }
+
+        //when
+        started.await();
+        shardRebalancer.moveBucket(bucket, 1 - source);
+        done.set(true);
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        for (Long orderId : placed) {
+            assertEquals("성공한 주문은 모두 옮겨간 샤드에 있어야 한다.", 1, countOrders(routingDataSource.shard(1 - source), orderId));
+            assertEquals(0, countOrders(routingDataSource.shard(source), orderId));
+        }
+        for (int t = 0; t < threads; t++) {
+            assertEquals("거절된 주문의 재고 차감은 롤백된다.", 1000 - placedPerItem[t].get(),
+                    itemService.findOne(itemIds.get(t)).getStockQuantity());
+        }
+        assertEquals(20 + placed.size(), orderQueryRepository.findMemberOrders(memberId, null, 10000).size());
+    }
+
+    @Test
+    public void global_DB만_보는_기능은_막음() throws Exception {
+        try {
+            salesAggregator.rebuild();
+            fail("샤딩 중에는 매출 재계산이 막혀야 한다.");
+        } catch (IllegalStateException e) {
+        }
+        try {
+            orderService.searchOrders(new OrderSearch(), null, 10);
+            fail("샤딩 중에는 주문 검색이 막혀야 한다.");
+        } catch (IllegalStateException e) {
+        }
+        for (String url : List.of("/api/v1/orders", "/api/v2/orders", "/api/v3/orders", "/api/v4/orders", "/api/v5/orders",
+                "/api/v5/orders/stream", "/api/v6/orders", "/api/v7/orders", "/api/v1/orders/search",
+                "/api/v1/simple-orders", "/api/v2/simple-orders", "/api/v3/simple-orders", "/api/v4/simple-orders")) {
+            mockMvc.perform(get(url)).andExpect(status().isConflict()); // global DB만 보는 주문 조회는 409
+        }
+        mockMvc.perform(get("/api/v3.2/orders")).andExpect(status().isOk()); // 샤드를 합쳐서 보는 조회는 그대로
+    }
+
+    private static int countOrders(DataSource dataSource, Long orderId) {
+        return new JdbcTemplate(dataSource).queryForObject("select count(*) from orders where order_id = ?", Integer.class, orderId);
+    }
+
+    private Long createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("샤드회원" + SEQ.incrementAndGet());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+}